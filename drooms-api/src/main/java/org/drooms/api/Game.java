@@ -49,7 +49,8 @@ public interface Game {
      * @param players
      *            A list of players to participate in the game.
      * @param reportFolder
-     *            Where to output data, if necessary.
+     *            Where to output data, if necessary. Null for a headless game, which keeps no reports and writes no
+     *            files; {@link #getReport()} then reports nothing.
      * @return Points gained by each player.
      */
     public Map<Player, Integer> play(Playground playground, Collection<Player> players, File reportFolder);
@@ -1,11 +1,8 @@
 package org.drooms.api;
 
+import org.drooms.util.KieBaseCache;
 import org.kie.api.KieBase;
-import org.kie.api.KieBaseConfiguration;
-import org.kie.api.KieServices;
 import org.kie.api.builder.ReleaseId;
-import org.kie.api.conf.EventProcessingOption;
-import org.kie.api.runtime.KieContainer;
 
 /**
  * Represents a worm in the {@link Game} on the {@link Playground}.
@@ -32,16 +29,12 @@ public class Player {
     }
 
     /**
-     * Retrieve the player's strategy.
+     * Retrieve the player's strategy. The strategy is only compiled once per JVM, see {@link KieBaseCache}.
      * 
      * @return The strategy.
      */
     public KieBase constructKieBase() {
-        final KieServices ks = KieServices.Factory.get();
-        final KieBaseConfiguration config = ks.newKieBaseConfiguration();
-        config.setOption(EventProcessingOption.STREAM);
-        final KieContainer kc = ks.newKieContainer(this.strategy);
-        return kc.newKieBase(config);
+        return KieBaseCache.get(this.strategy);
     }
 
     /**
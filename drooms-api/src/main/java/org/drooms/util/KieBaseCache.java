@@ -0,0 +1,141 @@
+package org.drooms.util;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.kie.api.KieBase;
+import org.kie.api.KieBaseConfiguration;
+import org.kie.api.KieServices;
+import org.kie.api.builder.KieModule;
+import org.kie.api.builder.KieRepository;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.conf.EventProcessingOption;
+import org.kie.api.runtime.KieContainer;
+
+/**
+ * Process-wide cache of compiled strategies. Each strategy, identified by its {@link ReleaseId}, is only compiled once
+ * per deployed {@link KieModule}, no matter how many games or sessions use it. When multiple threads ask for the same
+ * strategy at the same time, only one of them compiles it and the others wait for the result.
+ *
+ * <p>
+ * A strategy deployed again under the same {@link ReleaseId}, such as a rebuilt SNAPSHOT added to the
+ * {@link KieRepository}, is a different module and is therefore compiled again. Strategies that change without being
+ * deployed again, such as SNAPSHOTs replaced in the local Maven repository, need {@link #invalidate(ReleaseId)} or
+ * {@link #invalidateSnapshots()}.
+ * </p>
+ */
+public final class KieBaseCache {
+
+    /**
+     * Compilation of a strategy, as deployed in a particular module.
+     */
+    private static final class Compilation {
+
+        private final KieModule module;
+        private final FutureTask<KieBase> task;
+
+        public Compilation(final ReleaseId strategy, final KieModule module) {
+            this.module = module;
+            this.task = new FutureTask<>(new Callable<KieBase>() {
+
+                @Override
+                public KieBase call() {
+                    return KieBaseCache.compile(strategy);
+                }
+
+            });
+        }
+
+    }
+
+    private static final ConcurrentMap<ReleaseId, Compilation> CACHE = new ConcurrentHashMap<>();
+
+    private static KieBase compile(final ReleaseId strategy) {
+        final KieServices ks = KieServices.Factory.get();
+        final KieBaseConfiguration config = ks.newKieBaseConfiguration();
+        config.setOption(EventProcessingOption.STREAM);
+        final KieContainer kc = ks.newKieContainer(strategy);
+        return kc.newKieBase(config);
+    }
+
+    /**
+     * Retrieve the compiled strategy, compiling it if it wasn't yet, or if it was deployed again since.
+     *
+     * @param strategy
+     *            The strategy, in the form of a kjar.
+     * @return The strategy, to create sessions from.
+     * @throws RuntimeException
+     *             Whatever the Drools engine throws when it fails compiling the strategy. Failures are not cached.
+     */
+    public static KieBase get(final ReleaseId strategy) {
+        final KieModule module = KieServices.Factory.get().getRepository().getKieModule(strategy);
+        if (module == null) {
+            // nothing to cache; compiling reports that the strategy can not be found
+            return KieBaseCache.compile(strategy);
+        }
+        Compilation compilation = KieBaseCache.CACHE.get(strategy);
+        while (compilation == null || compilation.module != module) {
+            final Compilation newCompilation = new Compilation(strategy, module);
+            final boolean isStored = (compilation == null) ? KieBaseCache.CACHE.putIfAbsent(strategy,
+                    newCompilation) == null : KieBaseCache.CACHE.replace(strategy, compilation, newCompilation);
+            if (isStored) {
+                compilation = newCompilation;
+                compilation.task.run();
+            } else {
+                // another thread got there first
+                compilation = KieBaseCache.CACHE.get(strategy);
+            }
+        }
+        try {
+            return compilation.task.get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for strategy " + strategy, ex);
+        } catch (final ExecutionException ex) {
+            KieBaseCache.CACHE.remove(strategy, compilation);
+            final Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new IllegalStateException("Failed compiling strategy " + strategy, cause);
+            }
+        }
+    }
+
+    /**
+     * Forget the compiled strategy, so that the next {@link #get(ReleaseId)} compiles it again.
+     *
+     * @param strategy
+     *            The strategy to forget.
+     * @return True if the strategy was cached.
+     */
+    public static boolean invalidate(final ReleaseId strategy) {
+        return KieBaseCache.CACHE.remove(strategy) != null;
+    }
+
+    /**
+     * Forget all the compiled SNAPSHOT strategies. To be called whenever the SNAPSHOT kjars may have been rebuilt.
+     *
+     * @return How many strategies were forgotten.
+     */
+    public static int invalidateSnapshots() {
+        int count = 0;
+        for (final Map.Entry<ReleaseId, Compilation> entry : KieBaseCache.CACHE.entrySet()) {
+            if (entry.getKey().isSnapshot() && KieBaseCache.CACHE.remove(entry.getKey(), entry.getValue())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private KieBaseCache() {
+        // prevent instantiation
+    }
+
+}
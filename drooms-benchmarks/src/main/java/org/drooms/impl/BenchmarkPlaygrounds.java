@@ -0,0 +1,186 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.util.GameProperties;
+import org.kie.api.KieServices;
+
+/**
+ * Generates the playgrounds, players and worms that the benchmarks work with. Everything is deterministic, so that
+ * results of different runs can be compared.
+ *
+ * <p>
+ * The playground is a square surrounded by walls. Each worm has a row of its own, its lane, where it starts on the
+ * left and stretches to the right. Rows between the lanes are sprinkled with walls.
+ * </p>
+ */
+public final class BenchmarkPlaygrounds {
+
+    private static final String CONFIG = "collectibles=cheap\n" + "collectible.probability.cheap=0.2\n"
+            + "collectible.expiration.cheap=60\n" + "collectible.price.cheap=5\n" + "game.seed=0\n";
+
+    private static final double WALL_PROBABILITY = 0.1;
+
+    /**
+     * Build the playground from a generated playground file, the same way that the game does it.
+     *
+     * @param size
+     *            Width and height of the playground.
+     * @param worms
+     *            How many worms the playground should have room for.
+     * @return The playground.
+     */
+    public static Playground build(final int size, final int worms) {
+        try {
+            final File f = BenchmarkPlaygrounds.write(size, worms);
+            try (InputStream is = new FileInputStream(f)) {
+                return new DefaultGame().buildPlayground(f.getName(), is);
+            } finally {
+                f.delete();
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed generating the playground.", ex);
+        }
+    }
+
+    public static GameProperties createConfig() {
+        try {
+            return GameProperties.read(BenchmarkPlaygrounds.openConfig());
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed reading the game config.", ex);
+        }
+    }
+
+    public static List<Player> createPlayers(final int worms) {
+        final List<Player> players = new ArrayList<Player>();
+        for (int i = 0; i < worms; i++) {
+            players.add(new Player("worm" + i, KieServices.Factory.get().newReleaseId("org.drooms", "benchmark",
+                    "1.0")));
+        }
+        return Collections.unmodifiableList(players);
+    }
+
+    /**
+     * Place every worm into its lane.
+     *
+     * @param p
+     *            The playground.
+     * @param players
+     *            The worms' players.
+     * @param length
+     *            How long the worms are.
+     * @param shift
+     *            How far to the right the worms have moved from their starting positions.
+     * @return Positions of all the worms, head first.
+     */
+    public static Map<Player, Deque<Node>> createPositions(final Playground p, final List<Player> players,
+            final int length, final int shift) {
+        if (length + shift > p.getWidth() - 2) {
+            throw new IllegalArgumentException("Worms don't fit into the playground.");
+        }
+        final Map<Player, Deque<Node>> positions = new LinkedHashMap<Player, Deque<Node>>();
+        for (int i = 0; i < players.size(); i++) {
+            final int y = BenchmarkPlaygrounds.getLane(p.getHeight(), players.size(), i);
+            final Deque<Node> position = new LinkedList<Node>();
+            for (int x = shift + 1; x <= shift + length; x++) {
+                position.push(p.getNodeAt(x, y));
+            }
+            positions.put(players.get(i), position);
+        }
+        return positions;
+    }
+
+    /**
+     * Generate the contents of a playground file.
+     *
+     * @param size
+     *            Width and height of the playground.
+     * @param worms
+     *            How many worms the playground should have room for.
+     * @return Lines of the file, top to bottom.
+     */
+    public static List<String> generate(final int size, final int worms) {
+        if (worms > size - 2) {
+            throw new IllegalArgumentException("Cannot fit " + worms + " worms into playground of size " + size);
+        }
+        final Random random = new Random(size * 31 + worms);
+        final char[][] cells = new char[size][size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (x == 0 || y == 0 || x == size - 1 || y == size - 1) {
+                    cells[y][x] = '#';
+                } else if (x < size - 2 && random.nextDouble() < BenchmarkPlaygrounds.WALL_PROBABILITY) {
+                    cells[y][x] = '#';
+                } else {
+                    cells[y][x] = ' ';
+                }
+            }
+        }
+        for (int i = 0; i < worms; i++) {
+            final int y = BenchmarkPlaygrounds.getLane(size, worms, i);
+            for (int x = 1; x < size - 1; x++) {
+                cells[y][x] = ' ';
+            }
+            cells[y][1] = '@';
+        }
+        // the game reads the file bottom-up
+        final List<String> lines = new ArrayList<String>();
+        for (int y = size - 1; y >= 0; y--) {
+            lines.add(new String(cells[y]));
+        }
+        return lines;
+    }
+
+    private static int getLane(final int size, final int worms, final int worm) {
+        return 1 + (worm * (size - 2)) / worms;
+    }
+
+    /**
+     * Open the game config, for games that read it themselves.
+     *
+     * @return The config, always with the same seed.
+     */
+    public static InputStream openConfig() {
+        return new ByteArrayInputStream(BenchmarkPlaygrounds.CONFIG.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write a generated playground file.
+     *
+     * @param size
+     *            Width and height of the playground.
+     * @param worms
+     *            How many worms the playground should have room for.
+     * @return Temporary file with the playground.
+     * @throws IOException
+     *             When the file cannot be written.
+     */
+    public static File write(final int size, final int worms) throws IOException {
+        final File f = File.createTempFile("drooms-benchmark-" + size + "-" + worms + "-", ".playground");
+        f.deleteOnExit();
+        FileUtils.writeLines(f, StandardCharsets.UTF_8.name(), BenchmarkPlaygrounds.generate(size, worms));
+        return f;
+    }
+
+    private BenchmarkPlaygrounds() {
+        // prevent instantiation
+    }
+
+}
@@ -0,0 +1,83 @@
+package org.drooms.impl;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Action;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The rules that {@link DefaultGame} evaluates every turn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DefaultGameBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "2", "4", "8" })
+    public int worms;
+
+    private DefaultGame game;
+    private Playground playground;
+    private List<Player> players;
+
+    @Benchmark
+    public Node getRandomFreeNode() {
+        return this.game.getRandomFreeNode();
+    }
+
+    @Benchmark
+    public Set<Player> performCollisionDetection() {
+        return this.game.performCollisionDetection(this.playground, this.players);
+    }
+
+    @Benchmark
+    public void performPlayerActionMove() {
+        // there and back again, so that the worm stays on the playground
+        this.game.performPlayerAction(this.players.get(0), this.playground, Action.MOVE_RIGHT);
+        this.game.performPlayerAction(this.players.get(0), this.playground, Action.MOVE_LEFT);
+    }
+
+    @Benchmark
+    public void performPlayerActionReverse() {
+        this.game.performPlayerAction(this.players.get(0), this.playground, Action.REVERSE);
+    }
+
+    @Setup
+    public void setUp() {
+        this.playground = BenchmarkPlaygrounds.build(this.size, this.worms);
+        this.players = BenchmarkPlaygrounds.createPlayers(this.worms);
+        this.game = new DefaultGame();
+        this.game.setContext(BenchmarkPlaygrounds.openConfig());
+        this.game.preparePlayground(this.playground);
+        final int length = this.size / 4;
+        for (final Map.Entry<Player, Deque<Node>> entry : BenchmarkPlaygrounds.createPositions(this.playground,
+                this.players, length, 0).entrySet()) {
+            this.game.setPlayerPosition(entry.getKey(), entry.getValue());
+            this.game.setPlayerLength(entry.getKey(), length);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+package org.drooms.impl;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Playground;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading a generated playground file into a {@link Playground}, as is done at the start of every game.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlaygroundBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "2", "4", "8" })
+    public int worms;
+
+    private File playgroundFile;
+
+    @Benchmark
+    public Playground buildDefaultPlayground() throws IOException {
+        try (InputStream is = new FileInputStream(this.playgroundFile)) {
+            return new DefaultGame().buildPlayground(this.playgroundFile.getName(), is);
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.playgroundFile = BenchmarkPlaygrounds.write(this.size, this.worms);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.playgroundFile.delete();
+    }
+
+}
@@ -0,0 +1,106 @@
+package org.drooms.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullWriter;
+import org.drooms.api.Action;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.util.GameProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Generating the report of a whole game, in which every worm moves in every turn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XmlProgressListenerBenchmark {
+
+    private static final int TURNS = 1000;
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "2", "4", "8" })
+    public int worms;
+
+    private Playground playground;
+    private List<Player> players;
+    private GameProperties config;
+    private final List<Map<Player, Node[]>> turns = new ArrayList<Map<Player, Node[]>>();
+    private File reportFile;
+
+    private void play(final XmlProgressListener listener) {
+        for (int turn = 0; turn < XmlProgressListenerBenchmark.TURNS; turn++) {
+            listener.nextTurn();
+            for (final Map.Entry<Player, Node[]> entry : this.turns.get(turn % this.turns.size()).entrySet()) {
+                listener.playerPerformedAction(entry.getKey(), Action.MOVE_RIGHT, entry.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public XmlProgressListener reportInMemory() throws IOException {
+        final XmlProgressListener listener = new XmlProgressListener(this.playground, this.players, this.config);
+        this.play(listener);
+        listener.write(new NullWriter());
+        return listener;
+    }
+
+    @Benchmark
+    public XmlProgressListener reportStreamed() throws IOException {
+        final XmlProgressListener listener = new XmlProgressListener(this.playground, this.players, this.config,
+                this.reportFile);
+        this.play(listener);
+        listener.close();
+        return listener;
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        this.playground = BenchmarkPlaygrounds.build(this.size, this.worms);
+        this.players = BenchmarkPlaygrounds.createPlayers(this.worms);
+        this.config = BenchmarkPlaygrounds.createConfig();
+        this.reportFile = File.createTempFile("drooms-benchmark-", ".xml");
+        // the worms keep moving right, then start over
+        final int length = this.size / 4;
+        for (int shift = 0; length + shift <= this.size - 2; shift++) {
+            final Map<Player, Deque<Node>> positions = BenchmarkPlaygrounds.createPositions(this.playground,
+                    this.players, length, shift);
+            final Map<Player, Node[]> turn = new LinkedHashMap<Player, Node[]>();
+            for (final Map.Entry<Player, Deque<Node>> entry : positions.entrySet()) {
+                turn.put(entry.getKey(), entry.getValue().toArray(new Node[entry.getValue().size()]));
+            }
+            this.turns.add(turn);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.reportFile.delete();
+    }
+
+}
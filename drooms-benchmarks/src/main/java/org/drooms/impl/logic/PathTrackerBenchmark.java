@@ -0,0 +1,82 @@
+package org.drooms.impl.logic;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.BenchmarkPlaygrounds;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Keeping the {@link PathTracker} up to date with the worms, and asking it for paths around them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathTrackerBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "2", "4", "8" })
+    public int worms;
+
+    private PathTracker tracker;
+    private WormPositions wormPositions;
+    private Player player;
+    private Playground playground;
+    private Map<Player, Deque<Node>> positions;
+    private Map<Player, Deque<Node>> movedPositions;
+    private boolean moved = false;
+
+    @Benchmark
+    public List<Edge> getPath() {
+        // from the head of the worm, across the playground and around the other worms
+        return this.tracker.getPath(this.tracker.getCurrentPosition(),
+                this.playground.getNodeAt(this.size - 2, this.size - 2));
+    }
+
+    @Benchmark
+    public PathTracker moveWorms() {
+        // worms move one node to the right and back, so that every call changes their positions
+        this.moved = !this.moved;
+        this.move(this.moved ? this.movedPositions : this.positions);
+        return this.tracker;
+    }
+
+    private void move(final Map<Player, Deque<Node>> newPositions) {
+        this.tracker.moveWorms(this.wormPositions.update(newPositions), newPositions.get(this.player).getFirst());
+    }
+
+    @Setup
+    public void setUp() {
+        this.playground = BenchmarkPlaygrounds.build(this.size, this.worms);
+        final List<Player> players = BenchmarkPlaygrounds.createPlayers(this.worms);
+        final int length = this.size / 4;
+        this.positions = BenchmarkPlaygrounds.createPositions(this.playground, players, length, 0);
+        this.movedPositions = BenchmarkPlaygrounds.createPositions(this.playground, players, length, 1);
+        this.player = players.get(0);
+        this.tracker = new PathTracker(this.playground, this.player);
+        this.wormPositions = new WormPositions();
+        this.move(this.positions);
+    }
+
+}
@@ -0,0 +1,60 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+import org.drooms.impl.BenchmarkPlaygrounds;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath.VertexDistanceHeuristics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Finding a path across the whole playground, from one corner to the other.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UnweightedAStarBenchmark {
+
+    @Param({ "32", "64", "128" })
+    public int size;
+
+    @Param({ "2", "4", "8" })
+    public int worms;
+
+    @Param({ "MANHATTAN", "EUCLIDEAN" })
+    public VertexDistanceHeuristics heuristics;
+
+    private UnweightedAStarShortestPath<Node, Edge> search;
+    private Node source;
+    private Node target;
+
+    @Benchmark
+    public List<Node> find() {
+        return this.search.find(this.source, this.target);
+    }
+
+    @Setup
+    public void setUp() {
+        final Playground playground = BenchmarkPlaygrounds.build(this.size, this.worms);
+        this.search = new UnweightedAStarShortestPath<Node, Edge>(playground.getGraph(), this.heuristics);
+        this.source = playground.getNodeAt(1, 1);
+        this.target = playground.getNodeAt(this.size - 2, this.size - 2);
+    }
+
+}
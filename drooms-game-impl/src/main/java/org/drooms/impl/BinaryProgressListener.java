@@ -0,0 +1,334 @@
+package org.drooms.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.util.GameProperties;
+import org.kie.api.builder.ReleaseId;
+
+/**
+ * Records the progress of the game as a compact binary replay, to be read by {@link BinaryReplay}.
+ *
+ * <p>
+ * The file starts with a header describing the game configuration, the players and the playground. Then come the
+ * turns; instead of the full position of every worm, each turn only records what changed: the nodes a worm gained at
+ * its head, how many it lost at its tail, or that it reversed. Every {@link BinaryReplay#DEFAULT_KEYFRAME_INTERVAL}th
+ * turn records the full positions, so that no turn is ever too far from a complete picture of the game. The file ends
+ * with an index of where each turn starts.
+ * </p>
+ */
+public class BinaryProgressListener implements GameProgressListener, Closeable {
+
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+    private final int keyframeInterval;
+    private final Map<Player, Integer> playerIndices = new HashMap<>();
+    private final Map<Player, Node[]> positions = new HashMap<>();
+    private final List<Long> turnOffsets = new ArrayList<>();
+    private boolean finished = false;
+
+    /**
+     * Prepare the replay.
+     *
+     * @param p
+     *            Playground of the game.
+     * @param players
+     *            Players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     * @param replayFile
+     *            Where to write the replay. Will be overwritten.
+     * @throws IOException
+     *             When the file cannot be written.
+     */
+    public BinaryProgressListener(final Playground p, final Collection<Player> players,
+            final GameProperties gameConfig, final File replayFile) throws IOException {
+        this(p, players, gameConfig, replayFile, BinaryReplay.DEFAULT_KEYFRAME_INTERVAL);
+    }
+
+    BinaryProgressListener(final Playground p, final Collection<Player> players, final GameProperties gameConfig,
+            final File replayFile, final int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) {
+            throw new IllegalArgumentException("Keyframe interval must be positive: " + keyframeInterval);
+        }
+        this.keyframeInterval = keyframeInterval;
+        this.counter = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(replayFile)));
+        this.out = new DataOutputStream(this.counter);
+        try {
+            this.writeHeader(p, players, gameConfig);
+        } catch (final IOException | RuntimeException ex) {
+            this.out.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Write the turn index and close the file. Once closed, the listener ignores any further progress of the game.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        this.finished = true;
+        try {
+            if (!this.turnOffsets.isEmpty()) {
+                this.out.writeByte(BinaryReplay.END_OF_TURN);
+            }
+            final long indexOffset = this.counter.getByteCount();
+            this.out.writeInt(this.turnOffsets.size());
+            for (final long offset : this.turnOffsets) {
+                this.out.writeLong(offset);
+            }
+            this.out.writeLong(indexOffset);
+            this.out.writeInt(BinaryReplay.MAGIC);
+        } finally {
+            this.out.close();
+        }
+    }
+
+    @Override
+    public synchronized void collectibleAdded(final Collectible c) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.out.writeByte(BinaryReplay.COLLECTIBLE_ADDED);
+            this.writeCollectible(c);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void collectibleCollected(final Collectible c, final Player p, final int points) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.out.writeByte(BinaryReplay.COLLECTIBLE_COLLECTED);
+            this.writePlayer(p);
+            this.out.writeInt(points);
+            this.writeCollectible(c);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void collectibleRemoved(final Collectible c) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.out.writeByte(BinaryReplay.COLLECTIBLE_REMOVED);
+            this.writeCollectible(c);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    private boolean isKeyframe() {
+        return (this.turnOffsets.size() - 1) % this.keyframeInterval == 0;
+    }
+
+    @Override
+    public synchronized void nextTurn() {
+        if (this.finished) {
+            return;
+        }
+        try {
+            if (!this.turnOffsets.isEmpty()) {
+                this.out.writeByte(BinaryReplay.END_OF_TURN);
+            }
+            this.turnOffsets.add(this.counter.getByteCount());
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void playerCrashed(final Player p) {
+        if (this.finished) {
+            return;
+        }
+        this.positions.remove(p);
+        try {
+            this.out.writeByte(BinaryReplay.PLAYER_CRASHED);
+            this.writePlayer(p);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void playerDeactivated(final Player p) {
+        if (this.finished) {
+            return;
+        }
+        this.positions.remove(p);
+        try {
+            this.out.writeByte(BinaryReplay.PLAYER_DEACTIVATED);
+            this.writePlayer(p);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
+        if (this.finished) {
+            return;
+        }
+        final Node[] previous = this.positions.put(p, nodes.clone());
+        try {
+            if (previous == null || this.isKeyframe() || !this.writeDelta(p, m, previous, nodes)) {
+                this.out.writeByte(BinaryReplay.PLAYER_MOVED);
+                this.writePlayer(p);
+                this.out.writeByte(m.ordinal());
+                this.out.writeInt(nodes.length);
+                for (final Node n : nodes) {
+                    this.writeNode(n);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    @Override
+    public synchronized void playerSurvived(final Player p, final int points) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.out.writeByte(BinaryReplay.PLAYER_SURVIVED);
+            this.writePlayer(p);
+            this.out.writeInt(points);
+        } catch (final IOException ex) {
+            throw new IllegalStateException("Failed writing the replay.", ex);
+        }
+    }
+
+    /**
+     * Complete the replay. The replay is in its file already, so nothing is written.
+     */
+    @Override
+    public void write(final Writer w) throws IOException {
+        this.close();
+    }
+
+    private void writeCollectible(final Collectible c) throws IOException {
+        this.writeNode(c.getAt());
+        this.out.writeInt(c.getPoints());
+        this.out.writeInt(c.expiresInTurn());
+    }
+
+    /**
+     * Write the movement of a worm as the difference between its old and new position.
+     *
+     * @return False if the worm didn't grow at its head and shrink at its tail, and therefore no delta was written.
+     */
+    private boolean writeDelta(final Player p, final Action m, final Node[] previous, final Node[] current)
+            throws IOException {
+        if (previous.length == 0 || current.length == 0) {
+            return false;
+        }
+        final Node oldHead = previous[0];
+        final Node oldTail = previous[previous.length - 1];
+        final Node newHead = current[0];
+        final Node newTail = current[current.length - 1];
+        if (previous.length == current.length && newHead.equals(oldTail) && newTail.equals(oldHead)) {
+            this.out.writeByte(BinaryReplay.PLAYER_REVERSED);
+            this.writePlayer(p);
+            this.out.writeByte(m.ordinal());
+            return true;
+        }
+        int added = 0;
+        while (added < current.length && !current[added].equals(oldHead)) {
+            added++;
+        }
+        int removed = 0;
+        while (removed < previous.length && !previous[previous.length - 1 - removed].equals(newTail)) {
+            removed++;
+        }
+        if (added == current.length || removed == previous.length
+                || added + previous.length - removed != current.length) {
+            return false;
+        }
+        this.out.writeByte(BinaryReplay.PLAYER_MOVED_DELTA);
+        this.writePlayer(p);
+        this.out.writeByte(m.ordinal());
+        this.out.writeShort(added);
+        for (int i = 0; i < added; i++) {
+            this.writeNode(current[i]);
+        }
+        this.out.writeShort(removed);
+        return true;
+    }
+
+    private void writeHeader(final Playground p, final Collection<Player> players, final GameProperties gameConfig)
+            throws IOException {
+        this.out.writeInt(BinaryReplay.MAGIC);
+        this.out.writeShort(BinaryReplay.VERSION);
+        this.out.writeInt(this.keyframeInterval);
+        // game config
+        final Collection<Map.Entry<Object, Object>> config = gameConfig.getTextEntries();
+        this.out.writeInt(config.size());
+        for (final Map.Entry<Object, Object> pair : config) {
+            this.out.writeUTF((String) pair.getKey());
+            this.out.writeUTF((String) pair.getValue());
+        }
+        // players
+        this.out.writeShort(players.size());
+        for (final Player player : players) {
+            this.playerIndices.put(player, this.playerIndices.size());
+            final ReleaseId strategy = player.getStrategyReleaseId();
+            this.out.writeUTF(player.getName());
+            this.out.writeUTF(strategy.getGroupId());
+            this.out.writeUTF(strategy.getArtifactId());
+            this.out.writeUTF(strategy.getVersion());
+        }
+        // playground; one byte per node, the type of the node or a mark that there is none
+        this.out.writeUTF(p.getName());
+        this.out.writeInt(p.getWidth());
+        this.out.writeInt(p.getHeight());
+        for (int y = 0; y < p.getHeight(); y++) {
+            for (int x = 0; x < p.getWidth(); x++) {
+                final Node n = p.getNodeAt(x, y);
+                this.out.writeByte(n == null ? BinaryReplay.NO_NODE : n.getType().ordinal());
+            }
+        }
+    }
+
+    private void writeNode(final Node n) throws IOException {
+        this.out.writeShort(n.getX());
+        this.out.writeShort(n.getY());
+    }
+
+    private void writePlayer(final Player p) throws IOException {
+        final Integer index = this.playerIndices.get(p);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown player: " + p);
+        }
+        this.out.writeShort(index);
+    }
+
+}
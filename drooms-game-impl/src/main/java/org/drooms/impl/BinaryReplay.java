@@ -0,0 +1,424 @@
+package org.drooms.impl;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Player;
+import org.kie.api.KieServices;
+
+/**
+ * Reads the binary replays written by {@link BinaryProgressListener}.
+ *
+ * <p>
+ * Any turn can be reached without reading the turns before it; the index at the end of the file says where each turn
+ * starts. Since turns only record how the worms changed, the worm positions are recovered by also reading the turns
+ * since the closest preceding keyframe, of which there are at most a constant number.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public class BinaryReplay implements Closeable {
+
+    /**
+     * How often, in turns, the replay records full positions of the worms.
+     */
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 64;
+
+    static final int MAGIC = 0x44524D52; // "DRMR"
+    static final int VERSION = 1;
+    static final byte NO_NODE = -1;
+
+    static final byte END_OF_TURN = 0;
+    static final byte COLLECTIBLE_ADDED = 1;
+    static final byte COLLECTIBLE_COLLECTED = 2;
+    static final byte COLLECTIBLE_REMOVED = 3;
+    static final byte PLAYER_CRASHED = 4;
+    static final byte PLAYER_DEACTIVATED = 5;
+    static final byte PLAYER_MOVED = 6;
+    static final byte PLAYER_MOVED_DELTA = 7;
+    static final byte PLAYER_REVERSED = 8;
+    static final byte PLAYER_SURVIVED = 9;
+
+    private static final int TRAILER_LENGTH = 12;
+
+    private final RandomAccessFile file;
+    private final int keyframeInterval;
+    private final Map<String, String> config = new LinkedHashMap<>();
+    private final List<Player> players = new ArrayList<>();
+    private final String playgroundName;
+    private final int width;
+    private final int height;
+    private final Node[] nodes;
+    private final long indexOffset;
+    private final int turnCount;
+
+    /**
+     * Open the replay and read its header.
+     *
+     * @param replayFile
+     *            The replay.
+     * @throws IOException
+     *             When the file can't be read or isn't a replay.
+     */
+    public BinaryReplay(final File replayFile) throws IOException {
+        this.file = new RandomAccessFile(replayFile, "r");
+        try {
+            // read the trailer
+            if (this.file.length() < BinaryReplay.TRAILER_LENGTH) {
+                throw new IOException("Not a complete replay: " + replayFile);
+            }
+            this.file.seek(this.file.length() - BinaryReplay.TRAILER_LENGTH);
+            this.indexOffset = this.file.readLong();
+            if (this.file.readInt() != BinaryReplay.MAGIC) {
+                throw new IOException("Not a complete replay: " + replayFile);
+            }
+            this.file.seek(this.indexOffset);
+            this.turnCount = this.file.readInt();
+            // read the header
+            final DataInputStream in = this.openAt(0);
+            if (in.readInt() != BinaryReplay.MAGIC) {
+                throw new IOException("Not a replay: " + replayFile);
+            }
+            final int version = in.readUnsignedShort();
+            if (version != BinaryReplay.VERSION) {
+                throw new IOException("Unsupported replay version " + version + ": " + replayFile);
+            }
+            this.keyframeInterval = in.readInt();
+            final int configSize = in.readInt();
+            for (int i = 0; i < configSize; i++) {
+                this.config.put(in.readUTF(), in.readUTF());
+            }
+            final int playerCount = in.readUnsignedShort();
+            for (int i = 0; i < playerCount; i++) {
+                final String name = in.readUTF();
+                this.players.add(new Player(name, KieServices.Factory.get().newReleaseId(in.readUTF(), in.readUTF(),
+                        in.readUTF())));
+            }
+            this.playgroundName = in.readUTF();
+            this.width = in.readInt();
+            this.height = in.readInt();
+            this.nodes = new Node[this.width * this.height];
+            final Type[] types = Type.values();
+            for (int y = 0; y < this.height; y++) {
+                for (int x = 0; x < this.width; x++) {
+                    final byte type = in.readByte();
+                    if (type != BinaryReplay.NO_NODE) {
+                        this.nodes[y * this.width + x] = new Node(types[type], x, y);
+                    }
+                }
+            }
+        } catch (final IOException | RuntimeException ex) {
+            this.file.close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    /**
+     * Game configuration, as it was when the game was played.
+     *
+     * @return Unmodifiable map of the properties.
+     */
+    public Map<String, String> getConfig() {
+        return Collections.unmodifiableMap(this.config);
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Retrieve the node at the given co-ordinates.
+     *
+     * @param x
+     *            Horizontal co-ordinate.
+     * @param y
+     *            Vertical co-ordinate.
+     * @return Null if there is no node.
+     */
+    public Node getNodeAt(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return null;
+        }
+        return this.nodes[y * this.width + x];
+    }
+
+    public List<Player> getPlayers() {
+        return Collections.unmodifiableList(this.players);
+    }
+
+    public String getPlaygroundName() {
+        return this.playgroundName;
+    }
+
+    /**
+     * How many turns there are in the replay.
+     *
+     * @return Number of turns.
+     */
+    public int getTurnCount() {
+        return this.turnCount;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Whether or not a worm could enter the node at the given co-ordinates.
+     *
+     * @param x
+     *            Horizontal co-ordinate.
+     * @param y
+     *            Vertical co-ordinate.
+     * @return True if there is a node and it's not a wall.
+     */
+    public boolean isAvailable(final int x, final int y) {
+        final Node n = this.getNodeAt(x, y);
+        return n != null && n.getType() != Type.WALL;
+    }
+
+    private DataInputStream openAt(final long offset) throws IOException {
+        this.file.getChannel().position(offset);
+        // not closed, as that would close the file too
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(this.file.getChannel())));
+    }
+
+    private Collectible readCollectible(final DataInputStream in) throws IOException {
+        final Node at = this.readNode(in);
+        final int points = in.readInt();
+        final int expiresInTurn = in.readInt();
+        if (expiresInTurn < 0) {
+            return new Collectible(at, points);
+        }
+        return new Collectible(at, points, expiresInTurn);
+    }
+
+    private Node readNode(final DataInputStream in) throws IOException {
+        final int x = in.readShort();
+        final int y = in.readShort();
+        final Node n = this.getNodeAt(x, y);
+        // worms may end up outside of the playground when crashing
+        return n == null ? new Node(x, y) : n;
+    }
+
+    private Player readPlayer(final DataInputStream in) throws IOException {
+        return this.players.get(in.readUnsignedShort());
+    }
+
+    /**
+     * Read a single turn from the input, updating the positions of the worms.
+     *
+     * @param in
+     *            Positioned at the beginning of the turn.
+     * @param positions
+     *            Positions of the worms, to be updated.
+     * @param listener
+     *            Where to report the events of the turn, or null if only the positions are of interest.
+     */
+    private void readTurn(final DataInputStream in, final Map<Player, Deque<Node>> positions,
+            final GameProgressListener listener) throws IOException {
+        final Action[] actions = Action.values();
+        if (listener != null) {
+            listener.nextTurn();
+        }
+        while (true) {
+            final byte event = in.readByte();
+            switch (event) {
+                case END_OF_TURN:
+                    return;
+                case COLLECTIBLE_ADDED: {
+                    final Collectible c = this.readCollectible(in);
+                    if (listener != null) {
+                        listener.collectibleAdded(c);
+                    }
+                    break;
+                }
+                case COLLECTIBLE_COLLECTED: {
+                    final Player p = this.readPlayer(in);
+                    final int points = in.readInt();
+                    final Collectible c = this.readCollectible(in);
+                    if (listener != null) {
+                        listener.collectibleCollected(c, p, points);
+                    }
+                    break;
+                }
+                case COLLECTIBLE_REMOVED: {
+                    final Collectible c = this.readCollectible(in);
+                    if (listener != null) {
+                        listener.collectibleRemoved(c);
+                    }
+                    break;
+                }
+                case PLAYER_CRASHED: {
+                    final Player p = this.readPlayer(in);
+                    positions.remove(p);
+                    if (listener != null) {
+                        listener.playerCrashed(p);
+                    }
+                    break;
+                }
+                case PLAYER_DEACTIVATED: {
+                    final Player p = this.readPlayer(in);
+                    positions.remove(p);
+                    if (listener != null) {
+                        listener.playerDeactivated(p);
+                    }
+                    break;
+                }
+                case PLAYER_MOVED: {
+                    final Player p = this.readPlayer(in);
+                    final Action m = actions[in.readUnsignedByte()];
+                    final int length = in.readInt();
+                    final Deque<Node> position = new ArrayDeque<>(length);
+                    for (int i = 0; i < length; i++) {
+                        position.addLast(this.readNode(in));
+                    }
+                    positions.put(p, position);
+                    if (listener != null) {
+                        listener.playerPerformedAction(p, m, position.toArray(new Node[position.size()]));
+                    }
+                    break;
+                }
+                case PLAYER_MOVED_DELTA: {
+                    final Player p = this.readPlayer(in);
+                    final Action m = actions[in.readUnsignedByte()];
+                    final Deque<Node> position = this.retrievePosition(positions, p);
+                    final int added = in.readUnsignedShort();
+                    final Node[] head = new Node[added];
+                    for (int i = 0; i < added; i++) {
+                        head[i] = this.readNode(in);
+                    }
+                    for (int i = added - 1; i >= 0; i--) {
+                        position.addFirst(head[i]);
+                    }
+                    final int removed = in.readUnsignedShort();
+                    for (int i = 0; i < removed; i++) {
+                        position.removeLast();
+                    }
+                    if (listener != null) {
+                        listener.playerPerformedAction(p, m, position.toArray(new Node[position.size()]));
+                    }
+                    break;
+                }
+                case PLAYER_REVERSED: {
+                    final Player p = this.readPlayer(in);
+                    final Action m = actions[in.readUnsignedByte()];
+                    final Deque<Node> position = this.retrievePosition(positions, p);
+                    final Deque<Node> reversed = new ArrayDeque<>(position.size());
+                    final Iterator<Node> it = position.descendingIterator();
+                    while (it.hasNext()) {
+                        reversed.addLast(it.next());
+                    }
+                    positions.put(p, reversed);
+                    if (listener != null) {
+                        listener.playerPerformedAction(p, m, reversed.toArray(new Node[reversed.size()]));
+                    }
+                    break;
+                }
+                case PLAYER_SURVIVED: {
+                    final Player p = this.readPlayer(in);
+                    final int points = in.readInt();
+                    if (listener != null) {
+                        listener.playerSurvived(p, points);
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("Unknown event in replay: " + event);
+            }
+        }
+    }
+
+    /**
+     * Report every turn of the game, in order.
+     *
+     * @param listener
+     *            Where to report to.
+     * @throws IOException
+     *             When the replay can't be read.
+     */
+    public void replay(final GameProgressListener listener) throws IOException {
+        if (this.turnCount == 0) {
+            return;
+        }
+        final Map<Player, Deque<Node>> positions = new LinkedHashMap<>();
+        final DataInputStream in = this.openAt(this.seek(0));
+        for (int turn = 0; turn < this.turnCount; turn++) {
+            this.readTurn(in, positions, listener);
+        }
+    }
+
+    /**
+     * Report a single turn of the game, as if it were being played.
+     *
+     * @param turn
+     *            Number of the turn, starting with 0.
+     * @param listener
+     *            Where to report to.
+     * @return Positions of the worms at the end of the turn.
+     * @throws IOException
+     *             When the replay can't be read.
+     */
+    public Map<Player, Deque<Node>> replay(final int turn, final GameProgressListener listener) throws IOException {
+        final int keyframe = turn - turn % this.keyframeInterval;
+        final Map<Player, Deque<Node>> positions = new LinkedHashMap<>();
+        final DataInputStream in = this.openAt(this.seek(keyframe));
+        for (int i = keyframe; i < turn; i++) {
+            this.readTurn(in, positions, null);
+        }
+        this.readTurn(in, positions, listener);
+        return Collections.unmodifiableMap(positions);
+    }
+
+    private Deque<Node> retrievePosition(final Map<Player, Deque<Node>> positions, final Player p)
+            throws IOException {
+        final Deque<Node> position = positions.get(p);
+        if (position == null) {
+            throw new IOException("Replay is missing the previous position of player " + p.getName());
+        }
+        return position;
+    }
+
+    /**
+     * Find where a turn starts.
+     *
+     * @param turn
+     *            Number of the turn, starting with 0.
+     * @return Offset of the turn in the file.
+     * @throws IOException
+     *             When the replay can't be read.
+     */
+    private long seek(final int turn) throws IOException {
+        if (turn < 0 || turn >= this.turnCount) {
+            throw new IllegalArgumentException("Turn " + turn + " not in replay with " + this.turnCount + " turns.");
+        }
+        this.file.seek(this.indexOffset + 4 + 8L * turn);
+        return this.file.readLong();
+    }
+
+}
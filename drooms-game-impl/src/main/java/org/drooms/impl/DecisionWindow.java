@@ -0,0 +1,73 @@
+package org.drooms.impl;
+
+import java.util.AbstractList;
+
+import org.drooms.api.Action;
+
+/**
+ * The most recent decisions of a player, oldest first. Only a fixed number of decisions is kept, in a ring; older ones
+ * are forgotten as new ones come. How many of the latest decisions in a row were {@link Action#NOTHING} is counted
+ * separately, and is never forgotten.
+ */
+public class DecisionWindow extends AbstractList<Action> {
+
+    private final Action[] decisions;
+    private int next = 0;
+    private int size = 0;
+    private int inactiveTurns = 0;
+
+    /**
+     * Prepare an empty window.
+     *
+     * @param capacity
+     *            How many decisions to keep.
+     */
+    DecisionWindow(final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.decisions = new Action[capacity];
+    }
+
+    /**
+     * Record a new decision, forgetting the oldest one if the window is full.
+     *
+     * @param decision
+     *            The decision.
+     */
+    void addDecision(final Action decision) {
+        this.decisions[this.next] = decision;
+        this.next = (this.next + 1) % this.decisions.length;
+        this.size = Math.min(this.size + 1, this.decisions.length);
+        if (decision == Action.NOTHING) {
+            this.inactiveTurns++;
+        } else {
+            this.inactiveTurns = 0;
+        }
+    }
+
+    @Override
+    public Action get(final int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("No decision " + index + " in a window of " + this.size);
+        }
+        final int oldest = (this.next - this.size + this.decisions.length) % this.decisions.length;
+        return this.decisions[(oldest + index) % this.decisions.length];
+    }
+
+    /**
+     * How long the player has been inactive.
+     *
+     * @return Number of the latest decisions in a row that were {@link Action#NOTHING}. May be larger than the size of
+     *         the window.
+     */
+    public int getInactiveTurns() {
+        return this.inactiveTurns;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+}
@@ -1,13 +1,10 @@
 package org.drooms.impl;
 
-import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -21,8 +18,6 @@ import org.drooms.api.Playground;
 import org.drooms.impl.util.GameProperties;
 import org.drooms.impl.util.GameProperties.CollectibleType;
 
-import com.google.common.collect.Lists;
-
 /**
  * On top of the rules implemented by {@link GameController}, this game
  * implementation also puts forward some of its own. Those are:
@@ -30,8 +25,9 @@ import com.google.common.collect.Lists;
  * <dl>
  * <dt>Collision detection</dt>
  * <dd>When a worm reaches a node at the same time as another worm, both are terminated. When a worm moves into a body
- * of another worm or into a wall, only this worm is terminated. Specific probabilities and values come from the game
- * config.</dd>
+ * of another worm or into a wall, only this worm is terminated. A worm that crashes into a wall is gone before the
+ * other worms move, so a worm moving into its body in the same turn survives. Specific probabilities and values come
+ * from the game config.</dd>
  * <dt>Various types of collectibles</dt>
  * <dd>This class implements three types of collectibles with varying probabilities of appearance, expirations and
  * valuations. There are cheap ones that occur all the time, good ones that occur sometimes and extremely lucrative ones
@@ -49,6 +45,16 @@ import com.google.common.collect.Lists;
  */
 public class DefaultGame extends GameController {
 
+    private static int countSegments(final WormBody body, final Node n) {
+        int count = 0;
+        for (final Node segment : body.asDeque()) {
+            if (segment.equals(n)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Override
     protected Map<Collectible, Player> performCollectibleCollection(final Collection<Player> players) {
         final Map<Collectible, Player> collections = new HashMap<Collectible, Player>();
@@ -67,14 +73,13 @@ public class DefaultGame extends GameController {
             final Playground playground, final Collection<Player> players, final int currentTurnNumber) {
         final Set<Collectible> collectibles = new HashSet<Collectible>();
         for (final CollectibleType ct : gameConfig.getCollectibleTypes()) {
-            final BigDecimal probability = ct.getProbabilityOfAppearance();
-            final BigDecimal chosen = BigDecimal.valueOf(GameController.RANDOM.nextDouble());
-            if (probability.compareTo(chosen) > 0) {
-                final double expirationAdjustmentRate = GameController.RANDOM.nextDouble() + 0.5;
+            final double probability = ct.getProbabilityOfAppearance().doubleValue();
+            if (probability > this.getRandom().nextDouble()) {
+                final double expirationAdjustmentRate = this.getRandom().nextDouble() + 0.5;
                 final double turnsToLast = expirationAdjustmentRate * ct.getExpiration();
                 final int expiresIn = (int) Math.round(currentTurnNumber + turnsToLast);
                 final int points = ct.getPoints();
-                final Node target = this.pickRandomUnusedNode(playground, players);
+                final Node target = this.getRandomFreeNode();
                 final Collectible c = new Collectible(target, points, expiresIn);
                 collectibles.add(c);
             }
@@ -85,34 +90,32 @@ public class DefaultGame extends GameController {
     @Override
     protected Set<Player> performCollisionDetection(final Playground playground, final Collection<Player> currentPlayers) {
         final Set<Player> collisions = new HashSet<Player>();
-        for (final Player p1 : currentPlayers) {
-            final Deque<Node> position = this.getPlayerPosition(p1);
-            final Node firstPosition = position.getFirst();
-            if (!playground.isAvailable(firstPosition.getX(), firstPosition.getY())) {
-                collisions.add(p1);
+        final List<WormBody> wrecks = new ArrayList<WormBody>();
+        for (final Player p : currentPlayers) {
+            final Node headPosition = this.getPlayerPosition(p).getFirst();
+            if (!playground.isAvailable(headPosition.getX(), headPosition.getY())) {
+                // crash into a wall
+                collisions.add(p);
+                wrecks.add(this.getPlayerBody(p));
+            }
+        }
+        for (final Player p : currentPlayers) {
+            if (collisions.contains(p)) {
                 continue;
-            } else {
-                // make sure the worm didn't crash into itself
-                final Set<Node> nodes = new HashSet<Node>(position);
-                if (nodes.size() < position.size()) {
-                    // a worm occupies one node twice = a crash into itself
-                    collisions.add(p1);
-                }
             }
-            for (final Player p2 : currentPlayers) {
-                if (p1 == p2) {
-                    // the same worm
-                    continue;
-                }
-                final Node secondPosition = this.getPlayerPosition(p2).getFirst();
-                if (firstPosition.equals(secondPosition)) {
-                    // head-on-head collision
-                    collisions.add(p1);
-                    collisions.add(p2);
-                } else if (position.contains(secondPosition)) {
-                    // head-on-body collision
-                    collisions.add(p2);
-                }
+            final Node headPosition = this.getPlayerPosition(p).getFirst();
+            /*
+             * the head shares the node with something else; either another
+             * worm's head, in which case both worms crash, another worm's
+             * body, or the worm's own body. worms that crashed into a wall in
+             * this turn take nobody down with them.
+             */
+            int occupancy = this.getOccupancy(headPosition);
+            for (final WormBody wreck : wrecks) {
+                occupancy -= DefaultGame.countSegments(wreck, headPosition);
+            }
+            if (occupancy > 1) {
+                collisions.add(p);
             }
         }
         return Collections.unmodifiableSet(collisions);
@@ -124,14 +127,7 @@ public class DefaultGame extends GameController {
         final Set<Player> inactiveWorms = new HashSet<Player>();
         if (currentTurnNumber > allowedInactiveTurns) {
             for (final Player p : currentPlayers) {
-                final List<Action> allMoves = this.getDecisionRecord(p);
-                final int size = allMoves.size();
-                final List<Action> relevantMoves = allMoves.subList(Math.max(0, size - allowedInactiveTurns - 1), size);
-                if (!relevantMoves.contains(Action.NOTHING)) {
-                    continue;
-                }
-                final Set<Action> uniqueMoves = new HashSet<Action>(relevantMoves);
-                if (uniqueMoves.size() == 1) {
+                if (this.getDecisionWindow(p).getInactiveTurns() > allowedInactiveTurns) {
                     inactiveWorms.add(p);
                 }
             }
@@ -140,15 +136,16 @@ public class DefaultGame extends GameController {
     }
 
     @Override
-    protected Deque<Node> performPlayerAction(final Player player, final Playground playground, final Action decision) {
+    protected void performPlayerAction(final Player player, final Playground playground, final Action decision) {
         // move the head of the worm
-        final Deque<Node> currentPos = this.getPlayerPosition(player);
-        final Node currentHeadPos = currentPos.getFirst();
+        final WormBody body = this.getPlayerBody(player);
+        final Node currentHeadPos = body.getHead();
         Node newHeadPos;
         switch (decision) {
             case REVERSE:
                 // reverse the snake and do nothing else
-                return new LinkedList<Node>(Lists.reverse(new ArrayList<Node>(currentPos)));
+                body.reverse();
+                return;
             case MOVE_UP:
                 newHeadPos = playground.getNodeAt(currentHeadPos.getX(), currentHeadPos.getY() + 1);
                 break;
@@ -170,7 +167,7 @@ public class DefaultGame extends GameController {
                 // else this command makes no sense and we STAY
             case NOTHING:
                 // do not modify the worm in any way
-                return currentPos;
+                return;
             default:
                 throw new IllegalStateException("Unknown action!");
         }
@@ -179,15 +176,13 @@ public class DefaultGame extends GameController {
             throw new IllegalStateException("Moving to a non-existent node!");
         }
         // move the head of the snake
-        final Deque<Node> newPosition = new LinkedList<Node>(currentPos);
         if (newHeadPos != currentHeadPos) {
-            newPosition.push(newHeadPos);
+            body.push(newHeadPos);
         }
         // make sure the snake is as long as it should be
-        while (newPosition.size() > this.getPlayerLength(player)) {
-            newPosition.removeLast();
+        while (body.size() > this.getPlayerLength(player)) {
+            body.removeTail();
         }
-        return newPosition;
     }
 
     @Override
@@ -204,32 +199,4 @@ public class DefaultGame extends GameController {
         return Collections.unmodifiableMap(result);
     }
 
-    private Node pickRandomUnusedNode(final Playground p, final Collection<Player> players) {
-        final List<Node> nodes = new LinkedList<Node>();
-        // locate available nodes
-        for (int x = 0; x < p.getWidth(); x++) {
-            for (int y = 0; y < p.getHeight(); y++) {
-                if (p.isAvailable(x, y)) {
-                    nodes.add(p.getNodeAt(x, y));
-                }
-            }
-        }
-        // exclude nodes where worms are
-        for (final Player player : players) {
-            nodes.removeAll(this.getPlayerPosition(player));
-        }
-        // exclude nodes where collectibles are
-        final List<Node> nodesCopy = new LinkedList<Node>(nodes);
-        for (final Node n : nodesCopy) {
-            if (this.getCollectible(n) != null) {
-                nodes.remove(n);
-            }
-        }
-        if (nodes.size() == 0) {
-            return null;
-        } else {
-            return nodes.get(GameController.RANDOM.nextInt(nodes.size()));
-        }
-    }
-
 }
@@ -1,11 +1,14 @@
 package org.drooms.impl;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
 import java.util.Collection;
 import java.util.Date;
@@ -37,6 +40,8 @@ public class DroomsGame {
     private final File f;
     private final Class<? extends Game> cls;
     private final Set<GameProgressListener> listeners = new HashSet<GameProgressListener>();
+    private boolean headless = false;
+    private GameTimings timings;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DroomsGame.class);
 
@@ -63,10 +68,41 @@ public class DroomsGame {
         }
     }
 
+    /**
+     * Retrieve how long the last game played took in its various phases.
+     * 
+     * @return Null when no game has been played yet, or when the game doesn't extend {@link GameController}.
+     */
+    public GameTimings getTimings() {
+        return this.timings;
+    }
+
+    /**
+     * Whether the games are played without any reports.
+     * 
+     * @return True if headless.
+     */
+    public boolean isHeadless() {
+        return this.headless;
+    }
+
+    /**
+     * Play the game. Unless {@link #isHeadless()}, the reports will be stored in a new folder within the report
+     * folder, named after the game and the current time.
+     * 
+     * @param name
+     *            Name of the game.
+     * @return Points gained by each player.
+     */
     public Map<Player, Integer> play(final String name) {
-        final File f = new File(this.f, name + "-" + DroomsGame.getTimestamp());
-        if (!f.exists()) {
-            f.mkdirs();
+        final File f;
+        if (this.headless) {
+            f = null;
+        } else {
+            f = new File(this.f, name + "-" + DroomsGame.getTimestamp());
+            if (!f.exists()) {
+                f.mkdirs();
+            }
         }
         try (InputStream contextFis = new FileInputStream(this.c);
                 InputStream playgroundFis = new FileInputStream(this.p)) {
@@ -76,9 +112,18 @@ public class DroomsGame {
                 g.addListener(listener);
             }
             final Map<Player, Integer> result = g.play(g.buildPlayground(name, playgroundFis), this.players, f);
+            this.timings = (g instanceof GameController) ? ((GameController) g).getTimings() : null;
             // report
-            try (Writer w = new FileWriter(new File(f, "report.xml"))) {
-                g.getReport().write(w);
+            final GameProgressListener report = g.getReport();
+            if (this.headless) {
+                return result;
+            } else if (report instanceof XmlProgressListener && ((XmlProgressListener) report).isStreaming()) {
+                // already written into the report folder while the game was being played
+                return result;
+            }
+            try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(f, "report.xml")),
+                    StandardCharsets.UTF_8))) {
+                report.write(w);
             } catch (final IOException e) {
                 DroomsGame.LOGGER.info("Failed writing report for game: {}.", name);
             }
@@ -91,4 +136,15 @@ public class DroomsGame {
     public boolean removeListener(final GameProgressListener listener) {
         return this.listeners.remove(listener);
     }
+
+    /**
+     * Choose whether the games should be played without any reports. Headless games create no folders and write no
+     * files, only the points are kept. To know more about the game, add a listener such as {@link GameSummary}.
+     * 
+     * @param headless
+     *            True if headless.
+     */
+    public void setHeadless(final boolean headless) {
+        this.headless = headless;
+    }
 }
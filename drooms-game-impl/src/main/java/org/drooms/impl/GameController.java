@@ -1,9 +1,13 @@
 package org.drooms.impl;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.SecureRandom;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -12,9 +16,8 @@ import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
-import java.util.SortedMap;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.commons.io.IOUtils;
@@ -25,6 +28,7 @@ import org.drooms.api.GameProgressListener;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
+import org.drooms.impl.GameTimings.Phase;
 import org.drooms.impl.logic.CommandDistributor;
 import org.drooms.impl.logic.commands.AddCollectibleCommand;
 import org.drooms.impl.logic.commands.CollectCollectibleCommand;
@@ -34,6 +38,8 @@ import org.drooms.impl.logic.commands.PlayerActionCommand;
 import org.drooms.impl.logic.commands.RemoveCollectibleCommand;
 import org.drooms.impl.logic.commands.RewardSurvivalCommand;
 import org.drooms.impl.util.GameProperties;
+import org.drooms.impl.util.GameProperties.PlaygroundType;
+import org.drooms.impl.util.SplitMixRandom;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -74,31 +80,49 @@ public abstract class GameController implements Game {
 
     private GameProgressListener reporter;
 
-    protected static final SecureRandom RANDOM = new SecureRandom();
+    private Random random;
 
     private final Map<Player, Integer> playerPoints = new HashMap<Player, Integer>();
 
     private final Map<Player, Integer> lengths = new HashMap<Player, Integer>();
 
-    private final Map<Player, Deque<Node>> positions = new HashMap<Player, Deque<Node>>();
+    private final Map<Player, WormBody> bodies = new HashMap<Player, WormBody>();
+
+    private OccupancyGrid occupancy;
 
     private final Map<Node, Collectible> collectiblesByNode = new HashMap<Node, Collectible>();
 
-    private final Map<Player, SortedMap<Integer, Action>> decisionRecord = new HashMap<Player, SortedMap<Integer, Action>>();
+    private final Map<Player, DecisionWindow> decisionWindows = new HashMap<Player, DecisionWindow>();
+
+    private Writer decisionLog;
 
     private GameProperties gameConfig;
 
     private final Set<GameProgressListener> listeners = new HashSet<GameProgressListener>();
 
+    private final GameTimings timings = new GameTimings();
+
     private void addCollectible(final Collectible c) {
         this.collectiblesByNode.put(c.getAt(), c);
+        this.occupancy.setCollectible(c.getAt(), true);
     }
 
     private void addDecision(final Player p, final Action m, final int turnNumber) {
-        if (!this.decisionRecord.containsKey(p)) {
-            this.decisionRecord.put(p, new TreeMap<Integer, Action>());
+        DecisionWindow window = this.decisionWindows.get(p);
+        if (window == null) {
+            // just enough decisions to tell whether the player is inactive
+            window = new DecisionWindow(this.gameConfig.getMaximumInactiveTurns() + 1);
+            this.decisionWindows.put(p, window);
+        }
+        window.addDecision(m);
+        if (this.decisionLog != null) {
+            try {
+                // the name goes last, so that it needs no escaping
+                this.decisionLog.write(turnNumber + "," + m.name() + "," + p.getName() + "\n");
+            } catch (final IOException ex) {
+                throw new IllegalStateException("Failed writing the decision log.", ex);
+            }
         }
-        this.decisionRecord.get(p).put(turnNumber, m);
     }
 
     @Override
@@ -106,16 +130,72 @@ public abstract class GameController implements Game {
         return this.listeners.add(listener);
     }
 
+    /**
+     * Clean up after the game, whether it finished or failed.
+     * 
+     * @param playerControl
+     *            Sessions of the players, if they were created.
+     * @param replay
+     *            The replay, if it is being recorded.
+     */
+    private void finish(final CommandDistributor playerControl, final BinaryProgressListener replay) {
+        if (playerControl != null) {
+            playerControl.terminate(); // clean up all the sessions
+        }
+        if (this.reporter instanceof XmlProgressListener) {
+            try {
+                ((XmlProgressListener) this.reporter).setTimings(this.timings);
+                ((XmlProgressListener) this.reporter).close();
+            } catch (final IOException ex) {
+                GameController.LOGGER.warn("Failed completing the report.", ex);
+            }
+        }
+        if (replay != null) {
+            try {
+                replay.close();
+            } catch (final IOException ex) {
+                GameController.LOGGER.warn("Failed completing the replay.", ex);
+            }
+        }
+        if (this.decisionLog != null) {
+            try {
+                this.decisionLog.close();
+            } catch (final IOException ex) {
+                GameController.LOGGER.warn("Failed completing the decision log.", ex);
+            }
+        }
+    }
+
     protected Collectible getCollectible(final Node n) {
         return this.collectiblesByNode.get(n);
     }
 
-    protected List<Action> getDecisionRecord(final Player p) {
-        final LinkedList<Action> moves = new LinkedList<Action>();
-        for (final SortedMap.Entry<Integer, Action> entry : this.decisionRecord.get(p).entrySet()) {
-            moves.add(entry.getKey(), entry.getValue());
+    /**
+     * Retrieve the most recent decisions of a player. The full history of decisions is not kept; see
+     * {@link GameProperties#isDecisionLogRecorded()} for how to have it written into a file instead.
+     * 
+     * @param p
+     *            The player.
+     * @return The last {@link GameProperties#getMaximumInactiveTurns()} + 1 decisions, oldest first.
+     */
+    protected DecisionWindow getDecisionWindow(final Player p) {
+        final DecisionWindow window = this.decisionWindows.get(p);
+        if (window == null) {
+            throw new IllegalStateException("Player hasn't made any decisions yet: " + p);
         }
-        return moves;
+        return window;
+    }
+
+    /**
+     * Count the worm segments on a node, as of the last change to any worm's position.
+     * 
+     * @param n
+     *            The node in question.
+     * @return How many segments of worms still in the game are on the node. A worm that occupies the node more than
+     *         once is counted more than once.
+     */
+    protected int getOccupancy(final Node n) {
+        return this.occupancy.getOccupancy(n);
     }
 
     protected int getPlayerLength(final Player p) {
@@ -125,11 +205,46 @@ public abstract class GameController implements Game {
         return this.lengths.get(p);
     }
 
-    protected Deque<Node> getPlayerPosition(final Player p) {
-        if (!this.positions.containsKey(p)) {
+    protected WormBody getPlayerBody(final Player p) {
+        final WormBody body = this.bodies.get(p);
+        if (body == null) {
             throw new IllegalStateException("Player doesn't have any position assigned: " + p);
         }
-        return this.positions.get(p);
+        return body;
+    }
+
+    /**
+     * Retrieve the nodes occupied by the worm.
+     * 
+     * @param p
+     *            Player whose worm it is.
+     * @return Read-only view of {@link #getPlayerBody(Player)}, head first.
+     */
+    protected Deque<Node> getPlayerPosition(final Player p) {
+        return this.getPlayerBody(p).asDeque();
+    }
+
+    /**
+     * Retrieve the source of randomness for this game. It is seeded from {@link GameProperties#getSeed()}, so that
+     * the same seed gives the same game. It is not thread-safe.
+     * 
+     * @return The source of randomness, not shared with any other game.
+     */
+    protected Random getRandom() {
+        if (this.random == null) {
+            throw new IllegalStateException("Game context had not been set!");
+        }
+        return this.random;
+    }
+
+    /**
+     * Pick a random node where a new collectible could be put.
+     * 
+     * @return A node that is neither a wall nor occupied by a worm still in the game or by a collectible; null when
+     *         there is none.
+     */
+    protected Node getRandomFreeNode() {
+        return this.occupancy.pickFreeNode(this.getRandom());
     }
 
     @Override
@@ -137,6 +252,16 @@ public abstract class GameController implements Game {
         return this.reporter;
     }
 
+    /**
+     * Retrieve how long the phases of the turns and the decisions of the players took. Only complete once the game is
+     * over.
+     * 
+     * @return Timings of this game.
+     */
+    public GameTimings getTimings() {
+        return this.timings;
+    }
+
     /**
      * Decide which {@link Collectible}s should be considered collected by which
      * worms.
@@ -191,7 +316,8 @@ public abstract class GameController implements Game {
             final int currentTurnNumber, final int allowedInactiveTurns);
 
     /**
-     * Decide where the worm should be after it has performed a particular action.
+     * Decide where the worm should be after it has performed a particular action, and move its
+     * {@link #getPlayerBody(Player)} there.
      * 
      * @param player
      *            The worm.
@@ -199,9 +325,9 @@ public abstract class GameController implements Game {
      *            Playground on which the move is happening.
      * @param decision
      *            The action to perform.
-     * @return New positions for the worm, head-first.
      */
-    protected abstract Deque<Node> performPlayerAction(final Player player, final Playground playground, final Action decision);
+    protected abstract void performPlayerAction(final Player player, final Playground playground,
+            final Action decision);
 
     /**
      * Decide which players should be rewarded for survival in this round.
@@ -231,13 +357,15 @@ public abstract class GameController implements Game {
             throw new IllegalStateException("This game had already been played.");
         }
         this.played.set(true);
+        GameController.LOGGER.info("Game seed is {}.", this.gameConfig.getSeed());
         // prepare the playground
         final int wormLength = this.gameConfig.getStartingWormLength();
         final int allowedInactiveTurns = this.gameConfig.getMaximumInactiveTurns();
         final int allowedTurns = this.gameConfig.getMaximumTurns();
         final int wormSurvivalBonus = this.gameConfig.getDeadWormBonus();
-        final int wormTimeout = this.gameConfig.getStrategyTimeoutInSeconds();
+        final int wormTimeout = this.gameConfig.getStrategyTimeoutInMilliseconds();
         // prepare players and their starting positions
+        this.preparePlayground(playground);
         final List<Node> startingPositions = playground.getStartingPositions();
         final int playersSupported = startingPositions.size();
         final int playersAvailable = players.size();
@@ -252,91 +380,146 @@ public abstract class GameController implements Game {
             this.setPlayerPosition(player, pos);
             this.setPlayerLength(player, wormLength);
             playerPoints.put(player, 0);
-            GameController.LOGGER.info("Player {} assigned position {}.", player.getName(), i);
+            GameController.LOGGER.debug("Player {} assigned position {}.", player.getName(), i);
             i++;
         }
         // prepare situation
-        this.reporter = new XmlProgressListener(playground, players, this.gameConfig);
-        final CommandDistributor playerControl = new CommandDistributor(playground, players, this.reporter,
-                this.gameConfig, reportFolder, wormTimeout);
-        for (final GameProgressListener listener : this.listeners) {
-            playerControl.addListener(listener);
-        }
-        Map<Player, Action> decisions = new HashMap<Player, Action>();
-        for (final Player p : playerControl.getPlayers()) {
-            // initialize players
-            decisions.put(p, Action.NOTHING);
-        }
-        // start the game
-        int turnNumber = 0;
-        do {
-            GameController.LOGGER.info("--- Starting turn no. {}.", turnNumber);
-            final int preRemoval = playerControl.getPlayers().size();
-            // remove inactive worms
-            for (final Player player : this.performInactivityDetection(playerControl.getPlayers(), turnNumber,
-                    allowedInactiveTurns)) {
-                GameController.LOGGER.info("Player {} will be removed for inactivity.", player.getName());
-                playerControl.distributeCommand(new DeactivatePlayerCommand(player));
-            }
-            // move the worms
-            for (final Player p : playerControl.getPlayers()) {
-                final Action m = decisions.get(p);
-                this.addDecision(p, m, turnNumber);
-                final Deque<Node> newPosition = this.performPlayerAction(p, playground, m);
-                this.setPlayerPosition(p, newPosition);
-                playerControl.distributeCommand(new PlayerActionCommand(p, m, newPosition));
+        final boolean headless = reportFolder == null;
+        if (headless) {
+            GameController.LOGGER.info("Headless game, no reports will be kept.");
+            this.reporter = new NoOpProgressListener();
+        } else if (this.gameConfig.isReportStreaming()) {
+            try {
+                this.reporter = new XmlProgressListener(playground, players, this.gameConfig, new File(reportFolder,
+                        "report.xml"));
+            } catch (final IOException ex) {
+                throw new IllegalStateException("Cannot create the report.", ex);
             }
-            // resolve worms colliding
-            for (final Player player : this.performCollisionDetection(playground, playerControl.getPlayers())) {
-                playerControl.distributeCommand(new CrashPlayerCommand(player));
-            }
-            final int postRemoval = playerControl.getPlayers().size();
-            for (final Map.Entry<Player, Integer> entry : this.performSurvivalRewarding(players,
-                    playerControl.getPlayers(), preRemoval - postRemoval, wormSurvivalBonus).entrySet()) {
-                final Player p = entry.getKey();
-                final int amount = entry.getValue();
-                this.reward(p, amount);
-                playerControl.distributeCommand(new RewardSurvivalCommand(p, amount));
-            }
-            // expire uncollected collectibles
-            final Set<Collectible> removeCollectibles = new HashSet<Collectible>();
-            for (final Collectible c : this.collectiblesByNode.values()) {
-                if (c.expires() && turnNumber >= c.expiresInTurn()) {
-                    removeCollectibles.add(c);
+        } else {
+            this.reporter = new XmlProgressListener(playground, players, this.gameConfig);
+        }
+        CommandDistributor playerControl = null;
+        BinaryProgressListener replay = null;
+        try {
+            playerControl = new CommandDistributor(playground, players, this.reporter,
+                    this.gameConfig, reportFolder, wormTimeout);
+            // players with malformed strategies were disqualified and must not occupy the playground
+            for (final Player player : players) {
+                if (!playerControl.getPlayers().contains(player)) {
+                    this.getPlayerBody(player).removeFromPlayground();
                 }
             }
-            for (final Collectible c : removeCollectibles) {
-                playerControl.distributeCommand(new RemoveCollectibleCommand(c));
-                this.removeCollectible(c);
+            for (final GameProgressListener listener : this.listeners) {
+                playerControl.addListener(listener);
             }
-            // add points for collected collectibles
-            for (final Map.Entry<Collectible, Player> entry : this.performCollectibleCollection(
-                    playerControl.getPlayers()).entrySet()) {
-                final Collectible c = entry.getKey();
-                final Player p = entry.getValue();
-                this.reward(p, c.getPoints());
-                playerControl.distributeCommand(new CollectCollectibleCommand(c, p));
-                this.removeCollectible(c);
-                this.setPlayerLength(p, this.getPlayerLength(p) + 1);
+            playerControl.setTimings(this.timings);
+            if (this.gameConfig.isDecisionLogRecorded() && !headless) {
+                try {
+                    this.decisionLog = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(
+                            reportFolder, "decisions.csv")), StandardCharsets.UTF_8));
+                    this.decisionLog.write("turn,action,player\n");
+                } catch (final IOException ex) {
+                    throw new IllegalStateException("Cannot create the decision log.", ex);
+                }
             }
-            // distribute new collectibles
-            for (final Collectible c : this.performCollectibleDistribution(this.gameConfig, playground,
-                    playerControl.getPlayers(), turnNumber)) {
-                this.addCollectible(c);
-                playerControl.distributeCommand(new AddCollectibleCommand(c));
+            if (this.gameConfig.isReplayRecorded() && !headless) {
+                try {
+                    replay = new BinaryProgressListener(playground, players, this.gameConfig, new File(reportFolder,
+                            "report.replay"));
+                } catch (final IOException ex) {
+                    throw new IllegalStateException("Cannot create the replay.", ex);
+                }
+                playerControl.addListener(replay);
             }
-            // make the move decision
-            decisions = playerControl.execute();
-            turnNumber++;
-            if (turnNumber == allowedTurns) {
-                GameController.LOGGER.info("Reached a pre-defined limit of {} turns. Terminating game.", allowedTurns);
-                break;
-            } else if (playerControl.getPlayers().size() < 2) {
-                GameController.LOGGER.info("There are no more players. Terminating game.");
-                break;
+            Map<Player, Action> decisions = new HashMap<Player, Action>();
+            for (final Player p : playerControl.getPlayers()) {
+                // initialize players
+                decisions.put(p, Action.NOTHING);
             }
-        } while (true);
-        playerControl.terminate(); // clean up all the sessions
+            // start the game
+            int turnNumber = 0;
+            do {
+                GameController.LOGGER.debug("--- Starting turn no. {}.", turnNumber);
+                long lap = System.nanoTime();
+                final int preRemoval = playerControl.getPlayers().size();
+                // remove inactive worms
+                for (final Player player : this.performInactivityDetection(playerControl.getPlayers(), turnNumber,
+                        allowedInactiveTurns)) {
+                    GameController.LOGGER.info("Player {} will be removed for inactivity.", player.getName());
+                    playerControl.distributeCommand(new DeactivatePlayerCommand(player));
+                    this.getPlayerBody(player).removeFromPlayground();
+                }
+                lap = this.timings.lap(Phase.INACTIVITY, lap);
+                // move the worms
+                for (final Player p : playerControl.getPlayers()) {
+                    final Action m = decisions.get(p);
+                    this.addDecision(p, m, turnNumber);
+                    this.performPlayerAction(p, playground, m);
+                    playerControl.distributeCommand(new PlayerActionCommand(p, m, this.getPlayerBody(p)));
+                }
+                lap = this.timings.lap(Phase.MOVEMENT, lap);
+                // resolve worms colliding
+                for (final Player player : this.performCollisionDetection(playground, playerControl.getPlayers())) {
+                    playerControl.distributeCommand(new CrashPlayerCommand(player));
+                    this.getPlayerBody(player).removeFromPlayground();
+                }
+                lap = this.timings.lap(Phase.COLLISION, lap);
+                final int postRemoval = playerControl.getPlayers().size();
+                for (final Map.Entry<Player, Integer> entry : this.performSurvivalRewarding(players,
+                        playerControl.getPlayers(), preRemoval - postRemoval, wormSurvivalBonus).entrySet()) {
+                    final Player p = entry.getKey();
+                    final int amount = entry.getValue();
+                    this.reward(p, amount);
+                    playerControl.distributeCommand(new RewardSurvivalCommand(p, amount));
+                }
+                lap = this.timings.lap(Phase.SURVIVAL, lap);
+                // expire uncollected collectibles
+                final Set<Collectible> removeCollectibles = new HashSet<Collectible>();
+                for (final Collectible c : this.collectiblesByNode.values()) {
+                    if (c.expires() && turnNumber >= c.expiresInTurn()) {
+                        removeCollectibles.add(c);
+                    }
+                }
+                for (final Collectible c : removeCollectibles) {
+                    playerControl.distributeCommand(new RemoveCollectibleCommand(c));
+                    this.removeCollectible(c);
+                }
+                lap = this.timings.lap(Phase.EXPIRY, lap);
+                // add points for collected collectibles
+                for (final Map.Entry<Collectible, Player> entry : this.performCollectibleCollection(
+                        playerControl.getPlayers()).entrySet()) {
+                    final Collectible c = entry.getKey();
+                    final Player p = entry.getValue();
+                    this.reward(p, c.getPoints());
+                    playerControl.distributeCommand(new CollectCollectibleCommand(c, p));
+                    this.removeCollectible(c);
+                    this.setPlayerLength(p, this.getPlayerLength(p) + 1);
+                }
+                lap = this.timings.lap(Phase.COLLECTION, lap);
+                // distribute new collectibles
+                for (final Collectible c : this.performCollectibleDistribution(this.gameConfig, playground,
+                        playerControl.getPlayers(), turnNumber)) {
+                    this.addCollectible(c);
+                    playerControl.distributeCommand(new AddCollectibleCommand(c));
+                }
+                lap = this.timings.lap(Phase.DISTRIBUTION, lap);
+                // make the move decision
+                decisions = playerControl.execute();
+                this.timings.lap(Phase.DECISIONS, lap);
+                turnNumber++;
+                if (turnNumber == allowedTurns) {
+                    GameController.LOGGER.info("Reached a pre-defined limit of {} turns. Terminating game.",
+                            allowedTurns);
+                    break;
+                } else if (playerControl.getPlayers().size() < 2) {
+                    GameController.LOGGER.info("There are no more players. Terminating game.");
+                    break;
+                }
+            } while (true);
+        } finally {
+            // also when the game failed, so that the sessions and the report files aren't left open
+            this.finish(playerControl, replay);
+        }
         // output player status
         GameController.LOGGER.info("--- Game over.");
         for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
@@ -345,8 +528,13 @@ public abstract class GameController implements Game {
         return Collections.unmodifiableMap(this.playerPoints);
     }
 
+    void preparePlayground(final Playground playground) {
+        this.occupancy = new OccupancyGrid(playground);
+    }
+
     private void removeCollectible(final Collectible c) {
         this.collectiblesByNode.remove(c.getAt());
+        this.occupancy.setCollectible(c.getAt(), false);
     }
 
     @Override
@@ -365,17 +553,23 @@ public abstract class GameController implements Game {
     public void setContext(final InputStream context) {
         try {
             this.gameConfig = GameProperties.read(context);
+            this.random = new SplitMixRandom(this.gameConfig.getSeed());
         } catch (final IOException ex) {
             throw new IllegalArgumentException("Failed reading game properties.");
         }
     }
 
-    private void setPlayerLength(final Player p, final int length) {
+    void setPlayerLength(final Player p, final int length) {
         this.lengths.put(p, length);
     }
 
-    private void setPlayerPosition(final Player p, final Deque<Node> position) {
-        this.positions.put(p, position);
+    void setPlayerPosition(final Player p, final Deque<Node> position) {
+        WormBody body = this.bodies.get(p);
+        if (body == null) {
+            body = new WormBody(this.occupancy);
+            this.bodies.put(p, body);
+        }
+        body.setNodes(position);
     }
 
     /**
@@ -386,6 +580,12 @@ public abstract class GameController implements Game {
      * moved into.) Any other sign, other than a line break, will result in an
      * exception.
      * 
+     * <p>
+     * When the game context has already been set, its
+     * {@link GameProperties#getPlaygroundType()} decides which implementation
+     * of the playground is used.
+     * </p>
+     * 
      * @param name
      *            Name for the new playground.
      * @param source
@@ -397,6 +597,9 @@ public abstract class GameController implements Game {
         try {
             final List<String> lines = IOUtils.readLines(source);
             Collections.reverse(lines); // this way, 0,0 is bottom left
+            if (this.gameConfig != null && this.gameConfig.getPlaygroundType() == PlaygroundType.GRID) {
+                return new GridPlayground(name, lines);
+            }
             return new DefaultPlayground(name, lines);
         } catch (final Exception ex) {
             throw new IllegalStateException("Cannot read playground " + name, ex);
@@ -0,0 +1,187 @@
+package org.drooms.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+/**
+ * Keeps a few statistics about the game and nothing else, so that it's cheap enough to use even when playing many games
+ * in a row. {@link #write(Writer)} outputs them as CSV, one line per player.
+ */
+public class GameSummary implements GameProgressListener {
+
+    /**
+     * How a player's game ended.
+     */
+    public static enum Fate {
+
+        /**
+         * The worm was still on the playground when the game ended.
+         */
+        SURVIVED,
+        /**
+         * The worm crashed.
+         */
+        CRASHED,
+        /**
+         * The worm was removed for inactivity.
+         */
+        DEACTIVATED;
+
+    }
+
+    private static class PlayerSummary {
+
+        private int collectibles = 0;
+        private int points = 0;
+        private Fate fate = Fate.SURVIVED;
+        private int lastTurn = -1;
+
+    }
+
+    private final Map<Player, PlayerSummary> players = new LinkedHashMap<Player, PlayerSummary>();
+    private int turns = 0;
+
+    @Override
+    public void collectibleAdded(final Collectible c) {
+        // not summarized
+    }
+
+    @Override
+    public void collectibleCollected(final Collectible c, final Player p, final int points) {
+        final PlayerSummary summary = this.getSummary(p);
+        summary.collectibles++;
+        summary.points += points;
+    }
+
+    @Override
+    public void collectibleRemoved(final Collectible c) {
+        // not summarized
+    }
+
+    /**
+     * How many collectibles the player collected.
+     *
+     * @param p
+     *            The player.
+     * @return Number of collectibles.
+     */
+    public int getCollectibles(final Player p) {
+        return this.getSummary(p).collectibles;
+    }
+
+    /**
+     * How the player's game ended.
+     *
+     * @param p
+     *            The player.
+     * @return The fate of the player's worm.
+     */
+    public Fate getFate(final Player p) {
+        return this.getSummary(p).fate;
+    }
+
+    /**
+     * Players seen in the game so far.
+     *
+     * @return Unmodifiable collection of players, in the order they were first seen.
+     */
+    public Collection<Player> getPlayers() {
+        return Collections.unmodifiableCollection(this.players.keySet());
+    }
+
+    /**
+     * How many points the player earned.
+     *
+     * @param p
+     *            The player.
+     * @return Points for collectibles and for survival.
+     */
+    public int getPoints(final Player p) {
+        return this.getSummary(p).points;
+    }
+
+    private PlayerSummary getSummary(final Player p) {
+        PlayerSummary summary = this.players.get(p);
+        if (summary == null) {
+            summary = new PlayerSummary();
+            this.players.put(p, summary);
+        }
+        return summary;
+    }
+
+    /**
+     * How many turns were played.
+     *
+     * @return Number of turns.
+     */
+    public int getTurns() {
+        return this.turns;
+    }
+
+    /**
+     * How many turns the player's worm was on the playground.
+     *
+     * @param p
+     *            The player.
+     * @return Number of turns, including the one in which the worm was removed.
+     */
+    public int getTurnsSurvived(final Player p) {
+        final PlayerSummary summary = this.getSummary(p);
+        return summary.fate == Fate.SURVIVED ? this.turns : summary.lastTurn;
+    }
+
+    @Override
+    public void nextTurn() {
+        this.turns++;
+    }
+
+    @Override
+    public void playerCrashed(final Player p) {
+        this.remove(p, Fate.CRASHED);
+    }
+
+    @Override
+    public void playerDeactivated(final Player p) {
+        this.remove(p, Fate.DEACTIVATED);
+    }
+
+    @Override
+    public void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
+        this.getSummary(p);
+    }
+
+    @Override
+    public void playerSurvived(final Player p, final int points) {
+        this.getSummary(p).points += points;
+    }
+
+    private void remove(final Player p, final Fate fate) {
+        final PlayerSummary summary = this.getSummary(p);
+        summary.fate = fate;
+        summary.lastTurn = this.turns;
+    }
+
+    @Override
+    public void write(final Writer w) throws IOException {
+        // the name goes last, so that it needs no escaping
+        w.write("points,collectibles,turns,fate,player\n");
+        for (final Map.Entry<Player, PlayerSummary> entry : this.players.entrySet()) {
+            final Player p = entry.getKey();
+            final PlayerSummary summary = entry.getValue();
+            w.write(summary.points + "," + summary.collectibles + "," + this.getTurnsSurvived(p) + ","
+                    + summary.fate.name() + "," + p.getName() + "\n");
+        }
+        w.flush();
+    }
+
+}
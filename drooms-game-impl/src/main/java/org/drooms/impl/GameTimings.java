@@ -0,0 +1,183 @@
+package org.drooms.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.drooms.api.Player;
+import org.drooms.impl.util.TimingHistogram;
+
+/**
+ * How long the phases of every turn took, and how long every player took to decide. Tells whether a game is slow
+ * because of the engine or because of the strategies. All times are in nanoseconds.
+ *
+ * <p>
+ * Timings of several games can be {@link #add(GameTimings)}ed together. Instances are not thread-safe.
+ * </p>
+ */
+public class GameTimings {
+
+    /**
+     * Phases of a turn, in the order in which {@link GameController} performs them.
+     */
+    public static enum Phase {
+
+        /**
+         * Removing inactive worms.
+         */
+        INACTIVITY,
+        /**
+         * Moving the worms.
+         */
+        MOVEMENT,
+        /**
+         * Detecting worms colliding.
+         */
+        COLLISION,
+        /**
+         * Rewarding worms for survival.
+         */
+        SURVIVAL,
+        /**
+         * Removing collectibles that expired.
+         */
+        EXPIRY,
+        /**
+         * Rewarding worms for collectibles.
+         */
+        COLLECTION,
+        /**
+         * Distributing new collectibles.
+         */
+        DISTRIBUTION,
+        /**
+         * Reporting the turn and having the strategies decide.
+         */
+        DECISIONS;
+
+    }
+
+    private final Map<Phase, TimingHistogram> phases = new EnumMap<Phase, TimingHistogram>(Phase.class);
+    private final Map<Player, TimingHistogram> decisions = new LinkedHashMap<Player, TimingHistogram>();
+
+    public GameTimings() {
+        for (final Phase phase : Phase.values()) {
+            this.phases.put(phase, new TimingHistogram());
+        }
+    }
+
+    /**
+     * Add the timings of another game to these.
+     *
+     * @param other
+     *            Timings of the other game; left unchanged.
+     */
+    public void add(final GameTimings other) {
+        for (final Phase phase : Phase.values()) {
+            this.phases.get(phase).add(other.phases.get(phase));
+        }
+        for (final Map.Entry<Player, TimingHistogram> entry : other.decisions.entrySet()) {
+            this.getDecisionHistogram(entry.getKey()).add(entry.getValue());
+        }
+    }
+
+    private TimingHistogram getDecisionHistogram(final Player p) {
+        TimingHistogram histogram = this.decisions.get(p);
+        if (histogram == null) {
+            histogram = new TimingHistogram();
+            this.decisions.put(p, histogram);
+        }
+        return histogram;
+    }
+
+    /**
+     * How long the player took to decide.
+     *
+     * @param p
+     *            The player.
+     * @return Times of the player's decisions, including those that timed out. Empty if the player never decided.
+     */
+    public TimingHistogram getDecisions(final Player p) {
+        final TimingHistogram histogram = this.decisions.get(p);
+        return histogram == null ? new TimingHistogram() : histogram;
+    }
+
+    /**
+     * How long the engine took, not counting the reporting and the decisions.
+     *
+     * @return Total time of all the phases other than {@link Phase#DECISIONS}.
+     */
+    public long getEngineTime() {
+        long total = 0;
+        for (final Map.Entry<Phase, TimingHistogram> entry : this.phases.entrySet()) {
+            if (entry.getKey() != Phase.DECISIONS) {
+                total += entry.getValue().getTotal();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * How long the phase took in every turn.
+     *
+     * @param phase
+     *            The phase.
+     * @return Times of the phase.
+     */
+    public TimingHistogram getPhase(final Phase phase) {
+        return this.phases.get(phase);
+    }
+
+    /**
+     * Players who made any decisions.
+     *
+     * @return Unmodifiable collection of players, in the order they first decided.
+     */
+    public Collection<Player> getPlayers() {
+        return Collections.unmodifiableCollection(this.decisions.keySet());
+    }
+
+    /**
+     * How long the strategies took to decide.
+     *
+     * @return Total time of all the decisions of all the players. When the strategies decide concurrently, this may
+     *         be more than the time of the {@link Phase#DECISIONS} phase.
+     */
+    public long getStrategyTime() {
+        long total = 0;
+        for (final TimingHistogram histogram : this.decisions.values()) {
+            total += histogram.getTotal();
+        }
+        return total;
+    }
+
+    /**
+     * Record the time of a phase that has just ended.
+     *
+     * @param phase
+     *            The phase.
+     * @param start
+     *            When the phase started, as given by {@link System#nanoTime()}.
+     * @return When the phase ended, so that it can be used as the start of the next phase.
+     */
+    public long lap(final Phase phase, final long start) {
+        final long end = System.nanoTime();
+        this.phases.get(phase).record(end - start);
+        return end;
+    }
+
+    /**
+     * Record the time of a player's decision.
+     *
+     * @param p
+     *            The player.
+     * @param time
+     *            How long the decision took.
+     */
+    public void recordDecision(final Player p, final long time) {
+        this.getDecisionHistogram(p).record(time);
+    }
+
+}
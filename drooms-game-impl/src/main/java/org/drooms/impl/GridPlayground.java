@@ -0,0 +1,296 @@
+package org.drooms.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Playground;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+import edu.uci.ics.jung.graph.util.Graphs;
+
+/**
+ * {@link Playground} backed by flat arrays, indexed by cell. Cell index is <code>y * width + x</code>. Every lookup is
+ * a constant-time array access, including bounds checks and portal resolution. The graph view of the playground is
+ * only constructed when {@link #getGraph()} is first called.
+ *
+ * <p>
+ * Besides the {@link Playground} methods, this class exposes the cell indices, so that performance-sensitive code
+ * can work with plain integers instead of {@link Node}s.
+ * </p>
+ */
+public class GridPlayground implements Playground {
+
+    /**
+     * Index that represents a cell that either doesn't exist or can't be entered.
+     */
+    public static final int NO_CELL = -1;
+
+    /**
+     * How many neighbors may a cell have at most; up, down, left, right and the other end of a portal.
+     */
+    public static final int MAX_NEIGHBORS = 5;
+
+    private static final char WALL_SIGN = '#';
+    private static final char PLAYER_SIGN = '@';
+
+    private static final byte MISSING = -1;
+    private static final byte WALL = (byte) Type.WALL.ordinal();
+
+    private final String name;
+    private final int width;
+    private final int height;
+    private final byte[] types;
+    private final Node[] nodes;
+    private final int[] neighbors;
+    private final int[] portals;
+    private final List<Node> startingNodes = new ArrayList<Node>();
+    private final List<Node> allNodes = new ArrayList<Node>();
+
+    private volatile Graph<Node, Edge> graph;
+
+    GridPlayground(final String name, final List<String> lines) {
+        this.name = name;
+        this.height = lines.size();
+        int maxLength = 0;
+        for (final String line : lines) {
+            maxLength = Math.max(maxLength, line.length());
+        }
+        this.width = maxLength;
+        final int cellCount = this.width * this.height;
+        this.types = new byte[cellCount];
+        Arrays.fill(this.types, GridPlayground.MISSING);
+        this.nodes = new Node[cellCount];
+        this.portals = new int[cellCount];
+        Arrays.fill(this.portals, GridPlayground.NO_CELL);
+        // assemble nodes
+        final Map<Character, Integer> portalEntries = new TreeMap<Character, Integer>();
+        for (int y = 0; y < this.height; y++) {
+            final String line = lines.get(y);
+            for (int x = 0; x < line.length(); x++) {
+                final int index = y * this.width + x;
+                final char nodeLabel = line.charAt(x);
+                Node n;
+                switch (nodeLabel) {
+                    case WALL_SIGN: // wall node
+                        n = new Node(Type.WALL, x, y);
+                        break;
+                    case PLAYER_SIGN: // player starting position
+                        n = new Node(Type.STARTING_POSITION, x, y);
+                        this.startingNodes.add(n);
+                        break;
+                    case ' ': // regular node
+                        n = new Node(x, y);
+                        break;
+                    default: // any other character is a portal
+                        n = new Node(Type.PORTAL, x, y);
+                        final Integer entry = portalEntries.get(nodeLabel);
+                        if (entry == null) {
+                            portalEntries.put(nodeLabel, index);
+                        } else if (this.portals[entry] != GridPlayground.NO_CELL) {
+                            throw new IllegalStateException("Portal " + nodeLabel + " appears more than twice!");
+                        } else {
+                            this.portals[entry] = index;
+                            this.portals[index] = entry;
+                        }
+                }
+                this.types[index] = (byte) n.getType().ordinal();
+                this.nodes[index] = n;
+                this.allNodes.add(n);
+            }
+        }
+        for (final Map.Entry<Character, Integer> entry : portalEntries.entrySet()) {
+            if (this.portals[entry.getValue()] == GridPlayground.NO_CELL) {
+                throw new IllegalStateException("Portal " + entry.getKey() + " has no opposite end.");
+            }
+        }
+        // precompute neighbors
+        this.neighbors = new int[cellCount * GridPlayground.MAX_NEIGHBORS];
+        Arrays.fill(this.neighbors, GridPlayground.NO_CELL);
+        for (int index = 0; index < cellCount; index++) {
+            if (!this.isAvailable(index)) {
+                continue;
+            }
+            final int x = index % this.width;
+            final int y = index / this.width;
+            final int offset = index * GridPlayground.MAX_NEIGHBORS;
+            this.neighbors[offset] = this.getAvailableIndex(x, y + 1);
+            this.neighbors[offset + 1] = this.getAvailableIndex(x, y - 1);
+            this.neighbors[offset + 2] = this.getAvailableIndex(x - 1, y);
+            this.neighbors[offset + 3] = this.getAvailableIndex(x + 1, y);
+            this.neighbors[offset + 4] = this.portals[index];
+        }
+    }
+
+    private Graph<Node, Edge> buildGraph() {
+        final Graph<Node, Edge> result = new UndirectedSparseGraph<Node, Edge>();
+        for (int index = 0; index < this.nodes.length; index++) {
+            final Node node = this.nodes[index];
+            for (int i = 0; i < GridPlayground.MAX_NEIGHBORS; i++) {
+                final int neighbor = this.getNeighbor(index, i);
+                if (neighbor == GridPlayground.NO_CELL || neighbor == index) {
+                    continue;
+                }
+                final Node other = this.nodes[neighbor];
+                if (result.findEdge(node, other) == null) {
+                    result.addEdge(new DefaultEdge(node, other), node, other);
+                }
+            }
+        }
+        return result;
+    }
+
+    private int getAvailableIndex(final int x, final int y) {
+        final int index = this.getIndex(x, y);
+        return this.isAvailable(index) ? index : GridPlayground.NO_CELL;
+    }
+
+    /**
+     * Total number of cells, including walls and cells missing from shorter lines.
+     *
+     * @return Width multiplied by height.
+     */
+    public int getCellCount() {
+        return this.nodes.length;
+    }
+
+    @Override
+    public Graph<Node, Edge> getGraph() {
+        Graph<Node, Edge> result = this.graph;
+        if (result == null) {
+            synchronized (this) {
+                result = this.graph;
+                if (result == null) {
+                    result = Graphs.unmodifiableGraph(this.buildGraph());
+                    this.graph = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Retrieve index of the cell at the given co-ordinates.
+     *
+     * @param x
+     *            Horizontal co-ordinate.
+     * @param y
+     *            Vertical co-ordinate.
+     * @return {@link #NO_CELL} when out of bounds.
+     */
+    public int getIndex(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return GridPlayground.NO_CELL;
+        }
+        return y * this.width + x;
+    }
+
+    /**
+     * Retrieve index of the cell where the node is.
+     *
+     * @param node
+     *            Node in question.
+     * @return {@link #NO_CELL} when out of bounds.
+     */
+    public int getIndex(final Node node) {
+        return this.getIndex(node.getX(), node.getY());
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Retrieve one of the neighbors of a cell.
+     *
+     * @param index
+     *            Index of the cell.
+     * @param which
+     *            0 for up, 1 for down, 2 for left, 3 for right and 4 for the other end of a portal.
+     * @return Index of the neighbor, or {@link #NO_CELL} when there is no such neighbor that could be entered.
+     */
+    public int getNeighbor(final int index, final int which) {
+        return this.neighbors[index * GridPlayground.MAX_NEIGHBORS + which];
+    }
+
+    /**
+     * Retrieve a node at the particular index.
+     *
+     * @param index
+     *            Index of the cell.
+     * @return Null if there is no node at the given index.
+     */
+    public Node getNodeAt(final int index) {
+        if (index < 0 || index >= this.nodes.length) {
+            return null;
+        }
+        return this.nodes[index];
+    }
+
+    @Override
+    public Node getNodeAt(final int x, final int y) {
+        return this.getNodeAt(this.getIndex(x, y));
+    }
+
+    @Override
+    public Collection<Node> getNodes() {
+        return Collections.unmodifiableList(this.allNodes);
+    }
+
+    @Override
+    public Node getOtherEndOfPortal(final Node portal) {
+        if (portal.getType() != Type.PORTAL) {
+            throw new IllegalArgumentException("Node not a portal: " + portal);
+        }
+        final int index = this.getIndex(portal);
+        if (index == GridPlayground.NO_CELL || !portal.equals(this.nodes[index])) {
+            throw new IllegalArgumentException("Unknown portal:" + portal);
+        }
+        return this.nodes[this.portals[index]];
+    }
+
+    @Override
+    public List<Node> getStartingPositions() {
+        return Collections.unmodifiableList(this.startingNodes);
+    }
+
+    @Override
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Whether or not the cell exists and a worm may move into it without crashing into a wall.
+     *
+     * @param index
+     *            Index of the cell.
+     * @return True if available.
+     */
+    public boolean isAvailable(final int index) {
+        if (index < 0 || index >= this.types.length) {
+            return false;
+        }
+        final byte type = this.types[index];
+        return type != GridPlayground.MISSING && type != GridPlayground.WALL;
+    }
+
+    @Override
+    public boolean isAvailable(final int x, final int y) {
+        return this.isAvailable(this.getIndex(x, y));
+    }
+
+}
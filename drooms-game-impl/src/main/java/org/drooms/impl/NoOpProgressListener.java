@@ -0,0 +1,62 @@
+package org.drooms.impl;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+/**
+ * Ignores the progress of the game. Serves as the report of headless games, which don't keep any.
+ */
+public class NoOpProgressListener implements GameProgressListener {
+
+    @Override
+    public void collectibleAdded(final Collectible c) {
+        // nothing to do
+    }
+
+    @Override
+    public void collectibleCollected(final Collectible c, final Player p, final int points) {
+        // nothing to do
+    }
+
+    @Override
+    public void collectibleRemoved(final Collectible c) {
+        // nothing to do
+    }
+
+    @Override
+    public void nextTurn() {
+        // nothing to do
+    }
+
+    @Override
+    public void playerCrashed(final Player p) {
+        // nothing to do
+    }
+
+    @Override
+    public void playerDeactivated(final Player p) {
+        // nothing to do
+    }
+
+    @Override
+    public void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
+        // nothing to do
+    }
+
+    @Override
+    public void playerSurvived(final Player p, final int points) {
+        // nothing to do
+    }
+
+    @Override
+    public void write(final Writer w) throws IOException {
+        // there is nothing to report
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.drooms.impl;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+
+/**
+ * Keeps track of how many worm segments there are on each node of the playground. The counts are updated by the
+ * {@link WormBody}s as they change, one node at a time.
+ *
+ * <p>
+ * Nodes that are neither walls nor occupied by worms or collectibles are free. The free nodes are kept in an array,
+ * together with the position of every node in that array; a node that stops being free is swapped with the last one
+ * and the array shrinks. Picking a random free node therefore takes constant time.
+ * </p>
+ */
+class OccupancyGrid {
+
+    private static final int NOT_FREE = -1;
+
+    private final int width;
+    private final int height;
+    private final Node[] nodes;
+    private final boolean[] available;
+    private final int[] occupancy;
+    private final boolean[] collectibles;
+    private final int[] freeNodes;
+    private final int[] freePositions;
+    private int freeNodeCount = 0;
+
+    OccupancyGrid(final Playground playground) {
+        this.width = playground.getWidth();
+        this.height = playground.getHeight();
+        final int nodeCount = this.width * this.height;
+        this.nodes = new Node[nodeCount];
+        this.available = new boolean[nodeCount];
+        this.occupancy = new int[nodeCount];
+        this.collectibles = new boolean[nodeCount];
+        this.freeNodes = new int[nodeCount];
+        this.freePositions = new int[nodeCount];
+        Arrays.fill(this.freePositions, OccupancyGrid.NOT_FREE);
+        for (final Node n : playground.getNodes()) {
+            final int index = this.getIndex(n);
+            if (index >= 0) {
+                this.nodes[index] = n;
+            }
+        }
+        for (int y = 0; y < this.height; y++) {
+            for (int x = 0; x < this.width; x++) {
+                final int index = y * this.width + x;
+                if (this.nodes[index] != null && playground.isAvailable(x, y)) {
+                    this.available[index] = true;
+                    this.markFree(index);
+                }
+            }
+        }
+    }
+
+    void enter(final int index) {
+        this.occupancy[index]++;
+        this.updateFree(index);
+    }
+
+    /**
+     * Count the free nodes.
+     *
+     * @return How many nodes are neither walls nor occupied by worms or collectibles.
+     */
+    public int getFreeNodeCount() {
+        return this.freeNodeCount;
+    }
+
+    int getIndex(final Node n) {
+        final int x = n.getX();
+        final int y = n.getY();
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return -1;
+        }
+        return y * this.width + x;
+    }
+
+    Node getNode(final int index) {
+        return this.nodes[index];
+    }
+
+    /**
+     * Count the worm segments on a node.
+     *
+     * @param n
+     *            The node.
+     * @return How many segments of worms on the playground are on the node. A worm that occupies the node more than
+     *         once is counted more than once.
+     */
+    public int getOccupancy(final Node n) {
+        final int index = this.getIndex(n);
+        return index < 0 ? 0 : this.occupancy[index];
+    }
+
+    void leave(final int index) {
+        this.occupancy[index]--;
+        this.updateFree(index);
+    }
+
+    private void markFree(final int index) {
+        if (this.freePositions[index] != OccupancyGrid.NOT_FREE) {
+            return;
+        }
+        this.freeNodes[this.freeNodeCount] = index;
+        this.freePositions[index] = this.freeNodeCount;
+        this.freeNodeCount++;
+    }
+
+    private void markNotFree(final int index) {
+        final int position = this.freePositions[index];
+        if (position == OccupancyGrid.NOT_FREE) {
+            return;
+        }
+        // move the last free node into the gap
+        this.freeNodeCount--;
+        final int last = this.freeNodes[this.freeNodeCount];
+        this.freeNodes[position] = last;
+        this.freePositions[last] = position;
+        this.freePositions[index] = OccupancyGrid.NOT_FREE;
+    }
+
+    /**
+     * Pick a free node at random.
+     *
+     * @param random
+     *            Source of randomness.
+     * @return Null when no node is free.
+     */
+    public Node pickFreeNode(final Random random) {
+        if (this.freeNodeCount == 0) {
+            return null;
+        }
+        return this.nodes[this.freeNodes[random.nextInt(this.freeNodeCount)]];
+    }
+
+    /**
+     * Mark a node as having a collectible on it, or not.
+     *
+     * @param n
+     *            The node.
+     * @param present
+     *            Whether there now is a collectible on the node.
+     */
+    public void setCollectible(final Node n, final boolean present) {
+        final int index = this.getIndex(n);
+        if (index >= 0) {
+            this.collectibles[index] = present;
+            this.updateFree(index);
+        }
+    }
+
+    private void updateFree(final int index) {
+        if (this.available[index] && this.occupancy[index] == 0 && !this.collectibles[index]) {
+            this.markFree(index);
+        } else {
+            this.markNotFree(index);
+        }
+    }
+
+}
@@ -0,0 +1,401 @@
+package org.drooms.impl;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.drooms.api.Node;
+
+/**
+ * Nodes occupied by a worm, head first. They are kept as cell indices in a ring buffer, together with a flag telling
+ * which end of the buffer is the head. Moving the worm writes one index at the head and forgets another at the tail;
+ * reversing the worm only flips the flag. Neither allocates any memory, unless the worm outgrows its buffer.
+ *
+ * <p>
+ * Every change to the body is also reflected in the {@link OccupancyGrid} of the game, until the worm is taken off the
+ * playground.
+ * </p>
+ */
+public class WormBody {
+
+    /**
+     * Read-only {@link Deque} of the nodes of a worm, head first.
+     */
+    private abstract static class View extends AbstractCollection<Node> implements Deque<Node> {
+
+        private class NodeIterator implements Iterator<Node> {
+
+            private final boolean descending;
+            private int next = 0;
+
+            public NodeIterator(final boolean descending) {
+                this.descending = descending;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return this.next < View.this.size();
+            }
+
+            @Override
+            public Node next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int i = this.next++;
+                return View.this.get(this.descending ? View.this.size() - 1 - i : i);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException("Worm body is read-only.");
+            }
+
+        }
+
+        @Override
+        public void addFirst(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public void addLast(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Iterator<Node> descendingIterator() {
+            return new NodeIterator(true);
+        }
+
+        @Override
+        public Node element() {
+            return this.getFirst();
+        }
+
+        protected abstract Node get(int i);
+
+        @Override
+        public Node getFirst() {
+            if (this.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return this.get(0);
+        }
+
+        @Override
+        public Node getLast() {
+            if (this.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+            return this.get(this.size() - 1);
+        }
+
+        @Override
+        public Iterator<Node> iterator() {
+            return new NodeIterator(false);
+        }
+
+        @Override
+        public boolean offer(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public boolean offerFirst(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public boolean offerLast(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node peek() {
+            return this.peekFirst();
+        }
+
+        @Override
+        public Node peekFirst() {
+            return this.isEmpty() ? null : this.get(0);
+        }
+
+        @Override
+        public Node peekLast() {
+            return this.isEmpty() ? null : this.get(this.size() - 1);
+        }
+
+        @Override
+        public Node poll() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node pollFirst() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node pollLast() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node pop() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public void push(final Node e) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node remove() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node removeFirst() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public boolean removeFirstOccurrence(final Object o) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public Node removeLast() {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+        @Override
+        public boolean removeLastOccurrence(final Object o) {
+            throw new UnsupportedOperationException("Worm body is read-only.");
+        }
+
+    }
+
+    /**
+     * Read-only view of the body. Reflects every later change to the body.
+     */
+    private class LiveView extends View {
+
+        @Override
+        protected Node get(final int i) {
+            return WormBody.this.getNode(i);
+        }
+
+        @Override
+        public int size() {
+            return WormBody.this.size;
+        }
+
+    }
+
+    /**
+     * Read-only copy of the body, as it was when the copy was made.
+     */
+    private static class Snapshot extends View {
+
+        private final Node[] nodes;
+
+        public Snapshot(final Node[] nodes) {
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected Node get(final int i) {
+            return this.nodes[i];
+        }
+
+        @Override
+        public int size() {
+            return this.nodes.length;
+        }
+
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final OccupancyGrid grid;
+    private final Deque<Node> view = new LiveView();
+    private int[] cells = new int[WormBody.INITIAL_CAPACITY];
+    private int start = 0;
+    private int size = 0;
+    private boolean reversed = false;
+    private boolean onPlayground = true;
+
+    WormBody(final OccupancyGrid grid) {
+        this.grid = grid;
+    }
+
+    /**
+     * Provide a read-only view of the body, for when a {@link Deque} is required. The view reflects every later change
+     * to the body; use {@link #snapshot()} where the nodes must outlive the current turn.
+     *
+     * @return Nodes of the worm, head first.
+     */
+    public Deque<Node> asDeque() {
+        return this.view;
+    }
+
+    private void ensureCapacity(final int capacity) {
+        if (capacity <= this.cells.length) {
+            return;
+        }
+        int newLength = this.cells.length;
+        while (newLength < capacity) {
+            newLength *= 2;
+        }
+        final int[] newCells = new int[newLength];
+        for (int i = 0; i < this.size; i++) {
+            newCells[i] = this.cells[(this.start + i) & (this.cells.length - 1)];
+        }
+        this.cells = newCells;
+        this.start = 0;
+    }
+
+    public Node getHead() {
+        return this.getNode(0);
+    }
+
+    /**
+     * Retrieve a node of the worm.
+     *
+     * @param i
+     *            Position of the node in the worm, 0 being the head.
+     * @return The node.
+     */
+    public Node getNode(final int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("No node " + i + " in a worm of length " + this.size);
+        }
+        return this.grid.getNode(this.cells[this.getSlot(i)]);
+    }
+
+    private int getSlot(final int i) {
+        final int offset = this.reversed ? this.size - 1 - i : i;
+        return (this.start + offset) & (this.cells.length - 1);
+    }
+
+    public Node getTail() {
+        return this.getNode(this.size - 1);
+    }
+
+    /**
+     * Move the head of the worm to a new node. The rest of the worm stays where it was, so the worm gets longer.
+     *
+     * @param n
+     *            The new head.
+     */
+    public void push(final Node n) {
+        final int index = this.grid.getIndex(n);
+        if (index < 0) {
+            throw new IllegalArgumentException("Node not on the playground: " + n);
+        }
+        this.ensureCapacity(this.size + 1);
+        if (this.reversed) {
+            this.cells[(this.start + this.size) & (this.cells.length - 1)] = index;
+        } else {
+            this.start = (this.start - 1) & (this.cells.length - 1);
+            this.cells[this.start] = index;
+        }
+        this.size++;
+        if (this.onPlayground) {
+            this.grid.enter(index);
+        }
+    }
+
+    /**
+     * Take the worm off the playground. The worm's nodes will no longer be considered occupied, whatever happens to
+     * the worm afterwards.
+     */
+    void removeFromPlayground() {
+        if (!this.onPlayground) {
+            return;
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.grid.leave(this.cells[this.getSlot(i)]);
+        }
+        this.onPlayground = false;
+    }
+
+    /**
+     * Make the worm one node shorter by removing its tail.
+     */
+    public void removeTail() {
+        if (this.size == 0) {
+            throw new IllegalStateException("Worm has no nodes.");
+        }
+        final int index = this.cells[this.getSlot(this.size - 1)];
+        if (this.reversed) {
+            this.start = (this.start + 1) & (this.cells.length - 1);
+        }
+        this.size--;
+        if (this.onPlayground) {
+            this.grid.leave(index);
+        }
+    }
+
+    /**
+     * Turn the worm around, so that its head becomes its tail and vice versa.
+     */
+    public void reverse() {
+        this.reversed = !this.reversed;
+    }
+
+    /**
+     * Replace the whole worm.
+     *
+     * @param nodes
+     *            New nodes of the worm, head first.
+     */
+    void setNodes(final Collection<Node> nodes) {
+        while (this.size > 0) {
+            this.removeTail();
+        }
+        this.reversed = false;
+        // the nodes are pushed one after another, so the head needs to come last
+        final Node[] newNodes = nodes.toArray(new Node[nodes.size()]);
+        for (int i = newNodes.length - 1; i >= 0; i--) {
+            this.push(newNodes[i]);
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Copy the nodes of the worm into a read-only {@link Deque}, which won't change when the worm moves.
+     *
+     * @return Nodes of the worm, head first.
+     */
+    public Deque<Node> snapshot() {
+        return new Snapshot(this.toArray());
+    }
+
+    /**
+     * Copy the nodes of the worm.
+     *
+     * @return Nodes of the worm, head first.
+     */
+    public Node[] toArray() {
+        final Node[] result = new Node[this.size];
+        for (int i = 0; i < this.size; i++) {
+            result[i] = this.getNode(i);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return this.view.toString();
+    }
+
+}
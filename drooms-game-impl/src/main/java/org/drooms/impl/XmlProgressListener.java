@@ -1,71 +1,102 @@
 package org.drooms.impl;
 
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.drooms.api.Action;
 import org.drooms.api.Collectible;
 import org.drooms.api.GameProgressListener;
-import org.drooms.api.Action;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
+import org.drooms.impl.GameTimings.Phase;
 import org.drooms.impl.util.GameProperties;
-import org.drooms.impl.util.XmlUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.drooms.impl.util.TimingHistogram;
 
-public class XmlProgressListener implements GameProgressListener {
+/**
+ * Records the progress of the game as an XML report. The report is written element by element as the game goes on,
+ * indented on the fly if {@link GameProperties#isReportIndented()}.
+ *
+ * <p>
+ * Unless {@link #isStreaming()}, the report is kept in memory until {@link #write(Writer)} is called. When streaming,
+ * it goes straight into a file instead, and {@link #close()} completes it; memory use then doesn't depend on the
+ * length of the game.
+ * </p>
+ */
+public class XmlProgressListener implements GameProgressListener, Closeable {
 
-    private static Logger logger = LoggerFactory.getLogger(XmlProgressListener.class);
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
 
-    private static String collectibleXml(final Collectible c) {
-        return "<collectible points='" + c.getPoints() + "' expiresInTurn='" + c.expiresInTurn() + "' />";
-    }
+    private static final String INDENT = "  ";
 
-    private static String nodeXml(final Node c) {
-        return "<node x='" + c.getX() + "' y='" + c.getY() + "' />";
-    }
-
-    private static String playerXml(final Player p) {
-        return "<player name='" + p.getName() + "' />";
-    }
-
-    private final StringBuilder report = new StringBuilder();
+    private final Writer target;
+    private final StringWriter buffer;
+    private final XMLStreamWriter xml;
+    private final boolean indent;
+    private int depth = 0;
+    private boolean hasChildren = false;
+    private boolean finished = false;
 
     private int turnNumber = 0;
 
+    private GameTimings timings;
+
     private final Map<Player, Integer> playerPoints = new HashMap<>();
 
+    /**
+     * Keep the report in memory.
+     *
+     * @param p
+     *            Playground of the game.
+     * @param players
+     *            Players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     */
     public XmlProgressListener(final Playground p, final Collection<Player> players, final GameProperties gameConfig) {
-        this.report.append("<game>");
-        // report game config
-        this.report.append("<config>");
-        for (final Map.Entry<Object, Object> pair : gameConfig.getTextEntries()) {
-            final String key = (String) pair.getKey();
-            final String value = (String) pair.getValue();
-            this.report.append("<property name='" + key + "' value='" + value + "' />");
-        }
-        this.report.append("</config>");
-        // report players
-        this.report.append("<players>");
-        for (final Player player : players) {
-            this.report.append(XmlProgressListener.playerXml(player));
-        }
-        this.report.append("</players>");
-        // report playground
-        this.report.append("<playground>");
-        for (int x = -1; x <= p.getWidth(); x++) {
-            for (int y = -1; y <= p.getHeight(); y++) {
-                if (p.isAvailable(x, y)) {
-                    this.report.append(XmlProgressListener.nodeXml(p.getNodeAt(x, y)));
-                }
-            }
-        }
-        this.report.append("</playground>");
-        this.report.append("<turns>");
+        this.buffer = new StringWriter();
+        this.target = this.buffer;
+        this.indent = gameConfig.isReportIndented();
+        this.xml = this.createWriter();
+        this.writeHeader(p, players, gameConfig);
+    }
+
+    /**
+     * Stream the report into a file.
+     *
+     * @param p
+     *            Playground of the game.
+     * @param players
+     *            Players in the game.
+     * @param gameConfig
+     *            Configuration of the game.
+     * @param reportFile
+     *            Where to write the report. Will be overwritten.
+     * @throws IOException
+     *             When the file cannot be opened.
+     */
+    public XmlProgressListener(final Playground p, final Collection<Player> players, final GameProperties gameConfig,
+            final File reportFile) throws IOException {
+        this.buffer = null;
+        this.target = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(reportFile),
+                StandardCharsets.UTF_8));
+        this.indent = gameConfig.isReportIndented();
+        this.xml = this.createWriter();
+        this.writeHeader(p, players, gameConfig);
     }
 
     private void addPoints(final Player p, final int points) {
@@ -76,98 +107,329 @@ public class XmlProgressListener implements GameProgressListener {
         }
     }
 
+    /**
+     * Complete the report. When streaming, also closes the file. Once closed, the listener ignores any further
+     * progress of the game.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        try {
+            if (this.turnNumber > 0) {
+                this.end(); // turn
+            }
+            this.end(); // turns
+            this.start("results");
+            for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
+                this.start("score");
+                this.xml.writeAttribute("points", String.valueOf(entry.getValue()));
+                this.player(entry.getKey());
+                this.end();
+            }
+            this.end(); // results
+            if (this.timings != null) {
+                this.writeTimings();
+            }
+            this.end(); // game
+            this.xml.writeEndDocument();
+            this.newLine();
+            this.xml.close();
+        } catch (final XMLStreamException ex) {
+            throw new IOException("Failed completing the report.", ex);
+        } finally {
+            this.finished = true;
+            if (this.buffer == null) {
+                this.target.close();
+            }
+        }
+    }
+
+    private void collectible(final Collectible c) throws XMLStreamException {
+        this.empty("collectible");
+        this.xml.writeAttribute("points", String.valueOf(c.getPoints()));
+        this.xml.writeAttribute("expiresInTurn", String.valueOf(c.expiresInTurn()));
+    }
+
     @Override
-    public void collectibleAdded(final Collectible c) {
-        this.report.append("<newCollectible>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.nodeXml(c.getAt()));
-        this.report.append("</newCollectible>");
+    public synchronized void collectibleAdded(final Collectible c) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.start("newCollectible");
+            this.collectible(c);
+            this.node(c.getAt());
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
     }
 
     @Override
-    public void collectibleCollected(final Collectible c, final Player p, final int points) {
+    public synchronized void collectibleCollected(final Collectible c, final Player p, final int points) {
+        if (this.finished) {
+            return;
+        }
         this.addPoints(p, points);
-        this.report.append("<collectedCollectible points='" + points + "'>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append(XmlProgressListener.nodeXml(c.getAt()));
-        this.report.append("</collectedCollectible>");
+        try {
+            this.start("collectedCollectible");
+            this.xml.writeAttribute("points", String.valueOf(points));
+            this.collectible(c);
+            this.player(p);
+            this.node(c.getAt());
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
     }
 
     @Override
-    public void collectibleRemoved(final Collectible c) {
-        this.report.append("<removedCollectible>");
-        this.report.append(XmlProgressListener.collectibleXml(c));
-        this.report.append(XmlProgressListener.nodeXml(c.getAt()));
-        this.report.append("</removedCollectible>");
+    public synchronized void collectibleRemoved(final Collectible c) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.start("removedCollectible");
+            this.collectible(c);
+            this.node(c.getAt());
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
+    }
+
+    private XMLStreamWriter createWriter() {
+        try {
+            return XmlProgressListener.FACTORY.createXMLStreamWriter(this.target);
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed preparing the report.", ex);
+        }
+    }
+
+    private void empty(final String name) throws XMLStreamException {
+        this.hasChildren = true;
+        this.newLine();
+        this.xml.writeEmptyElement(name);
+    }
+
+    private void end() throws XMLStreamException {
+        this.depth--;
+        if (this.hasChildren) {
+            this.newLine();
+        }
+        this.hasChildren = true;
+        this.xml.writeEndElement();
+    }
+
+    /**
+     * Whether the report goes into a file as the game goes on.
+     *
+     * @return True when streaming, false when the report is kept in memory.
+     */
+    public boolean isStreaming() {
+        return this.buffer == null;
+    }
+
+    private void newLine() throws XMLStreamException {
+        if (!this.indent) {
+            return;
+        }
+        this.xml.writeCharacters("\n");
+        for (int i = 0; i < this.depth; i++) {
+            this.xml.writeCharacters(XmlProgressListener.INDENT);
+        }
     }
 
     @Override
-    public void nextTurn() {
-        if (this.turnNumber > 0) {
-            this.report.append("</turn>");
+    public synchronized void nextTurn() {
+        if (this.finished) {
+            return;
         }
-        this.report.append("<turn number='" + this.turnNumber + "'>");
-        this.turnNumber += 1;
+        try {
+            if (this.turnNumber > 0) {
+                this.end();
+            }
+            this.start("turn");
+            this.xml.writeAttribute("number", String.valueOf(this.turnNumber));
+            this.turnNumber += 1;
+            if (this.buffer == null) {
+                // make sure whatever happened in the previous turn is on its way to the disk
+                this.xml.flush();
+            }
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
+    }
+
+    private void node(final Node n) throws XMLStreamException {
+        this.empty("node");
+        this.xml.writeAttribute("x", String.valueOf(n.getX()));
+        this.xml.writeAttribute("y", String.valueOf(n.getY()));
+    }
+
+    private void player(final Player p) throws XMLStreamException {
+        this.empty("player");
+        this.xml.writeAttribute("name", p.getName());
     }
 
     @Override
-    public void playerCrashed(final Player p) {
-        this.report.append("<crashedPlayer>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</crashedPlayer>");
+    public synchronized void playerCrashed(final Player p) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.start("crashedPlayer");
+            this.player(p);
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
     }
 
     @Override
-    public void playerDeactivated(final Player p) {
-        this.report.append("<deactivatedPlayer>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</deactivatedPlayer>");
+    public synchronized void playerDeactivated(final Player p) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.start("deactivatedPlayer");
+            this.player(p);
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
     }
 
     @Override
-    public void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
-        this.report.append("<playerPosition>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        for (final Node n : nodes) {
-            this.report.append(XmlProgressListener.nodeXml(n));
+    public synchronized void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
+        if (this.finished) {
+            return;
+        }
+        try {
+            this.start("playerPosition");
+            this.player(p);
+            for (final Node n : nodes) {
+                this.node(n);
+            }
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
         }
-        this.report.append("</playerPosition>");
     }
 
     @Override
-    public void playerSurvived(final Player p, final int points) {
+    public synchronized void playerSurvived(final Player p, final int points) {
+        if (this.finished) {
+            return;
+        }
         this.addPoints(p, points);
-        this.report.append("<survivedPlayer points='" + points + "'>");
-        this.report.append(XmlProgressListener.playerXml(p));
-        this.report.append("</survivedPlayer>");
+        try {
+            this.start("survivedPlayer");
+            this.xml.writeAttribute("points", String.valueOf(points));
+            this.player(p);
+            this.end();
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
+    }
+
+    /**
+     * Have the timings of the game summarized in the report, once it is complete.
+     *
+     * @param timings
+     *            Timings of the game.
+     */
+    public synchronized void setTimings(final GameTimings timings) {
+        this.timings = timings;
     }
 
+    private void start(final String name) throws XMLStreamException {
+        this.newLine();
+        this.xml.writeStartElement(name);
+        this.depth++;
+        this.hasChildren = false;
+    }
+
+    /**
+     * Complete the report and write it out. When streaming, the report is already in its file and nothing is
+     * written.
+     */
     @Override
-    public void write(final Writer w) throws IOException {
-        final StringBuilder result = new StringBuilder(this.report);
-        if (this.turnNumber > 0) {
-            result.append("</turn>");
-        }
-        result.append("</turns>");
-        result.append("<results>");
-        for (final Map.Entry<Player, Integer> entry : this.playerPoints.entrySet()) {
-            result.append("<score points='" + entry.getValue() + "'>");
-            result.append(XmlProgressListener.playerXml(entry.getKey()));
-            result.append("</score>");
-        }
-        result.append("</results>");
-        result.append("</game>");
-        String resultingXml = result.toString();
-        /*
-         * make the XML pretty; if it fails, error is logged and original string
-         * will be returned
-         */
+    public synchronized void write(final Writer w) throws IOException {
+        this.close();
+        if (this.buffer == null) {
+            return;
+        }
+        // copy in chunks, so that the whole report is never duplicated in memory
+        final StringBuffer report = this.buffer.getBuffer();
+        final char[] chunk = new char[8192];
+        for (int start = 0; start < report.length(); start += chunk.length) {
+            final int end = Math.min(report.length(), start + chunk.length);
+            report.getChars(start, end, chunk, 0);
+            w.write(chunk, 0, end - start);
+        }
+    }
+
+    private void writeHistogram(final TimingHistogram histogram) throws XMLStreamException {
+        this.xml.writeAttribute("count", String.valueOf(histogram.getCount()));
+        this.xml.writeAttribute("mean", String.valueOf(histogram.getMean()));
+        this.xml.writeAttribute("p50", String.valueOf(histogram.getValueAtPercentile(50)));
+        this.xml.writeAttribute("p90", String.valueOf(histogram.getValueAtPercentile(90)));
+        this.xml.writeAttribute("p99", String.valueOf(histogram.getValueAtPercentile(99)));
+        this.xml.writeAttribute("max", String.valueOf(histogram.getMax()));
+        this.xml.writeAttribute("total", String.valueOf(histogram.getTotal()));
+    }
+
+    private void writeHeader(final Playground p, final Collection<Player> players, final GameProperties gameConfig) {
         try {
-            resultingXml = XmlUtil.prettyPrint(result.toString());
-        } catch (final RuntimeException re) {
-            XmlProgressListener.logger.error("Error while pretty printing XML report, !\n", re);
+            this.xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            this.start("game");
+            // report game config
+            this.start("config");
+            for (final Map.Entry<Object, Object> pair : gameConfig.getTextEntries()) {
+                this.empty("property");
+                this.xml.writeAttribute("name", (String) pair.getKey());
+                this.xml.writeAttribute("value", (String) pair.getValue());
+            }
+            this.end();
+            // report players
+            this.start("players");
+            for (final Player player : players) {
+                this.player(player);
+            }
+            this.end();
+            // report playground
+            this.start("playground");
+            for (int x = -1; x <= p.getWidth(); x++) {
+                for (int y = -1; y <= p.getHeight(); y++) {
+                    if (p.isAvailable(x, y)) {
+                        this.node(p.getNodeAt(x, y));
+                    }
+                }
+            }
+            this.end();
+            this.start("turns");
+        } catch (final XMLStreamException ex) {
+            throw new IllegalStateException("Failed writing the report.", ex);
+        }
+    }
+
+    private void writeTimings() throws XMLStreamException {
+        this.start("timings");
+        this.xml.writeAttribute("unit", "ns");
+        for (final Phase phase : Phase.values()) {
+            this.empty("phase");
+            this.xml.writeAttribute("name", phase.name());
+            this.writeHistogram(this.timings.getPhase(phase));
+        }
+        for (final Player p : this.timings.getPlayers()) {
+            this.start("decisions");
+            this.writeHistogram(this.timings.getDecisions(p));
+            this.player(p);
+            this.end();
         }
-        w.write(resultingXml);
+        this.end(); // timings
     }
 }
@@ -1,6 +1,7 @@
 package org.drooms.impl.logic;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -9,7 +10,9 @@ import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -23,12 +26,14 @@ import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
 import org.drooms.impl.GameController;
+import org.drooms.impl.GameTimings;
 import org.drooms.impl.logic.commands.Command;
 import org.drooms.impl.logic.commands.CrashPlayerCommand;
 import org.drooms.impl.logic.commands.DeactivatePlayerCommand;
 import org.drooms.impl.logic.commands.PlayerActionCommand;
 import org.drooms.impl.util.DroomsStrategyValidator;
 import org.drooms.impl.util.GameProperties;
+import org.drooms.impl.util.GameProperties.TimeoutClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,19 +47,73 @@ public class CommandDistributor {
     private static class DecisionMakerUnit implements Callable<Action> {
 
         private final DecisionMaker playerLogic;
-        private final List<Command> commands;
+        private final Queue<TurnChanges> undelivered;
+        private final DecisionTimer timer = new DecisionTimer();
 
-        public DecisionMakerUnit(final DecisionMaker m, final List<Command> commands) {
+        /**
+         * Prepare the decision.
+         * 
+         * @param m
+         *            The strategy to decide.
+         * @param undelivered
+         *            Changes that the strategy is yet to be told about, oldest first. Only taken out of the queue once
+         *            the decision starts, so that changes of a decision that never started aren't lost. Also guards the
+         *            strategy, so that no two of its decisions ever run at the same time.
+         */
+        public DecisionMakerUnit(final DecisionMaker m, final Queue<TurnChanges> undelivered) {
             this.playerLogic = m;
-            this.commands = commands;
+            this.undelivered = undelivered;
         }
 
         @Override
         public Action call() throws Exception {
+            synchronized (this.undelivered) {
+                this.timer.start();
+                try {
+                    TurnChanges changes;
+                    while ((changes = this.undelivered.poll()) != null) {
+                        changes.deliverTo(this.playerLogic);
+                    }
+                    return this.playerLogic.decideNextMove();
+                } finally {
+                    this.timer.stop();
+                }
+            }
+        }
+
+        public DecisionTimer getTimer() {
+            return this.timer;
+        }
+
+        /**
+         * Whether the decision started and didn't finish yet, which may be long after it was cancelled.
+         * 
+         * @return True if still running.
+         */
+        public boolean isRunning() {
+            return this.timer.isStarted() && !this.timer.isStopped();
+        }
+
+    }
+
+    /**
+     * Everything that happened in one turn, as the strategies are told about it.
+     */
+    static class TurnChanges {
+
+        private final List<WormDelta> deltas;
+        private final List<Command> commands;
+
+        TurnChanges(final List<WormDelta> deltas, final List<Command> commands) {
+            this.deltas = deltas;
+            this.commands = Collections.unmodifiableList(new ArrayList<Command>(commands));
+        }
+
+        public void deliverTo(final DecisionMaker playerLogic) {
+            playerLogic.notifyOfWormMoves(this.deltas);
             for (final Command command : this.commands) {
-                command.perform(this.playerLogic);
+                command.perform(playerLogic);
             }
-            return this.playerLogic.decideNextMove();
         }
 
     }
@@ -72,14 +131,65 @@ public class CommandDistributor {
         return Collections.unmodifiableMap(positions);
     }
 
+    /**
+     * Wait for the strategy to make a decision, until the deadline passes at the latest. Whatever the outcome, the
+     * strategy is halted afterwards.
+     * 
+     * @param playerLogic
+     *            The strategy making the decision.
+     * @param move
+     *            The decision being made.
+     * @param deadline
+     *            Deadline after which the strategy is considered late.
+     * @return The decision, or STAY when the strategy failed to decide in time.
+     */
+    private static Action retrieveDecision(final DecisionMaker playerLogic, final Future<Action> move,
+            final Deadline deadline) {
+        final Player player = playerLogic.getPlayer();
+        try {
+            while (true) {
+                try {
+                    return move.get(deadline.getRemaining(), TimeUnit.NANOSECONDS);
+                } catch (final TimeoutException e) {
+                    if (deadline.isPassed()) {
+                        throw e;
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            playerLogic.getMetrics().recordError();
+            CommandDistributor.LOGGER.warn("Player {} error during decision-making, STAY forced.",
+                    player.getName(), e);
+            return Action.NOTHING;
+        } catch (final TimeoutException e) {
+            playerLogic.getMetrics().recordTimeout();
+            CommandDistributor.LOGGER.warn("Player {}, didn't reach a decision in time, STAY forced.",
+                    player.getName());
+            return Action.NOTHING;
+        } finally {
+            move.cancel(true);
+            playerLogic.halt(); // otherwise other players' are slowed down
+        }
+    }
+
     private final Map<Player, DecisionMaker> players = new LinkedHashMap<>();
     private final Map<Player, PathTracker> trackers = new LinkedHashMap<>();
+    private final WormPositions positions = new WormPositions();
 
     private final List<GameProgressListener> listeners = new LinkedList<GameProgressListener>();
 
-    private final int playerTimeoutInSeconds;
+    private final Map<Player, Long> banks = new HashMap<>();
+    private final Map<Player, Queue<TurnChanges>> undelivered = new HashMap<>();
+    private final Map<Player, DecisionMakerUnit> latestUnits = new HashMap<>();
 
-    private final ExecutorService e = Executors.newFixedThreadPool(1);
+    private final int playerTimeoutInMilliseconds;
+    private final boolean cpuTimed;
+    private final int decisionThreads;
+    private final GameProperties properties;
+    private final GcScheduler gcScheduler;
+    private GameTimings timings;
+
+    private final ExecutorService e;
     private final List<Command> commands = new LinkedList<>();
 
     /**
@@ -95,13 +205,14 @@ public class CommandDistributor {
      *            Configuration of the game.
      * @param reportFolder
      *            Where to report to.
-     * @param playerTimeoutInSeconds
+     * @param playerTimeoutInMilliseconds
      *            How much time the player strategies should be given to make
      *            move decisions.
      */
     public CommandDistributor(final Playground playground, final Collection<Player> players,
             final GameProgressListener report, final GameProperties properties, final File reportFolder,
-            final int playerTimeoutInSeconds) {
+            final int playerTimeoutInMilliseconds) {
+        this(Collections.<Player, DecisionMaker> emptyMap(), properties, playerTimeoutInMilliseconds);
         for (final Player player : players) {
             final DroomsStrategyValidator validator = new DroomsStrategyValidator(player.getStrategyReleaseId());
             if (!validator.isValid()) {
@@ -124,7 +235,32 @@ public class CommandDistributor {
             }
         }
         this.listeners.add(report);
-        this.playerTimeoutInSeconds = playerTimeoutInSeconds;
+    }
+
+    /**
+     * Initialize the class with strategies that are ready to decide, without any listeners or path trackers.
+     * 
+     * @param players
+     *            The players taking part in the game, with their strategies.
+     * @param properties
+     *            Configuration of the game.
+     * @param playerTimeoutInMilliseconds
+     *            How much time the player strategies should be given to make move decisions.
+     */
+    CommandDistributor(final Map<Player, DecisionMaker> players, final GameProperties properties,
+            final int playerTimeoutInMilliseconds) {
+        this.players.putAll(players);
+        this.playerTimeoutInMilliseconds = playerTimeoutInMilliseconds;
+        if (properties.getTimeoutClock() == TimeoutClock.CPU && !DecisionTimer.isCpuTimeSupported()) {
+            CommandDistributor.LOGGER.warn("CPU time can not be measured, strategies will be timed by the wall clock.");
+            this.cpuTimed = false;
+        } else {
+            this.cpuTimed = properties.getTimeoutClock() == TimeoutClock.CPU;
+        }
+        this.decisionThreads = properties.getDecisionThreads();
+        this.properties = properties;
+        this.gcScheduler = new GcScheduler(properties);
+        this.e = Executors.newFixedThreadPool(this.decisionThreads);
     }
 
     /**
@@ -151,49 +287,175 @@ public class CommandDistributor {
      * @return Strategy decisions.
      */
     public Map<Player, Action> execute() {
-        // hint GC to potentially not interrupt decision making later
-        System.gc();
-        CommandDistributor.LOGGER.info("First reporting what happens in this turn.");
+        // force GC when due, so that it potentially does not interrupt decision making later
+        this.gcScheduler.beforeTurn();
+        CommandDistributor.LOGGER.debug("First reporting what happens in this turn.");
         for (final GameProgressListener listener : this.listeners) {
             listener.nextTurn();
         }
         for (final Command command : commands) {
-            CommandDistributor.LOGGER.info("Will process command: {}", command);
+            CommandDistributor.LOGGER.debug("Will process command: {}", command);
             for (final GameProgressListener listener : this.listeners) {
                 command.report(listener);
             }
         }
-        CommandDistributor.LOGGER.info("Now passing these changes to players.");
+        CommandDistributor.LOGGER.debug("Now passing these changes to players.");
+        // worm changes are only computed once, then shared by all the strategies
         final Map<Player, Deque<Node>> positions = CommandDistributor.retrieveNewPlayerPositions(commands);
+        final List<WormDelta> deltas = this.positions.update(positions);
+        for (final Player player : this.players.keySet()) {
+            this.trackers.get(player).moveWorms(deltas, positions.get(player).getFirst());
+        }
+        final TurnChanges changes = new TurnChanges(deltas, this.commands);
+        final Map<Player, Action> moves = (this.decisionThreads > 1) ? this.decideConcurrently(changes)
+                : this.decideSequentially(changes);
+        commands.clear();
+        CommandDistributor.LOGGER.debug("Turn processed completely.");
+        return Collections.unmodifiableMap(moves);
+    }
+
+    /**
+     * Let the strategies decide one after another, each of them having the full timeout to itself.
+     * 
+     * @param changes
+     *            What happened during the turn.
+     * @return Strategy decisions.
+     */
+    private Map<Player, Action> decideSequentially(final TurnChanges changes) {
         final Map<Player, Action> moves = new HashMap<Player, Action>();
         for (final Map.Entry<Player, DecisionMaker> entry : this.players.entrySet()) {
             final Player player = entry.getKey();
             final DecisionMaker playerLogic = entry.getValue();
-            this.trackers.get(player).movePlayers(positions);
             CommandDistributor.LOGGER.debug("Processing player {}.", player.getName());
-            final DecisionMakerUnit dmu = new DecisionMakerUnit(playerLogic, commands);
             // begin the time-box for a player strategy
-            final Future<Action> move = this.e.submit(dmu);
-            try {
-                moves.put(player, move.get(this.playerTimeoutInSeconds, TimeUnit.SECONDS));
-            } catch (InterruptedException | ExecutionException e) {
-                CommandDistributor.LOGGER.warn("Player {} error during decision-making, STAY forced.",
-                        player.getName(), e);
-                moves.put(player, Action.NOTHING);
-            } catch (final TimeoutException e) {
-                CommandDistributor.LOGGER.warn("Player {}, didn't reach a decision in time, STAY forced.",
-                        player.getName());
-                moves.put(player, Action.NOTHING);
-            } finally {
-                move.cancel(true);
-                playerLogic.halt(); // otherwise other players' are slowed down
+            final DecisionMakerUnit unit = this.createUnit(player, playerLogic, changes);
+            if (unit == null) {
+                moves.put(player, this.skipDecision(player));
+                continue;
             }
+            final Future<Action> move = this.e.submit(unit);
+            final long budget = this.getBudget(player);
+            final Deadline deadline = this.createDeadline(budget, budget, unit.getTimer());
+            moves.put(player, CommandDistributor.retrieveDecision(playerLogic, move, deadline));
+            this.recordDecision(playerLogic, unit.getTimer());
+            this.updateBank(player, unit.getTimer(), budget);
             // end the time-box for a player strategy
             CommandDistributor.LOGGER.debug("Player {} processed.", player.getName());
         }
-        commands.clear();
-        CommandDistributor.LOGGER.info("Turn processed completely.");
-        return Collections.unmodifiableMap(moves);
+        return moves;
+    }
+
+    /**
+     * Let all the strategies decide at the same time. Every strategy is given its full timeout from the moment its
+     * decision starts, no matter how long it waited for a free thread. The whole turn is capped by a shared deadline,
+     * which is as far in the future as it would take for all of them to decide with the given number of threads and
+     * full timeouts. Time in the bank extends both for the strategy that has it.
+     * 
+     * @param changes
+     *            What happened during the turn.
+     * @return Strategy decisions.
+     */
+    Map<Player, Action> decideConcurrently(final TurnChanges changes) {
+        final Map<Player, Action> moves = new HashMap<Player, Action>();
+        final Map<Player, DecisionMakerUnit> units = new LinkedHashMap<>();
+        final Map<Player, Future<Action>> futures = new LinkedHashMap<>();
+        for (final Map.Entry<Player, DecisionMaker> entry : this.players.entrySet()) {
+            final Player player = entry.getKey();
+            CommandDistributor.LOGGER.debug("Processing player {}.", player.getName());
+            final DecisionMakerUnit unit = this.createUnit(player, entry.getValue(), changes);
+            if (unit == null) {
+                moves.put(player, this.skipDecision(player));
+                continue;
+            }
+            units.put(player, unit);
+            futures.put(player, this.e.submit(unit));
+        }
+        // begin the shared time-box for all player strategies
+        final int rounds = (futures.size() + this.decisionThreads - 1) / this.decisionThreads;
+        final long waiting = TimeUnit.MILLISECONDS.toNanos(this.playerTimeoutInMilliseconds) * (rounds - 1);
+        final Map<Player, Long> budgets = new HashMap<>();
+        final Map<Player, Deadline> deadlines = new HashMap<>();
+        for (final Map.Entry<Player, DecisionMakerUnit> entry : units.entrySet()) {
+            final Player player = entry.getKey();
+            final long budget = this.getBudget(player);
+            budgets.put(player, budget);
+            deadlines.put(player, this.createDeadline(budget + waiting, budget, entry.getValue().getTimer()));
+        }
+        for (final Map.Entry<Player, Future<Action>> entry : futures.entrySet()) {
+            final Player player = entry.getKey();
+            moves.put(player, CommandDistributor.retrieveDecision(this.players.get(player), entry.getValue(),
+                    deadlines.get(player)));
+            this.recordDecision(this.players.get(player), units.get(player).getTimer());
+            this.updateBank(player, units.get(player).getTimer(), budgets.get(player));
+            CommandDistributor.LOGGER.debug("Player {} processed.", player.getName());
+        }
+        // end the shared time-box for all player strategies
+        return moves;
+    }
+
+    /**
+     * Prepare the decision of a strategy.
+     * 
+     * @param player
+     *            The player.
+     * @param playerLogic
+     *            The player's strategy.
+     * @param changes
+     *            What happened during the turn, to be delivered to the strategy along with anything from previous
+     *            turns that it wasn't told about yet.
+     * @return The decision, ready to be run; null if the strategy is still busy with a previous decision that
+     *         ignored being halted.
+     */
+    private DecisionMakerUnit createUnit(final Player player, final DecisionMaker playerLogic,
+            final TurnChanges changes) {
+        Queue<TurnChanges> undelivered = this.undelivered.get(player);
+        if (undelivered == null) {
+            undelivered = new ConcurrentLinkedQueue<>();
+            this.undelivered.put(player, undelivered);
+        }
+        undelivered.add(changes);
+        final DecisionMakerUnit previous = this.latestUnits.get(player);
+        if (previous != null && previous.isRunning()) {
+            // the session can't be used by two decisions at once; the changes wait for the next decision
+            return null;
+        }
+        final DecisionMakerUnit unit = new DecisionMakerUnit(playerLogic, undelivered);
+        this.latestUnits.put(player, unit);
+        return unit;
+    }
+
+    /**
+     * Begin the time-box for a strategy.
+     * 
+     * @param timeout
+     *            How much wall-clock time the strategy has, including any time spent waiting for a free thread, in
+     *            nanoseconds.
+     * @param budget
+     *            How much time the strategy has for its decision alone, in nanoseconds.
+     * @param timer
+     *            Measures the decision.
+     * @return The deadline, with the budget in CPU time if so configured.
+     */
+    private Deadline createDeadline(final long timeout, final long budget, final DecisionTimer timer) {
+        if (this.cpuTimed) {
+            return new Deadline(timeout * GameProperties.CPU_TIMEOUT_WALL_FACTOR, budget, -1, timer,
+                    this.properties);
+        } else {
+            return new Deadline(timeout, -1, budget, timer, this.properties);
+        }
+    }
+
+    /**
+     * How much time the strategy has for its next decision.
+     * 
+     * @param player
+     *            The player.
+     * @return The timeout, plus whatever time the strategy has in the bank. In nanoseconds.
+     */
+    private long getBudget(final Player player) {
+        final Long bank = this.banks.get(player);
+        final long timeout = TimeUnit.MILLISECONDS.toNanos(this.playerTimeoutInMilliseconds);
+        return bank == null ? timeout : timeout + bank;
     }
 
     public GameProgressListener getReport() {
@@ -239,10 +501,74 @@ public class CommandDistributor {
         commands.add(command);
     }
 
+    private void recordDecision(final DecisionMaker playerLogic, final DecisionTimer timer) {
+        if (!timer.isStarted()) {
+            // timed out while waiting for a free thread; counted as a timeout, there is no latency to speak of
+            return;
+        }
+        final long latency = timer.getWallTime();
+        playerLogic.getMetrics().recordDecision(latency);
+        if (this.timings != null) {
+            this.timings.recordDecision(playerLogic.getPlayer(), latency);
+        }
+    }
+
     private void removePlayer(Player player) {
         CommandDistributor.LOGGER.debug("Removing player {}.", player.getName());
         final DecisionMaker dm = this.players.remove(player);
         dm.terminate();
         this.trackers.remove(player);
+        this.banks.remove(player);
+        this.undelivered.remove(player);
+        this.latestUnits.remove(player);
+    }
+
+    /**
+     * Start recording how long the strategies take to decide.
+     * 
+     * @param timings
+     *            Where to record the wall-clock time of every decision that started, including those that timed out.
+     */
+    public void setTimings(final GameTimings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Don't let the strategy decide in this turn, since it is still busy with a previous decision. Counts as a
+     * timeout.
+     * 
+     * @param player
+     *            The player.
+     * @return The decision forced upon the strategy.
+     */
+    private Action skipDecision(final Player player) {
+        final DecisionMaker playerLogic = this.players.get(player);
+        playerLogic.getMetrics().recordTimeout();
+        playerLogic.halt();
+        if (this.properties.isTimeoutBanked()) {
+            this.banks.put(player, 0L);
+        }
+        CommandDistributor.LOGGER.warn("Player {} is still deciding a previous turn, STAY forced.", player.getName());
+        return Action.NOTHING;
+    }
+
+    /**
+     * Put the time that the strategy didn't use for its decision in the bank, if banking is enabled.
+     * 
+     * @param player
+     *            The player.
+     * @param timer
+     *            Measured the decision.
+     * @param budget
+     *            How much time the strategy had for the decision, in nanoseconds.
+     */
+    private void updateBank(final Player player, final DecisionTimer timer, final long budget) {
+        if (!this.properties.isTimeoutBanked()) {
+            return;
+        }
+        final long used = this.cpuTimed ? timer.getCpuTime() : timer.getWallTime();
+        // strategies that failed to decide in time have nothing left
+        final long unused = timer.isStopped() ? Math.max(0, budget - used) : 0;
+        this.banks.put(player, unused);
     }
 }
@@ -0,0 +1,135 @@
+package org.drooms.impl.logic;
+
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.impl.util.GameProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The end of a time-box for strategy decisions. When garbage collection is excluded from the timeouts, the deadline
+ * can be moved further into the future by as much time as the JVM spent collecting garbage since the time-box began.
+ *
+ * <p>
+ * The time-box may also limit the time spent on the decision itself, as measured by a {@link DecisionTimer} from the
+ * moment the decision starts; either the CPU time, or the wall-clock time. The deadline then passes either when that
+ * time runs out, or when the time-box does, whichever comes first. A decision that waits for a thread to become free
+ * therefore still gets its full budget, while the time-box caps how long all the decisions take together.
+ * </p>
+ */
+class Deadline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Deadline.class);
+
+    /**
+     * Shortest time to wait before checking the CPU time again, so that the checks don't spin.
+     */
+    private static final long MINIMUM_CPU_WAIT = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final boolean gcExcluded;
+    private final long cpuBudget;
+    private long wallBudget;
+    private final DecisionTimer timer;
+    private long end;
+    private long collectionTime;
+
+    /**
+     * Begin the time-box.
+     *
+     * @param timeout
+     *            Length of the time-box in nanoseconds of wall-clock time.
+     * @param cpuBudget
+     *            How much CPU time the decision may take, in nanoseconds; negative for no limit.
+     * @param wallBudget
+     *            How much wall-clock time the decision may take once it starts, in nanoseconds; negative for no limit.
+     * @param timer
+     *            Measures the decision. Only used when either budget is limited.
+     * @param properties
+     *            Configuration of the game, telling whether garbage collection is excluded from the timeouts.
+     */
+    public Deadline(final long timeout, final long cpuBudget, final long wallBudget, final DecisionTimer timer,
+            final GameProperties properties) {
+        this.gcExcluded = properties.isGcExcludedFromTimeout();
+        this.collectionTime = this.gcExcluded ? GcScheduler.getCollectionTime() : 0;
+        this.end = System.nanoTime() + timeout;
+        this.cpuBudget = cpuBudget;
+        this.wallBudget = wallBudget;
+        this.timer = timer;
+    }
+
+    /**
+     * Move the deadline by the time that the JVM has spent collecting garbage since the last time. Does nothing unless
+     * garbage collection is excluded from the timeouts.
+     *
+     * @return True if the deadline moved.
+     */
+    private boolean excludeCollections() {
+        if (!this.gcExcluded) {
+            return false;
+        }
+        final long newCollectionTime = GcScheduler.getCollectionTime();
+        final long paused = newCollectionTime - this.collectionTime;
+        this.collectionTime = newCollectionTime;
+        if (paused <= 0) {
+            return false;
+        }
+        Deadline.LOGGER.debug("Deadline moved by {} ms due to garbage collection.",
+                TimeUnit.NANOSECONDS.toMillis(paused));
+        this.end += paused;
+        if (this.isWallLimited()) {
+            this.wallBudget += paused;
+        }
+        return true;
+    }
+
+    /**
+     * How long to wait before checking whether the deadline has passed.
+     *
+     * @return Time in nanoseconds, never negative.
+     */
+    public long getRemaining() {
+        long wallRemaining = Math.max(0, this.end - System.nanoTime());
+        if (this.isWallLimited()) {
+            // a decision that has not started yet can not end before its budget is spent
+            final long decisionRemaining = this.timer.isStarted() ? this.wallBudget - this.timer.getWallTime()
+                    : this.wallBudget;
+            wallRemaining = Math.min(wallRemaining, Math.max(0, decisionRemaining));
+        }
+        if (!this.isCpuLimited()) {
+            return wallRemaining;
+        }
+        // the thread can not spend more CPU time than wall-clock time
+        final long cpuRemaining = Math.max(Deadline.MINIMUM_CPU_WAIT, this.cpuBudget - this.timer.getCpuTime());
+        return Math.min(wallRemaining, cpuRemaining);
+    }
+
+    private boolean isCpuLimited() {
+        return this.cpuBudget >= 0;
+    }
+
+    private boolean isOver() {
+        if (this.end - System.nanoTime() <= 0) {
+            return true;
+        }
+        return this.isWallLimited() && this.timer.isStarted() && this.timer.getWallTime() >= this.wallBudget;
+    }
+
+    /**
+     * Whether the time is up.
+     *
+     * @return True if the time-box, or the wall-clock time or the CPU time of the decision, has run out.
+     */
+    public boolean isPassed() {
+        if (this.isCpuLimited() && this.timer.getCpuTime() >= this.cpuBudget) {
+            return true;
+        } else if (!this.isOver()) {
+            return false;
+        }
+        return !this.excludeCollections() || this.isOver();
+    }
+
+    private boolean isWallLimited() {
+        return this.wallBudget >= 0;
+    }
+
+}
@@ -1,12 +1,12 @@
 package org.drooms.impl.logic;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import org.codehaus.plexus.classworlds.strategy.Strategy;
@@ -26,6 +26,7 @@ import org.drooms.impl.logic.facts.CurrentPlayer;
 import org.drooms.impl.logic.facts.CurrentTurn;
 import org.drooms.impl.logic.facts.GameProperty;
 import org.drooms.impl.logic.facts.Wall;
+import org.drooms.impl.logic.facts.WallGrid;
 import org.drooms.impl.logic.facts.Worm;
 import org.drooms.impl.util.GameProperties;
 import org.kie.api.KieServices;
@@ -62,15 +63,26 @@ import org.slf4j.LoggerFactory;
  * </ul>
  * 
  * <p>
+ * Events are only kept in the entry points for as many turns as {@link GameProperties#getEventRetention(String)}
+ * says, then they are deleted by an {@link EventRetention}.
+ * </p>
+ * 
+ * <p>
  * This class provides the following Drools globals, if declared in the strategy:
  * </p>
  * 
  * <ul>
  * <li>'logger' implementation of the {@link Logger} interface, to use for logging from within the rules.</li>
  * <li>'tracker' instance of the {@link PathTracker}, to facilitate path-finding in the rules.</li>
+ * <li>'walls' instance of the {@link WallGrid}, when {@link GameProperties#isWallGridUsed()}.</li>
  * </ul>
  * 
  * <p>
+ * When {@link GameProperties#isProfileRecorded()}, the rules of the strategy are profiled by a {@link RuleProfiler}
+ * and the profile is written into the report folder when the game is over.
+ * </p>
+ * 
+ * <p>
  * Your strategies can be validated for all these - just make your tests extend {@link DroomsTestHelper}.
  * </p>
  * 
@@ -82,7 +94,10 @@ import org.slf4j.LoggerFactory;
  * <li>{@link GameProperty}, many. Will never change or be removed.</li>
  * <li>{@link CurrentPlayer}, once. Will never change or be removed.</li>
  * <li>{@link CurrentTurn}, once. Will change with every turn.</li>
- * <li>{@link Wall}, many. Will remain constant over the whole game.</li>
+ * <li>{@link Wall}, many. Will remain constant over the whole game. When {@link GameProperties#isWallGridUsed()}, only
+ * the walls within {@link GameProperties#getWallRadius()} of the player's worm are there, kept by {@link NearbyWalls}
+ * as the worm moves.</li>
+ * <li>{@link WallGrid}, once, only when {@link GameProperties#isWallGridUsed()}. Will never change or be removed.</li>
  * <li>{@link Worm}, many. Will be added and removed as the worms will move, but never modified.</li>
  * </ul>
  * 
@@ -91,7 +106,56 @@ public class DecisionMaker implements Channel {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DecisionMaker.class);
 
-    private static void setGlobal(final KieSession session, final String global, final Object value) {
+    /**
+     * Prepare a new session for the player's strategy, with all the facts that stay the same for the whole game.
+     * 
+     * @param p
+     *            The player.
+     * @param playground
+     *            The playground on which the game is happening.
+     * @param properties
+     *            Configuration of the game.
+     * @return Session with the {@link Wall} or {@link WallGrid}, and {@link GameProperty} facts in it.
+     */
+    static KieSession createSession(final Player p, final Playground playground, final GameProperties properties) {
+        final KieSessionConfiguration config = KieServices.Factory.get().newKieSessionConfiguration();
+        config.setOption(ClockTypeOption.get("pseudo"));
+        final KieSession session = p.constructKieBase().newKieSession(config, null);
+        if (properties.isWallGridUsed()) {
+            session.insert(new WallGrid(playground));
+        } else {
+            DecisionMaker.insertWalls(session, playground);
+        }
+        // insert info about the game configuration
+        session.insert(new GameProperty(GameProperty.Name.MAX_TURNS, properties.getMaximumTurns()));
+        session.insert(new GameProperty(GameProperty.Name.MAX_INACTIVE_TURNS, properties.getMaximumInactiveTurns()));
+        session.insert(new GameProperty(GameProperty.Name.DEAD_WORM_BONUS, properties.getDeadWormBonus()));
+        session.insert(new GameProperty(GameProperty.Name.TIMEOUT_IN_SECONDS, properties
+                .getStrategyTimeoutInSeconds()));
+        session.insert(new GameProperty(GameProperty.Name.TIMEOUT_IN_MILLISECONDS, properties
+                .getStrategyTimeoutInMilliseconds()));
+        return session;
+    }
+
+    private static void insertWalls(final KieSession session, final Playground playground) {
+        /*
+         * insert playground walls; make sure the playground is always
+         * surrounded with walls.
+         */
+        for (int x = -1; x <= playground.getWidth(); x++) {
+            for (int y = -1; y <= playground.getHeight(); y++) {
+                Node n = playground.getNodeAt(x, y);
+                if (n == null) {
+                    n = new Node(Type.WALL, x, y);
+                }
+                if (n.getType() == Type.WALL) {
+                    session.insert(new Wall(n));
+                }
+            }
+        }
+    }
+
+    static void setGlobal(final KieSession session, final String global, final Object value) {
         try {
             session.setGlobal(global, value);
         } catch (final RuntimeException ex) {
@@ -100,21 +164,34 @@ public class DecisionMaker implements Channel {
     }
 
     private final FactHandle currentTurn;
-    private final EntryPoint gameEvents, playerEvents, rewardEvents;
+    private final EventRetention gameEvents, playerEvents, rewardEvents;
     private final Map<Player, Map<Node, FactHandle>> handles = new HashMap<Player, Map<Node, FactHandle>>();
-    private final boolean isDisposed = false;
+    private volatile boolean isDisposed = false;
+    private boolean isDeciding = false;
+    private final boolean isPooled;
     private Action latestDecision = null;
+    private final StrategyMetrics metrics;
+    private final NearbyWalls nearbyWalls;
     private final Player player;
     private final KieSession session;
+    private final PathTracker tracker;
 
     private final KieRuntimeLogger sessionAudit;
+    private final RuleProfiler profiler;
+    private final File profileFile;
 
     public DecisionMaker(final Player p, final PathTracker tracker, final GameProperties properties,
             final File reportFolder) {
         this.player = p;
-        final KieSessionConfiguration config = KieServices.Factory.get().newKieSessionConfiguration();
-        config.setOption(ClockTypeOption.get("pseudo"));
-        this.session = p.constructKieBase().newKieSession(config, null);
+        this.tracker = tracker;
+        this.metrics = StrategyMetrics.forPlayer(p, properties.isMetricsPublished());
+        final Playground playground = tracker.getPlayground();
+        this.isPooled = properties.isSessionPooled();
+        if (this.isPooled) {
+            this.session = SessionPool.INSTANCE.acquire(p, playground, properties);
+        } else {
+            this.session = DecisionMaker.createSession(p, playground, properties);
+        }
         if (reportFolder != null) {
             Path reportFile = Paths.get(reportFolder.getPath(), player.getName());
             this.sessionAudit = KieServices.Factory.get().getLoggers().newFileLogger(session, reportFile.toString());
@@ -123,72 +200,108 @@ public class DecisionMaker implements Channel {
             this.sessionAudit = null;
             DecisionMaker.LOGGER.info("Auditing the Drools session is disabled.");
         }
+        if (reportFolder != null && properties.isProfileRecorded()) {
+            this.profiler = new RuleProfiler();
+            this.profiler.attach(this.session);
+            this.profileFile = new File(reportFolder, this.player.getName() + "-profile.xml");
+        } else {
+            this.profiler = null;
+            this.profileFile = null;
+        }
         // this is where we listen for decisions
         this.session.registerChannel("decision", this);
         // this is where we will send events from the game
-        this.rewardEvents = this.session.getEntryPoint("rewardEvents");
-        this.gameEvents = this.session.getEntryPoint("gameEvents");
-        this.playerEvents = this.session.getEntryPoint("playerEvents");
+        this.rewardEvents = new EventRetention(this.session.getEntryPoint("rewardEvents"),
+                properties.getEventRetention("rewardEvents"));
+        this.gameEvents = new EventRetention(this.session.getEntryPoint("gameEvents"),
+                properties.getEventRetention("gameEvents"));
+        this.playerEvents = new EventRetention(this.session.getEntryPoint("playerEvents"),
+                properties.getEventRetention("playerEvents"));
         // configure the globals for the session
         DecisionMaker.setGlobal(this.session, "tracker", tracker);
         DecisionMaker.setGlobal(this.session, "logger",
                 LoggerFactory.getLogger("org.drooms.players." + this.player.getName()));
-        /*
-         * insert playground walls; make sure the playground is always
-         * surrounded with walls.
-         */
-        final Playground playground = tracker.getPlayground();
-        for (int x = -1; x <= playground.getWidth(); x++) {
-            for (int y = -1; y <= playground.getHeight(); y++) {
-                Node n = playground.getNodeAt(x, y);
-                if (n == null) {
-                    n = new Node(Type.WALL, x, y);
-                }
-                if (n.getType() == Type.WALL) {
-                    this.session.insert(new Wall(n));
-                }
-            }
+        if (properties.isWallGridUsed()) {
+            final WallGrid walls = new WallGrid(playground);
+            DecisionMaker.setGlobal(this.session, "walls", walls);
+            this.nearbyWalls = new NearbyWalls(this.session, playground, walls, properties.getWallRadius());
+        } else {
+            this.nearbyWalls = null;
         }
-        // insert info about the game configuration
-        this.session.insert(new GameProperty(GameProperty.Name.MAX_TURNS, properties.getMaximumTurns()));
-        this.session
-                .insert(new GameProperty(GameProperty.Name.MAX_INACTIVE_TURNS, properties.getMaximumInactiveTurns()));
-        this.session.insert(new GameProperty(GameProperty.Name.DEAD_WORM_BONUS, properties.getDeadWormBonus()));
-        this.session.insert(new GameProperty(GameProperty.Name.TIMEOUT_IN_SECONDS, properties
-                .getStrategyTimeoutInSeconds()));
         // insert info about the game status
         this.currentTurn = this.session.insert(new CurrentTurn(0));
         this.session.insert(new CurrentPlayer(p));
     }
 
-    /**
-     * Call on the Drools engine to make the decision on worm's next move,
-     * according to the {@link Player}'s {@link Strategy}.
-     * 
-     * @return The move. STAY will be chosen when the strategy doesn't respond.
-     */
-    public Action decideNextMove() {
-        this.validate();
+    private Action decide() {
         DecisionMaker.LOGGER.trace("Player {} advancing time. ", new Object[]{this.player.getName()});
         final SessionPseudoClock clock = this.session.getSessionClock();
         clock.advanceTime(1, TimeUnit.MINUTES);
+        if (this.nearbyWalls != null) {
+            this.nearbyWalls.moveTo(this.tracker.getCurrentPosition());
+        }
         // decide
         DecisionMaker.LOGGER.trace("Player {} deciding. ", new Object[]{this.player.getName()});
         this.latestDecision = null;
-        this.session.fireAllRules();
+        final long firingStart = System.nanoTime();
+        final int rulesFired = this.session.fireAllRules();
+        if (this.profiler != null) {
+            this.profiler.recordDecision(System.nanoTime() - firingStart);
+        }
         // increase turn number
         final CurrentTurn turn = (CurrentTurn) this.session.getObject(this.currentTurn);
         this.session.update(this.currentTurn, new CurrentTurn(turn.getNumber() + 1));
+        // forget events older than the retention window
+        final int expired = this.gameEvents.nextTurn() + this.playerEvents.nextTurn() + this.rewardEvents.nextTurn();
+        DecisionMaker.LOGGER.trace("Player {} forgot {} events.", this.player.getName(), expired);
+        this.metrics.recordFiring(rulesFired, this.getFactCount());
         // store the decision
         if (this.latestDecision == null) {
-            DecisionMaker.LOGGER.info("Player {} didn't make a decision. STAY forced.", this.player.getName());
+            DecisionMaker.LOGGER.debug("Player {} didn't make a decision. STAY forced.", this.player.getName());
             return Action.NOTHING;
         } else {
-            DecisionMaker.LOGGER.info("Player {} final decision is {}. ", this.player.getName(), this.latestDecision);
+            DecisionMaker.LOGGER.debug("Player {} final decision is {}. ", this.player.getName(), this.latestDecision);
             return this.latestDecision;
         }
     }
 
+    /**
+     * Call on the Drools engine to make the decision on worm's next move,
+     * according to the {@link Player}'s {@link Strategy}.
+     * 
+     * @return The move. STAY will be chosen when the strategy doesn't respond.
+     */
+    public Action decideNextMove() {
+        synchronized (this) {
+            this.validate();
+            this.isDeciding = true;
+        }
+        try {
+            return this.decide();
+        } finally {
+            synchronized (this) {
+                this.isDeciding = false;
+            }
+        }
+    }
+
+    private long getFactCount() {
+        long count = 0;
+        for (final EntryPoint entryPoint : this.session.getEntryPoints()) {
+            count += entryPoint.getFactCount();
+        }
+        return count;
+    }
+
+    /**
+     * Retrieve the metrics of the player's strategy.
+     * 
+     * @return Metrics, shared with other games of the player when published over JMX.
+     */
+    public StrategyMetrics getMetrics() {
+        return this.metrics;
+    }
+
     public Player getPlayer() {
         return this.player;
     }
@@ -231,32 +344,44 @@ public class DecisionMaker implements Channel {
     }
 
     public void notifyOfPlayerMove(final PlayerActionEvent evt) {
-        final Player p = evt.getPlayer();
         this.playerEvents.insert(evt);
-        // update player positions
-        if (!this.handles.containsKey(p)) {
-            this.handles.put(p, new HashMap<Node, FactHandle>());
-        }
-        final Map<Node, FactHandle> playerHandles = this.handles.get(p);
-        final Set<Node> untraversedNodes = new HashSet<Node>(playerHandles.keySet());
-        for (final Node n : evt.getNodes()) {
-            if (!playerHandles.containsKey(n)) { // worm occupies a new node
-                final FactHandle fh = this.session.insert(new Worm(p, n));
-                playerHandles.put(n, fh);
-            }
-            untraversedNodes.remove(n);
-        }
-        for (final Node n : untraversedNodes) { // worm no longer
-                                                // occupies a node
-            final FactHandle fh = playerHandles.remove(n);
-            this.session.delete(fh);
-        }
     }
 
     public void notifyOfSurvivalReward(final SurvivalRewardEvent evt) {
         this.rewardEvents.insert(evt);
     }
 
+    /**
+     * Update the {@link Worm} facts of all the worms at once, for all the changes that happened during the turn.
+     * 
+     * @param deltas
+     *            How the worms changed since the previous turn.
+     */
+    public void notifyOfWormMoves(final Collection<WormDelta> deltas) {
+        for (final WormDelta delta : deltas) {
+            final Player p = delta.getPlayer();
+            Map<Node, FactHandle> playerHandles = this.handles.get(p);
+            if (playerHandles == null) {
+                if (delta.getEnteredNodes().isEmpty()) { // worm already removed from the WM
+                    continue;
+                }
+                playerHandles = new HashMap<Node, FactHandle>();
+                this.handles.put(p, playerHandles);
+            }
+            for (final Node n : delta.getLeftNodes()) {
+                final FactHandle fh = playerHandles.remove(n);
+                if (fh != null) {
+                    this.session.delete(fh);
+                }
+            }
+            for (final Node n : delta.getEnteredNodes()) {
+                if (!playerHandles.containsKey(n)) {
+                    playerHandles.put(n, this.session.insert(new Worm(p, n)));
+                }
+            }
+        }
+    }
+
     @Override
     public void send(final Object object) {
         this.validate();
@@ -280,18 +405,48 @@ public class DecisionMaker implements Channel {
      * @return False if already terminated.
      */
     public boolean terminate() {
-        if (this.isDisposed) {
-            DecisionMaker.LOGGER.warn("Player {} already terminated.", new Object[]{this.player.getName()});
-            return false;
-        } else {
-            DecisionMaker.LOGGER.info("Terminating player {}.", new Object[]{this.player.getName()});
-            if (this.sessionAudit != null) {
-                this.sessionAudit.close();
+        final boolean isDeciding;
+        synchronized (this) {
+            if (this.isDisposed) {
+                DecisionMaker.LOGGER.warn("Player {} already terminated.", new Object[]{this.player.getName()});
+                return false;
+            }
+            this.isDisposed = true;
+            isDeciding = this.isDeciding;
+        }
+        DecisionMaker.LOGGER.info("Terminating player {}.", new Object[]{this.player.getName()});
+        if (this.sessionAudit != null) {
+            this.sessionAudit.close();
+        }
+        this.halt();
+        if (this.profiler != null) {
+            this.profiler.detach(this.session);
+            try {
+                this.profiler.write(this.profileFile);
+            } catch (final IOException ex) {
+                DecisionMaker.LOGGER.warn("Failed writing the profile of player {}.", this.player.getName(), ex);
+            }
+        }
+        if (isDeciding) {
+            // halt() doesn't wait for the rules to stop firing, so the session can not be reset for another game
+            DecisionMaker.LOGGER.info("Player {} still deciding, its session will not be reused.",
+                    this.player.getName());
+            if (this.isPooled) {
+                SessionPool.INSTANCE.discard(this.session);
+            } else {
+                this.session.dispose();
             }
-            this.halt();
-            this.session.dispose();
             return true;
         }
+        if (this.nearbyWalls != null) {
+            this.nearbyWalls.clear();
+        }
+        if (this.isPooled) {
+            SessionPool.INSTANCE.release(this.session);
+        } else {
+            this.session.dispose();
+        }
+        return true;
     }
 
     private void validate() {
@@ -0,0 +1,93 @@
+package org.drooms.impl.logic;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Measures how much time a strategy has spent making a decision, both in wall-clock time and in CPU time of the thread
+ * making the decision. The measurement can be read from other threads while the decision is still being made.
+ */
+class DecisionTimer {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    /**
+     * Whether the JVM can measure CPU time of other threads.
+     *
+     * @return True if CPU time can be measured.
+     */
+    public static boolean isCpuTimeSupported() {
+        return DecisionTimer.THREADS.isThreadCpuTimeSupported() && DecisionTimer.THREADS.isThreadCpuTimeEnabled();
+    }
+
+    private volatile long threadId = -1;
+    private volatile long wallStart;
+    private volatile long cpuStart;
+    private volatile long wallTime = -1;
+    private volatile long cpuTime = -1;
+
+    /**
+     * CPU time spent on the decision so far.
+     *
+     * @return Time in nanoseconds; 0 if the decision was not yet started or the CPU time can not be measured.
+     */
+    public long getCpuTime() {
+        if (this.cpuTime >= 0) {
+            return this.cpuTime;
+        } else if (this.threadId < 0) {
+            return 0;
+        }
+        final long now = DecisionTimer.THREADS.getThreadCpuTime(this.threadId);
+        return now < 0 ? 0 : Math.max(0, now - this.cpuStart);
+    }
+
+    /**
+     * Wall-clock time spent on the decision so far.
+     *
+     * @return Time in nanoseconds; 0 if the decision was not yet started.
+     */
+    public long getWallTime() {
+        if (this.wallTime >= 0) {
+            return this.wallTime;
+        } else if (this.threadId < 0) {
+            return 0;
+        }
+        return System.nanoTime() - this.wallStart;
+    }
+
+    /**
+     * Whether the decision has started.
+     *
+     * @return True once {@link #start()} has been called.
+     */
+    public boolean isStarted() {
+        return this.threadId >= 0;
+    }
+
+    /**
+     * Whether the decision has been made.
+     *
+     * @return True once {@link #stop()} has been called.
+     */
+    public boolean isStopped() {
+        return this.wallTime >= 0;
+    }
+
+    /**
+     * Begin measuring. Must be called from the thread that will be making the decision.
+     */
+    public void start() {
+        this.wallStart = System.nanoTime();
+        this.cpuStart = Math.max(0, DecisionTimer.THREADS.getCurrentThreadCpuTime());
+        this.threadId = Thread.currentThread().getId();
+    }
+
+    /**
+     * Finish measuring. Must be called from the thread that made the decision.
+     */
+    public void stop() {
+        this.cpuTime = Math.max(0, DecisionTimer.THREADS.getCurrentThreadCpuTime() - this.cpuStart);
+        this.wallTime = System.nanoTime() - this.wallStart;
+    }
+
+}
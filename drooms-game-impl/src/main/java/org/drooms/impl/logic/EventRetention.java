@@ -0,0 +1,83 @@
+package org.drooms.impl.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Keeps the events in an entry point for a limited number of turns and then deletes them, so that the working memory
+ * and the cost of evaluating rules over the events don't grow with the length of the game. Strategies don't need to
+ * declare expiration of the events for that.
+ *
+ * <p>
+ * Events are grouped by the turn in which they were inserted. Events that the strategy deleted itself in the meantime
+ * are skipped.
+ * </p>
+ */
+class EventRetention {
+
+    private final EntryPoint entryPoint;
+    private final int turns;
+    private final Deque<List<FactHandle>> insertedPerTurn = new ArrayDeque<List<FactHandle>>();
+
+    /**
+     * Start keeping the events.
+     *
+     * @param entryPoint
+     *            Entry point into which the events are inserted.
+     * @param turns
+     *            For how many turns, including the current one, the events should be kept; 0 or less to keep them for
+     *            the whole game.
+     */
+    public EventRetention(final EntryPoint entryPoint, final int turns) {
+        this.entryPoint = entryPoint;
+        this.turns = turns;
+        if (this.isBounded()) {
+            this.insertedPerTurn.add(new ArrayList<FactHandle>());
+        }
+    }
+
+    /**
+     * Insert an event into the entry point, as having happened in the current turn.
+     *
+     * @param event
+     *            The event.
+     */
+    public void insert(final Object event) {
+        final FactHandle handle = this.entryPoint.insert(event);
+        if (this.isBounded()) {
+            this.insertedPerTurn.getLast().add(handle);
+        }
+    }
+
+    private boolean isBounded() {
+        return this.turns > 0;
+    }
+
+    /**
+     * Move on to the next turn, deleting the events that have been kept for long enough.
+     *
+     * @return How many events were deleted.
+     */
+    public int nextTurn() {
+        if (!this.isBounded()) {
+            return 0;
+        }
+        int deleted = 0;
+        this.insertedPerTurn.add(new ArrayList<FactHandle>());
+        while (this.insertedPerTurn.size() > this.turns) {
+            for (final FactHandle handle : this.insertedPerTurn.removeFirst()) {
+                if (this.entryPoint.getObject(handle) != null) { // not yet deleted by the strategy
+                    this.entryPoint.delete(handle);
+                    deleted++;
+                }
+            }
+        }
+        return deleted;
+    }
+
+}
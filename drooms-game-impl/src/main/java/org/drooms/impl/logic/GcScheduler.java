@@ -0,0 +1,81 @@
+package org.drooms.impl.logic;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.impl.util.GameProperties;
+import org.drooms.impl.util.GameProperties.GcPolicy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides whether garbage collection should be forced before the strategies start deciding, according to the
+ * {@link GcPolicy} of the game. Also measures how much time the JVM has spent collecting garbage, so that it can be
+ * excluded from the strategies' timeouts.
+ */
+class GcScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(GcScheduler.class);
+
+    /**
+     * Total time spent in garbage collection by the JVM so far, as reported by the {@link GarbageCollectorMXBean}s.
+     *
+     * @return Time in nanoseconds, with the resolution of milliseconds.
+     */
+    public static long getCollectionTime() {
+        long total = 0;
+        for (final GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            final long time = bean.getCollectionTime();
+            if (time > 0) { // -1 when not supported
+                total += time;
+            }
+        }
+        return TimeUnit.MILLISECONDS.toNanos(total);
+    }
+
+    private final GcPolicy policy;
+    private final int period;
+    private final double threshold;
+    private int turnsSinceCollection = 0;
+
+    public GcScheduler(final GameProperties properties) {
+        this.policy = properties.getGcPolicy();
+        this.period = properties.getGcPeriod();
+        this.threshold = properties.getGcThreshold();
+    }
+
+    /**
+     * Force garbage collection if the policy says so. To be called once at the beginning of every turn.
+     *
+     * @return True if garbage collection was forced.
+     */
+    public boolean beforeTurn() {
+        this.turnsSinceCollection++;
+        if (!this.isCollectionDue()) {
+            return false;
+        }
+        GcScheduler.LOGGER.debug("Forcing garbage collection after {} turns.", this.turnsSinceCollection);
+        System.gc();
+        this.turnsSinceCollection = 0;
+        return true;
+    }
+
+    private boolean isCollectionDue() {
+        switch (this.policy) {
+            case NONE:
+                return false;
+            case PERIODIC:
+                return this.turnsSinceCollection >= this.period;
+            case HEAP_THRESHOLD:
+                final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+                // maximum may be undefined, in which case the heap can only grow by as much as is committed
+                final long limit = heap.getMax() < 0 ? heap.getCommitted() : heap.getMax();
+                return heap.getUsed() >= limit * this.threshold;
+            default:
+                throw new IllegalStateException("Unknown garbage collection policy: " + this.policy);
+        }
+    }
+
+}
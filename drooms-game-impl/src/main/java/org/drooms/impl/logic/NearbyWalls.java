@@ -0,0 +1,94 @@
+package org.drooms.impl.logic;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Playground;
+import org.drooms.impl.logic.facts.Wall;
+import org.drooms.impl.logic.facts.WallGrid;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+
+/**
+ * Keeps {@link Wall} facts in the session only for the walls near the head of the player's worm, when all the walls
+ * are otherwise given to the strategy as a {@link WallGrid}. As the worm moves, walls that came within the radius are
+ * inserted and walls that fell out of it are deleted; walls that stay within the radius are left alone. Walls that
+ * the strategy deleted itself in the meantime are skipped.
+ */
+class NearbyWalls {
+
+    private final KieSession session;
+    private final Playground playground;
+    private final WallGrid grid;
+    private final int radius;
+    private Map<Node, FactHandle> handles = new HashMap<Node, FactHandle>();
+
+    /**
+     * Start keeping the walls.
+     *
+     * @param session
+     *            Session in which to keep the walls.
+     * @param playground
+     *            The playground on which the game is happening.
+     * @param grid
+     *            Walls of the playground.
+     * @param radius
+     *            How many nodes away from the head, in any direction, the walls should be kept; 0 for none.
+     */
+    public NearbyWalls(final KieSession session, final Playground playground, final WallGrid grid, final int radius) {
+        this.session = session;
+        this.playground = playground;
+        this.grid = grid;
+        this.radius = radius;
+    }
+
+    /**
+     * Delete all the walls that are kept.
+     */
+    public void clear() {
+        this.delete(this.handles.values());
+        this.handles.clear();
+    }
+
+    private void delete(final Collection<FactHandle> handles) {
+        for (final FactHandle handle : handles) {
+            if (this.session.getObject(handle) != null) { // not yet deleted by the strategy
+                this.session.delete(handle);
+            }
+        }
+    }
+
+    /**
+     * Keep only the walls near the new position of the head.
+     *
+     * @param head
+     *            Where the head of the worm is now; null when unknown, in which case nothing changes.
+     * @return How many walls are kept now.
+     */
+    public int moveTo(final Node head) {
+        if (head == null || this.radius < 1) {
+            return this.handles.size();
+        }
+        final Map<Node, FactHandle> previous = this.handles;
+        this.handles = new HashMap<Node, FactHandle>();
+        for (int x = head.getX() - this.radius; x <= head.getX() + this.radius; x++) {
+            for (int y = head.getY() - this.radius; y <= head.getY() + this.radius; y++) {
+                if (!this.grid.isWall(x, y)) {
+                    continue;
+                }
+                Node n = this.playground.getNodeAt(x, y);
+                if (n == null || n.getType() != Type.WALL) {
+                    n = new Node(Type.WALL, x, y);
+                }
+                final FactHandle handle = previous.remove(n);
+                this.handles.put(n, handle == null ? this.session.insert(new Wall(n)) : handle);
+            }
+        }
+        this.delete(previous.values());
+        return this.handles.size();
+    }
+
+}
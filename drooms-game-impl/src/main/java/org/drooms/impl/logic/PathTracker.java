@@ -1,53 +1,48 @@
 package org.drooms.impl.logic;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
 import org.drooms.api.Playground;
-import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath;
+import org.drooms.impl.util.shortestpath.CellGraph;
+import org.drooms.impl.util.shortestpath.DistanceTable;
+import org.drooms.impl.util.shortestpath.astar.IndexedAStar;
 import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath.VertexDistanceHeuristics;
 
-import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
-import edu.uci.ics.jung.algorithms.shortestpath.ShortestPathUtils;
-import edu.uci.ics.jung.graph.Graph;
-import edu.uci.ics.jung.graph.UndirectedGraph;
-import edu.uci.ics.jung.graph.UndirectedSparseGraph;
-import edu.uci.ics.jung.graph.util.Graphs;
-
 /**
  * A helper class for the strategies to be able to quickly and easily find paths
  * from one {@link Node} to another.
+ * 
+ * <p>
+ * The playground graph is indexed once, see {@link CellGraph}. Worms are tracked in a mask of blocked cells, which is
+ * updated incrementally as the worms move; only the cells that the worms entered or left, as told by the
+ * {@link WormDelta}s, are touched. Paths are then searched for on the static graph by {@link IndexedAStar}, skipping
+ * the blocked cells.
+ * </p>
+ * 
+ * <p>
+ * Distances on the empty playground come from a {@link DistanceTable} shared by all games on the same playground. They
+ * serve as the heuristic for the search, and when no worm stands in the way of the shortest path, that path is simply
+ * followed without searching at all.
+ * </p>
  */
 public class PathTracker {
 
-    private static UndirectedGraph<Node, Edge> cloneGraph(final Graph<Node, Edge> src,
-            final Collection<Node> removeNodes) {
-        final UndirectedGraph<Node, Edge> clone = new UndirectedSparseGraph<>();
-        for (final Edge e : src.getEdges()) {
-            final boolean isEdgeAdded = clone.addEdge(e, src.getIncidentVertices(e));
-            if (!isEdgeAdded) {
-                throw new IllegalStateException("Failed cloning graph. This surely is a bug in Drooms.");
-            }
-        }
-        for (final Node node : removeNodes) {
-            clone.removeVertex(node);
-        }
-        return Graphs.unmodifiableUndirectedGraph(clone);
-    }
-
-    private UndirectedGraph<Node, Edge> currentGraph;
-    private ShortestPath<Node, Edge> currentPath;
+    private final CellGraph grid;
+    private final int[] occupancy;
+    private final BitSet blocked;
+    private volatile int currentHead = CellGraph.NO_CELL;
     private Node currentPosition;
 
+    private final DistanceTable table;
+    private final IndexedAStar search;
+
     private final Player player;
     private final Playground playground;
 
@@ -62,14 +57,107 @@ public class PathTracker {
     public PathTracker(final Playground playground, final Player p) {
         this.playground = playground;
         this.player = p;
+        this.grid = new CellGraph(playground);
+        final int cellCount = this.grid.getCellCount();
+        this.occupancy = new int[cellCount];
+        this.blocked = new BitSet(cellCount);
+        this.table = DistanceTable.get(this.grid);
+        if (this.table == null) {
+            this.search = new IndexedAStar(this.grid, VertexDistanceHeuristics.EUCLIDEAN);
+        } else {
+            this.search = new IndexedAStar(this.grid, this.table);
+        }
+    }
+
+    private void enter(final Node n) {
+        final int index = this.grid.getIndex(n);
+        if (index == CellGraph.NO_CELL) {
+            return;
+        }
+        this.occupancy[index]++;
+        if (this.occupancy[index] == 1) {
+            this.blocked.set(index);
+        }
+    }
+
+    private void leave(final Node n) {
+        final int index = this.grid.getIndex(n);
+        if (index == CellGraph.NO_CELL) {
+            return;
+        }
+        this.occupancy[index]--;
+        if (this.occupancy[index] == 0) {
+            this.blocked.clear(index);
+        }
+    }
+
+    private List<Edge> find(final Node start, final Node end) {
+        // read once, so that the whole query sees the same head
+        final int head = this.currentHead;
+        final int source = this.grid.getIndex(start);
+        final int target = this.grid.getIndex(end);
+        if (source == CellGraph.NO_CELL || target == CellGraph.NO_CELL || source == target) {
+            return Collections.emptyList();
+        } else if (this.grid.getNode(source) == null || this.grid.getNode(target) == null) {
+            return Collections.emptyList();
+        } else if (this.isBlocked(source, head) || this.isBlocked(target, head)) {
+            return Collections.emptyList();
+        }
+        if (this.table != null) {
+            final int distance = this.table.getDistance(source, target);
+            if (distance == DistanceTable.UNREACHABLE) {
+                return Collections.emptyList();
+            }
+            final List<Edge> path = this.followTable(source, target, distance, head);
+            if (path != null) {
+                return path;
+            }
+        }
+        // the head is occupied by the worm, but the path must be able to start there
+        final int length = this.search.find(source, target, this.blocked, head);
+        if (length < 0) {
+            return Collections.emptyList();
+        }
+        final List<Edge> path = new ArrayList<Edge>(length);
+        for (int i = 0; i < length; i++) {
+            path.add(this.grid.getEdge(this.search.getPathSlot(i)));
+        }
+        return path;
+    }
+
+    /**
+     * Walk the shortest path on the empty playground, as long as no worms are in the way.
+     * 
+     * @return Null when the way is blocked.
+     */
+    private List<Edge> followTable(final int source, final int target, final int distance, final int head) {
+        final List<Edge> path = new ArrayList<Edge>(distance);
+        int current = source;
+        for (int remaining = distance - 1; remaining >= 0; remaining--) {
+            int next = CellGraph.NO_CELL;
+            final int lastSlot = this.grid.getLastNeighborSlot(current);
+            for (int slot = this.grid.getFirstNeighborSlot(current); slot < lastSlot; slot++) {
+                final int neighbor = this.grid.getNeighbor(slot);
+                if (!this.isBlocked(neighbor, head) && this.table.getDistance(neighbor, target) == remaining) {
+                    path.add(this.grid.getEdge(slot));
+                    next = neighbor;
+                    break;
+                }
+            }
+            if (next == CellGraph.NO_CELL) {
+                return null;
+            }
+            current = next;
+        }
+        return path;
     }
 
     /**
      * Retrieve the current position of the player's worm's head, that is the
-     * one found during the last {@link #movePlayers(Map)} call.
+     * one given during the last {@link #moveWorms(Collection, Node)} call.
      * 
-     * @return The position, or null if {@link #movePlayers(Map)} had never been
-     *         called before.
+     * @return The position, or null if {@link #moveWorms(Collection, Node)}
+     *         had never been called before.
      */
     public Node getCurrentPosition() {
         return this.currentPosition;
@@ -86,7 +174,7 @@ public class PathTracker {
      *         end. Empty if path cannot be found.
      */
     public List<Edge> getPath(final Node start, final Node end) {
-        return Collections.unmodifiableList(ShortestPathUtils.getPath(this.currentGraph, this.currentPath, start, end));
+        return Collections.unmodifiableList(this.find(start, end));
     }
 
     /**
@@ -125,30 +213,34 @@ public class PathTracker {
         return this.playground;
     }
 
+    private boolean isBlocked(final int index, final int head) {
+        /*
+         * the head node needs to remain, since otherwise there would be no path
+         * between the current position and any other position.
+         */
+        return index != head && this.blocked.get(index);
+    }
+
     /**
      * Update the internal state of this class so that future paths can avoid
      * places where the worms currently reside.
      * 
-     * @param newPositions
-     *            New current positions of all the worms.
+     * @param deltas
+     *            How the worms changed since the last call.
+     * @param position
+     *            Where the head of the player's worm is now.
      */
-    protected void movePlayers(final Map<Player, Deque<Node>> newPositions) {
-        final Set<Node> unavailable = new HashSet<>();
-        for (final Map.Entry<Player, Deque<Node>> entry : newPositions.entrySet()) {
-            final Deque<Node> playerNodes = entry.getValue();
-            unavailable.addAll(playerNodes);
-            if (entry.getKey() == this.player) {
-                /*
-                 * the head node needs to remain, since otherwise there would be
-                 * no path between the current position and any other position.
-                 */
-                unavailable.remove(playerNodes.getFirst());
+    protected void moveWorms(final Collection<WormDelta> deltas, final Node position) {
+        for (final WormDelta delta : deltas) {
+            for (final Node n : delta.getLeftNodes()) {
+                this.leave(n);
+            }
+            for (final Node n : delta.getEnteredNodes()) {
+                this.enter(n);
             }
         }
-        final Graph<Node, Edge> graphWithoutPlayers = this.playground.getGraph();
-        this.currentGraph = PathTracker.cloneGraph(graphWithoutPlayers, unavailable);
-        this.currentPath = new UnweightedAStarShortestPath<>(this.currentGraph, VertexDistanceHeuristics.EUCLIDEAN);
-        this.currentPosition = newPositions.get(this.player).getFirst();
+        this.currentPosition = position;
+        this.currentHead = this.grid.getIndex(position);
     }
 
 }
@@ -0,0 +1,237 @@
+package org.drooms.impl.logic;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.DefaultAgendaEventListener;
+import org.kie.api.event.rule.DefaultRuleRuntimeEventListener;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.ObjectUpdatedEvent;
+import org.kie.api.runtime.KieSession;
+
+/**
+ * Profiles the rules of a {@link org.drooms.api.Player}'s Strategy, so that the author can tell which rules are slow.
+ * It listens to the agenda and to the working memory of the session and records:
+ *
+ * <ul>
+ * <li>For every rule, how many matches its conditions created and how many of those were cancelled before firing;
+ * that is the work of the when-part. Then how many times the rule fired and how long its consequence took; that is
+ * the then-part.</li>
+ * <li>For every type of fact, such as {@link org.drooms.impl.logic.facts.Worm} or the events, how many facts were
+ * inserted, updated and deleted.</li>
+ * <li>How long the decisions took overall. The engine evaluates the conditions lazily while firing the rules, so the
+ * time that the decisions took outside of the consequences is mostly the when-part of all the rules together.</li>
+ * </ul>
+ *
+ * <p>
+ * Recording is a map lookup and a couple of increments per event, cheap enough to profile a whole tournament game.
+ * </p>
+ */
+class RuleProfiler {
+
+    private static class FactProfile {
+
+        private long inserted = 0;
+        private long updated = 0;
+        private long deleted = 0;
+
+    }
+
+    private static class RuleProfile {
+
+        private long created = 0;
+        private long cancelled = 0;
+        private long fired = 0;
+        private long time = 0;
+        private long maximumTime = 0;
+
+    }
+
+    private static final XMLOutputFactory FACTORY = XMLOutputFactory.newInstance();
+
+    private final Map<Rule, RuleProfile> rules = new LinkedHashMap<Rule, RuleProfile>();
+    private final Map<Class<?>, FactProfile> facts = new LinkedHashMap<Class<?>, FactProfile>();
+    private long firingStart;
+    private long decisions = 0;
+    private long decisionTime = 0;
+
+    private final DefaultAgendaEventListener agendaListener = new DefaultAgendaEventListener() {
+
+        @Override
+        public void afterMatchFired(final AfterMatchFiredEvent event) {
+            final long time = System.nanoTime() - RuleProfiler.this.firingStart;
+            final RuleProfile profile = RuleProfiler.this.getRule(event.getMatch().getRule());
+            profile.fired++;
+            profile.time += time;
+            profile.maximumTime = Math.max(profile.maximumTime, time);
+        }
+
+        @Override
+        public void beforeMatchFired(final BeforeMatchFiredEvent event) {
+            RuleProfiler.this.firingStart = System.nanoTime();
+        }
+
+        @Override
+        public void matchCancelled(final MatchCancelledEvent event) {
+            RuleProfiler.this.getRule(event.getMatch().getRule()).cancelled++;
+        }
+
+        @Override
+        public void matchCreated(final MatchCreatedEvent event) {
+            RuleProfiler.this.getRule(event.getMatch().getRule()).created++;
+        }
+
+    };
+
+    private final DefaultRuleRuntimeEventListener workingMemoryListener = new DefaultRuleRuntimeEventListener() {
+
+        @Override
+        public void objectDeleted(final ObjectDeletedEvent event) {
+            RuleProfiler.this.getFact(event.getOldObject()).deleted++;
+        }
+
+        @Override
+        public void objectInserted(final ObjectInsertedEvent event) {
+            RuleProfiler.this.getFact(event.getObject()).inserted++;
+        }
+
+        @Override
+        public void objectUpdated(final ObjectUpdatedEvent event) {
+            RuleProfiler.this.getFact(event.getObject()).updated++;
+        }
+
+    };
+
+    /**
+     * Start profiling the session.
+     *
+     * @param session
+     *            The session.
+     */
+    public void attach(final KieSession session) {
+        session.addEventListener(this.agendaListener);
+        session.addEventListener(this.workingMemoryListener);
+    }
+
+    /**
+     * Stop profiling the session, so that it can be reused without the profiler.
+     *
+     * @param session
+     *            The session.
+     */
+    public void detach(final KieSession session) {
+        session.removeEventListener(this.agendaListener);
+        session.removeEventListener(this.workingMemoryListener);
+    }
+
+    private FactProfile getFact(final Object fact) {
+        final Class<?> type = fact == null ? Object.class : fact.getClass();
+        FactProfile profile = this.facts.get(type);
+        if (profile == null) {
+            profile = new FactProfile();
+            this.facts.put(type, profile);
+        }
+        return profile;
+    }
+
+    private RuleProfile getRule(final Rule rule) {
+        RuleProfile profile = this.rules.get(rule);
+        if (profile == null) {
+            profile = new RuleProfile();
+            this.rules.put(rule, profile);
+        }
+        return profile;
+    }
+
+    /**
+     * Record a decision.
+     *
+     * @param time
+     *            How long the rules took to fire, in nanoseconds.
+     */
+    public void recordDecision(final long time) {
+        this.decisions++;
+        this.decisionTime += time;
+    }
+
+    /**
+     * Write the profile into a file.
+     *
+     * @param profileFile
+     *            Where to write the profile. Will be overwritten.
+     * @throws IOException
+     *             When the file cannot be written.
+     */
+    public void write(final File profileFile) throws IOException {
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(profileFile),
+                StandardCharsets.UTF_8))) {
+            this.write(w);
+        }
+    }
+
+    /**
+     * Write the profile as XML.
+     *
+     * @param w
+     *            Where to write the profile. Not closed.
+     * @throws IOException
+     *             When the profile cannot be written.
+     */
+    void write(final Writer w) throws IOException {
+        try {
+            final XMLStreamWriter xml = RuleProfiler.FACTORY.createXMLStreamWriter(w);
+            xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            xml.writeCharacters("\n");
+            xml.writeStartElement("profile");
+            xml.writeAttribute("unit", "ns");
+            xml.writeAttribute("decisions", String.valueOf(this.decisions));
+            xml.writeAttribute("time", String.valueOf(this.decisionTime));
+            for (final Map.Entry<Rule, RuleProfile> entry : this.rules.entrySet()) {
+                final RuleProfile profile = entry.getValue();
+                xml.writeCharacters("\n  ");
+                xml.writeEmptyElement("rule");
+                xml.writeAttribute("package", entry.getKey().getPackageName());
+                xml.writeAttribute("name", entry.getKey().getName());
+                xml.writeAttribute("matches", String.valueOf(profile.created));
+                xml.writeAttribute("cancelled", String.valueOf(profile.cancelled));
+                xml.writeAttribute("fired", String.valueOf(profile.fired));
+                xml.writeAttribute("time", String.valueOf(profile.time));
+                xml.writeAttribute("maximumTime", String.valueOf(profile.maximumTime));
+            }
+            for (final Map.Entry<Class<?>, FactProfile> entry : this.facts.entrySet()) {
+                final FactProfile profile = entry.getValue();
+                xml.writeCharacters("\n  ");
+                xml.writeEmptyElement("facts");
+                xml.writeAttribute("type", entry.getKey().getName());
+                xml.writeAttribute("inserted", String.valueOf(profile.inserted));
+                xml.writeAttribute("updated", String.valueOf(profile.updated));
+                xml.writeAttribute("deleted", String.valueOf(profile.deleted));
+            }
+            xml.writeCharacters("\n");
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.writeCharacters("\n");
+            xml.flush();
+        } catch (final XMLStreamException ex) {
+            throw new IOException("Failed writing the profile.", ex);
+        }
+    }
+
+}
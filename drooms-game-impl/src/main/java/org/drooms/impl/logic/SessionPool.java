@@ -0,0 +1,287 @@
+package org.drooms.impl.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.logic.facts.GameProperty;
+import org.drooms.impl.logic.facts.Wall;
+import org.drooms.impl.logic.facts.WallGrid;
+import org.drooms.impl.util.GameProperties;
+import org.kie.api.KieBase;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps Drools sessions between games, so that they need not be built and warmed up again for every game. A session
+ * can only be reused for the same strategy, on a playground with the same walls and with the same game properties; the
+ * {@link Wall}, {@link WallGrid} and {@link GameProperty} facts then stay in the session, while everything else is
+ * removed from it when it's returned to the pool. Walls that {@link NearbyWalls} keep near the worm must be removed
+ * before that.
+ *
+ * <p>
+ * Sessions are kept per compiled strategy, so once {@link org.drooms.util.KieBaseCache} compiles a strategy again,
+ * the sessions of its previous compilation are never handed out; they are disposed of the next time the strategy is
+ * asked for. Only a few idle sessions are kept for the same strategy and game, and only so many in total; the least
+ * recently used ones are disposed of first.
+ * </p>
+ *
+ * <p>
+ * The session clock is not reset between games, so strategies should not rely on absolute time.
+ * </p>
+ */
+class SessionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionPool.class);
+
+    /**
+     * How many idle sessions to keep for the same strategy and game.
+     */
+    private static final int MAX_IDLE_PER_KEY = 4;
+
+    /**
+     * How many idle sessions to keep in total.
+     */
+    private static final int MAX_IDLE = 32;
+
+    static final SessionPool INSTANCE = new SessionPool(SessionPool.MAX_IDLE_PER_KEY, SessionPool.MAX_IDLE);
+
+    private static List<Object> getKey(final Player p, final KieBase kbase, final Playground playground,
+            final GameProperties properties) {
+        final int width = playground.getWidth();
+        final int height = playground.getHeight();
+        final BitSet walls = new BitSet(width * height);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (!playground.isAvailable(x, y)) {
+                    walls.set(y * width + x);
+                }
+            }
+        }
+        return Arrays.<Object> asList(p.getStrategyReleaseId(), kbase, width, height, walls,
+                properties.getMaximumTurns(), properties.getMaximumInactiveTurns(), properties.getDeadWormBonus(),
+                properties.getStrategyTimeoutInMilliseconds(), properties.isWallGridUsed());
+    }
+
+    private static boolean isStatic(final Object fact) {
+        return fact instanceof Wall || fact instanceof WallGrid || fact instanceof GameProperty;
+    }
+
+    /**
+     * Remove all the facts that only make sense for one game, and forget whatever was left to do.
+     *
+     * @param session
+     *            The session to reset.
+     */
+    static void reset(final KieSession session) {
+        session.unregisterChannel("decision");
+        for (final EntryPoint entryPoint : session.getEntryPoints()) {
+            final Collection<FactHandle> handles = new ArrayList<FactHandle>(entryPoint.getFactHandles());
+            for (final FactHandle handle : handles) {
+                if (!SessionPool.isStatic(entryPoint.getObject(handle))) {
+                    entryPoint.delete(handle);
+                }
+            }
+        }
+        // the deletions must not trigger any rules
+        session.getAgenda().clear();
+        // don't keep the previous game in memory
+        DecisionMaker.setGlobal(session, "tracker", null);
+        DecisionMaker.setGlobal(session, "logger", null);
+        DecisionMaker.setGlobal(session, "walls", null);
+    }
+
+    private final int maxIdlePerKey;
+    private final int maxIdle;
+    private int idleCount = 0;
+    // in the order of access, so that the least recently used sessions are evicted first
+    private final Map<List<Object>, Deque<KieSession>> idle = new LinkedHashMap<List<Object>, Deque<KieSession>>(16,
+            0.75f, true);
+    private final Map<KieSession, List<Object>> leased = new IdentityHashMap<KieSession, List<Object>>();
+
+    /**
+     * Create an empty pool. Outside of tests, use {@link #INSTANCE}.
+     *
+     * @param maxIdlePerKey
+     *            How many idle sessions to keep for the same strategy and game.
+     * @param maxIdle
+     *            How many idle sessions to keep in total.
+     */
+    SessionPool(final int maxIdlePerKey, final int maxIdle) {
+        this.maxIdlePerKey = maxIdlePerKey;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Provide a session for the player's strategy. It will either be one kept from a previous game, or a brand new one.
+     *
+     * @param p
+     *            The player.
+     * @param playground
+     *            The playground on which the game is happening.
+     * @param properties
+     *            Configuration of the game.
+     * @return Session with only the {@link Wall} and {@link GameProperty} facts in it.
+     */
+    public KieSession acquire(final Player p, final Playground playground, final GameProperties properties) {
+        final KieBase kbase = p.constructKieBase();
+        final List<Object> key = SessionPool.getKey(p, kbase, playground, properties);
+        KieSession session;
+        synchronized (this) {
+            this.evictStale(p.getStrategyReleaseId(), kbase);
+            final Deque<KieSession> sessions = this.idle.get(key);
+            session = (sessions == null) ? null : sessions.poll();
+            if (session != null) {
+                this.idleCount--;
+                if (sessions.isEmpty()) {
+                    this.idle.remove(key);
+                }
+            }
+        }
+        if (session == null) {
+            // outside of the lock, so that games in parallel can build their sessions in parallel
+            SessionPool.LOGGER.debug("No pooled session for player {}, creating one.", p.getName());
+            session = DecisionMaker.createSession(p, playground, properties);
+        } else {
+            SessionPool.LOGGER.debug("Player {} reusing a pooled session.", p.getName());
+        }
+        this.lease(key, session);
+        return session;
+    }
+
+    /**
+     * Dispose of a session instead of returning it to the pool, such as when the strategy may still be using it.
+     *
+     * @param session
+     *            Session previously retrieved from {@link #acquire(Player, Playground, GameProperties)}.
+     */
+    public void discard(final KieSession session) {
+        synchronized (this) {
+            if (this.leased.remove(session) == null) {
+                throw new IllegalArgumentException("Session not acquired from the pool.");
+            }
+        }
+        session.dispose();
+    }
+
+    private void evict(final Deque<KieSession> sessions) {
+        sessions.removeLast().dispose();
+        this.idleCount--;
+    }
+
+    /**
+     * Dispose of the idle sessions of all the previous compilations of the strategy.
+     *
+     * @param strategy
+     *            The strategy.
+     * @param current
+     *            The current compilation of the strategy.
+     * @return How many sessions were disposed of.
+     */
+    synchronized int evictStale(final ReleaseId strategy, final KieBase current) {
+        int evicted = 0;
+        final Iterator<Map.Entry<List<Object>, Deque<KieSession>>> it = this.idle.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<List<Object>, Deque<KieSession>> entry = it.next();
+            if (entry.getKey().get(0).equals(strategy) && entry.getKey().get(1) != current) {
+                final Deque<KieSession> sessions = entry.getValue();
+                while (!sessions.isEmpty()) {
+                    this.evict(sessions);
+                    evicted++;
+                }
+                it.remove();
+            }
+        }
+        if (evicted > 0) {
+            SessionPool.LOGGER.debug("Disposed of {} sessions of a recompiled strategy {}.", evicted, strategy);
+        }
+        return evicted;
+    }
+
+    synchronized int getIdleCount() {
+        return this.idleCount;
+    }
+
+    /**
+     * Remember that the session is in use.
+     *
+     * @param key
+     *            Strategy and game that the session is for.
+     * @param session
+     *            The session.
+     */
+    synchronized void lease(final List<Object> key, final KieSession session) {
+        this.leased.put(session, key);
+    }
+
+    /**
+     * Keep an idle session, evicting the least recently used ones over the limits.
+     *
+     * @param key
+     *            Strategy and game that the session is for.
+     * @param session
+     *            The session, already reset.
+     */
+    synchronized void pool(final List<Object> key, final KieSession session) {
+        Deque<KieSession> sessions = this.idle.get(key);
+        if (sessions == null) {
+            sessions = new LinkedList<KieSession>();
+            this.idle.put(key, sessions);
+        }
+        sessions.push(session);
+        this.idleCount++;
+        if (sessions.size() > this.maxIdlePerKey) {
+            this.evict(sessions);
+        }
+        final Iterator<Deque<KieSession>> leastRecentlyUsed = this.idle.values().iterator();
+        while (this.idleCount > this.maxIdle) {
+            final Deque<KieSession> oldest = leastRecentlyUsed.next();
+            while (!oldest.isEmpty() && this.idleCount > this.maxIdle) {
+                this.evict(oldest);
+            }
+            if (oldest.isEmpty()) {
+                leastRecentlyUsed.remove();
+            }
+        }
+    }
+
+    /**
+     * Return the session to the pool, for another game to use. Sessions that fail to reset are disposed of instead.
+     *
+     * @param session
+     *            Session previously retrieved from {@link #acquire(Player, Playground, GameProperties)}.
+     */
+    public void release(final KieSession session) {
+        final List<Object> key;
+        synchronized (this) {
+            key = this.leased.remove(session);
+        }
+        if (key == null) {
+            throw new IllegalArgumentException("Session not acquired from the pool.");
+        }
+        // outside of the lock, since clearing a whole game out of the session keeps other games waiting otherwise
+        try {
+            SessionPool.reset(session);
+        } catch (final RuntimeException ex) {
+            SessionPool.LOGGER.warn("Failed resetting the session, disposing of it.", ex);
+            session.dispose();
+            return;
+        }
+        this.pool(key, session);
+    }
+
+}
@@ -0,0 +1,199 @@
+package org.drooms.impl.logic;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.drooms.api.Player;
+import org.drooms.impl.util.TimingHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of how a {@link Player}'s Strategy performs: how long it takes to decide, how many rules fire, how large
+ * its working memory grows and how often it fails to decide. {@link DecisionMaker} and {@link CommandDistributor}
+ * record into it as the game goes on.
+ *
+ * <p>
+ * When published, the metrics are registered with the platform MBean server as
+ * <code>org.drooms:type=StrategyMetrics,player=...</code>, so that long tournaments can be watched with standard JMX
+ * tools. Every player then has a single instance for all the games it plays, even concurrent ones.
+ * </p>
+ */
+public class StrategyMetrics implements StrategyMetricsMXBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StrategyMetrics.class);
+
+    private static final ConcurrentMap<String, StrategyMetrics> PUBLISHED = new ConcurrentHashMap<>();
+
+    /**
+     * Retrieve the metrics for a player.
+     *
+     * @param p
+     *            The player.
+     * @param published
+     *            Whether the metrics should be published over JMX.
+     * @return When published, the same instance for every game of the player; otherwise a new instance.
+     */
+    static StrategyMetrics forPlayer(final Player p, final boolean published) {
+        if (!published) {
+            return new StrategyMetrics(p.getName());
+        }
+        final StrategyMetrics existing = StrategyMetrics.PUBLISHED.get(p.getName());
+        if (existing != null) {
+            return existing;
+        }
+        final StrategyMetrics created = new StrategyMetrics(p.getName());
+        final StrategyMetrics raced = StrategyMetrics.PUBLISHED.putIfAbsent(p.getName(), created);
+        if (raced != null) {
+            return raced;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(created, StrategyMetrics.getName(p));
+        } catch (final JMException ex) {
+            StrategyMetrics.LOGGER.warn("Failed publishing metrics of player {}.", p.getName(), ex);
+        }
+        return created;
+    }
+
+    /**
+     * Name under which the player's metrics are published.
+     *
+     * @param p
+     *            The player.
+     * @return The name.
+     */
+    public static ObjectName getName(final Player p) {
+        try {
+            return new ObjectName("org.drooms:type=StrategyMetrics,player=" + ObjectName.quote(p.getName()));
+        } catch (final JMException ex) {
+            throw new IllegalArgumentException("Invalid player name: " + p.getName(), ex);
+        }
+    }
+
+    private final String player;
+    private final TimingHistogram latencies = new TimingHistogram();
+    private long decisions = 0;
+    private long timeouts = 0;
+    private long errors = 0;
+    private long factCount = 0;
+    private int rulesFiredLastTurn = 0;
+    private long rulesFired = 0;
+    private long rulesFiredTurns = 0;
+
+    private StrategyMetrics(final String player) {
+        this.player = player;
+    }
+
+    @Override
+    public synchronized long getDecisions() {
+        return this.decisions;
+    }
+
+    @Override
+    public synchronized long getErrors() {
+        return this.errors;
+    }
+
+    @Override
+    public synchronized long getFactCount() {
+        return this.factCount;
+    }
+
+    @Override
+    public synchronized long getMaxLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.latencies.getMax());
+    }
+
+    @Override
+    public synchronized long getMeanLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.latencies.getMean());
+    }
+
+    @Override
+    public synchronized long getMedianLatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.latencies.getValueAtPercentile(50));
+    }
+
+    @Override
+    public synchronized long getP99LatencyMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(this.latencies.getValueAtPercentile(99));
+    }
+
+    @Override
+    public String getPlayer() {
+        return this.player;
+    }
+
+    @Override
+    public synchronized int getRulesFiredLastTurn() {
+        return this.rulesFiredLastTurn;
+    }
+
+    @Override
+    public synchronized double getRulesFiredMean() {
+        return this.rulesFiredTurns == 0 ? 0 : (double) this.rulesFired / this.rulesFiredTurns;
+    }
+
+    @Override
+    public synchronized long getTimeouts() {
+        return this.timeouts;
+    }
+
+    /**
+     * Record a decision that the strategy was asked to make.
+     *
+     * @param latency
+     *            Wall-clock time of the decision in nanoseconds, including the time after which it was given up.
+     */
+    synchronized void recordDecision(final long latency) {
+        this.decisions++;
+        this.latencies.record(latency);
+    }
+
+    /**
+     * Record a decision that failed with an exception.
+     */
+    synchronized void recordError() {
+        this.errors++;
+    }
+
+    /**
+     * Record what happened inside the working memory during a decision.
+     *
+     * @param rulesFired
+     *            How many rules fired.
+     * @param factCount
+     *            How many facts there are once the decision has been made.
+     */
+    synchronized void recordFiring(final int rulesFired, final long factCount) {
+        this.rulesFiredLastTurn = rulesFired;
+        this.rulesFired += rulesFired;
+        this.rulesFiredTurns++;
+        this.factCount = factCount;
+    }
+
+    /**
+     * Record a decision that wasn't made in time.
+     */
+    synchronized void recordTimeout() {
+        this.timeouts++;
+    }
+
+    @Override
+    public synchronized void reset() {
+        this.latencies.reset();
+        this.decisions = 0;
+        this.timeouts = 0;
+        this.errors = 0;
+        this.factCount = 0;
+        this.rulesFiredLastTurn = 0;
+        this.rulesFired = 0;
+        this.rulesFiredTurns = 0;
+    }
+
+}
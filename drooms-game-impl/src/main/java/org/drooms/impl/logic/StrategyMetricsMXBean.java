@@ -0,0 +1,92 @@
+package org.drooms.impl.logic;
+
+/**
+ * What a {@link org.drooms.api.Player}'s Strategy looks like from the outside, as published over JMX. See
+ * {@link StrategyMetrics}. Unless said otherwise, the figures cover all the games that the strategy has played since
+ * the JVM started or since {@link #reset()}.
+ */
+public interface StrategyMetricsMXBean {
+
+    /**
+     * How many decisions the strategy was asked to make.
+     *
+     * @return Number of decisions, including those that timed out or failed.
+     */
+    long getDecisions();
+
+    /**
+     * How many decisions failed with an exception, for which STAY was forced.
+     *
+     * @return Number of failed decisions.
+     */
+    long getErrors();
+
+    /**
+     * How many facts were in the working memory after the most recent decision.
+     *
+     * @return Number of facts, in all the entry points.
+     */
+    long getFactCount();
+
+    /**
+     * The longest decision.
+     *
+     * @return Wall-clock time in microseconds.
+     */
+    long getMaxLatencyMicros();
+
+    /**
+     * The average decision.
+     *
+     * @return Wall-clock time in microseconds.
+     */
+    long getMeanLatencyMicros();
+
+    /**
+     * The median decision.
+     *
+     * @return Wall-clock time in microseconds.
+     */
+    long getMedianLatencyMicros();
+
+    /**
+     * The decision that 99 % of the decisions were faster than.
+     *
+     * @return Wall-clock time in microseconds.
+     */
+    long getP99LatencyMicros();
+
+    /**
+     * Name of the player whose strategy this is.
+     *
+     * @return The name.
+     */
+    String getPlayer();
+
+    /**
+     * How many rules fired during the most recent decision.
+     *
+     * @return Number of rules fired.
+     */
+    int getRulesFiredLastTurn();
+
+    /**
+     * How many rules fired during a decision, on average.
+     *
+     * @return Number of rules fired.
+     */
+    double getRulesFiredMean();
+
+    /**
+     * How many decisions timed out, for which STAY was forced.
+     *
+     * @return Number of late decisions.
+     */
+    long getTimeouts();
+
+    /**
+     * Forget everything measured so far.
+     */
+    void reset();
+
+}
@@ -0,0 +1,66 @@
+package org.drooms.impl.logic;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+/**
+ * How a worm changed during a turn: which nodes it newly occupies and which nodes it no longer occupies. A node is
+ * never listed as both entered and left. Computed once per turn by {@link WormPositions}, then shared by all the
+ * strategies.
+ */
+public class WormDelta {
+
+    private final Player player;
+    private final List<Node> enteredNodes;
+    private final List<Node> leftNodes;
+
+    WormDelta(final Player p, final List<Node> enteredNodes, final List<Node> leftNodes) {
+        this.player = p;
+        this.enteredNodes = Collections.unmodifiableList(enteredNodes);
+        this.leftNodes = Collections.unmodifiableList(leftNodes);
+    }
+
+    /**
+     * Nodes that the worm newly occupies.
+     *
+     * @return Unmodifiable list, the nodes closest to the head last.
+     */
+    public List<Node> getEnteredNodes() {
+        return this.enteredNodes;
+    }
+
+    /**
+     * Nodes that the worm no longer occupies.
+     *
+     * @return Unmodifiable list.
+     */
+    public List<Node> getLeftNodes() {
+        return this.leftNodes;
+    }
+
+    public Player getPlayer() {
+        return this.player;
+    }
+
+    /**
+     * Whether the worm changed at all.
+     *
+     * @return True if no nodes were entered nor left.
+     */
+    public boolean isEmpty() {
+        return this.enteredNodes.isEmpty() && this.leftNodes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("WormDelta [player=").append(this.player)
+                .append(", entered=").append(this.enteredNodes)
+                .append(", left=").append(this.leftNodes).append("]");
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,166 @@
+package org.drooms.impl.logic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+
+/**
+ * Turns the positions of the worms into {@link WormDelta}s, the changes since the previous positions. To be able to
+ * tell, a copy of every worm is kept, since the positions given may be live views that no longer show where the worm
+ * was.
+ *
+ * <p>
+ * Worms only grow at their head and shrink at their tail, so only the ends of the worm need to be inspected. Should
+ * the worm change in any other way, all of its old nodes are considered left and all of its new nodes entered.
+ * </p>
+ */
+class WormPositions {
+
+    /**
+     * Don't report nodes that were both left and entered; the worm still occupies them.
+     */
+    private static void cancelOut(final List<Node> entered, final List<Node> left) {
+        if (entered.isEmpty() || left.isEmpty()) {
+            return;
+        }
+        final Iterator<Node> it = left.iterator();
+        while (it.hasNext()) {
+            if (entered.remove(it.next())) {
+                it.remove();
+            }
+        }
+    }
+
+    private static void replace(final Deque<Node> oldPosition, final Deque<Node> newPosition,
+            final List<Node> entered, final List<Node> left) {
+        left.addAll(oldPosition);
+        oldPosition.clear();
+        for (final Node n : newPosition) {
+            entered.add(n);
+            oldPosition.addLast(n);
+        }
+        Collections.reverse(entered);
+    }
+
+    private final Map<Player, Deque<Node>> positions = new HashMap<Player, Deque<Node>>();
+
+    /**
+     * Update the copy of the worm and find out what changed.
+     *
+     * @param oldPosition
+     *            Copy of where the worm was before, empty if nowhere. Will be updated to the new position.
+     * @param newPosition
+     *            Where the worm is now.
+     * @param entered
+     *            Will receive the nodes the worm entered.
+     * @param left
+     *            Will receive the nodes the worm left.
+     */
+    private void move(final Deque<Node> oldPosition, final Deque<Node> newPosition, final List<Node> entered,
+            final List<Node> left) {
+        if (oldPosition.isEmpty() || newPosition.isEmpty()) {
+            WormPositions.replace(oldPosition, newPosition, entered, left);
+            return;
+        }
+        final Node oldHead = oldPosition.getFirst();
+        final Node oldTail = oldPosition.getLast();
+        final Node newHead = newPosition.getFirst();
+        final Node newTail = newPosition.getLast();
+        if (oldPosition.size() == newPosition.size() && newHead.equals(oldTail) && newTail.equals(oldHead)) {
+            // the worm reversed; it still occupies the same nodes
+            oldPosition.clear();
+            oldPosition.addAll(newPosition);
+            return;
+        }
+        // count the nodes that were added at the head
+        int added = 0;
+        boolean foundOldHead = false;
+        for (final Node n : newPosition) {
+            if (n.equals(oldHead)) {
+                foundOldHead = true;
+                break;
+            }
+            added++;
+        }
+        // count the nodes that were removed from the tail
+        int removed = 0;
+        boolean foundNewTail = false;
+        final Iterator<Node> oldNodes = oldPosition.descendingIterator();
+        while (oldNodes.hasNext()) {
+            if (oldNodes.next().equals(newTail)) {
+                foundNewTail = true;
+                break;
+            }
+            removed++;
+        }
+        if (!foundOldHead || !foundNewTail || added + oldPosition.size() - removed != newPosition.size()) {
+            WormPositions.replace(oldPosition, newPosition, entered, left);
+            return;
+        }
+        for (int i = 0; i < removed; i++) {
+            left.add(oldPosition.removeLast());
+        }
+        if (added == 1) {
+            entered.add(newHead);
+            oldPosition.addFirst(newHead);
+        } else if (added > 1) {
+            // the added nodes need to be prepended starting with the one closest to the old head
+            final Iterator<Node> newNodes = newPosition.descendingIterator();
+            for (int i = newPosition.size() - added; i > 0; i--) {
+                newNodes.next();
+            }
+            for (int i = 0; i < added; i++) {
+                final Node n = newNodes.next();
+                entered.add(n);
+                oldPosition.addFirst(n);
+            }
+        }
+    }
+
+    /**
+     * Find out how the worms changed since the last call.
+     *
+     * @param newPositions
+     *            New current positions of all the worms. Worms that are no longer present have left all their nodes.
+     * @return One delta for every worm that changed.
+     */
+    public List<WormDelta> update(final Map<Player, Deque<Node>> newPositions) {
+        final List<WormDelta> deltas = new ArrayList<WormDelta>();
+        // worms that are no longer in the game disappear from the playground
+        final Iterator<Map.Entry<Player, Deque<Node>>> it = this.positions.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<Player, Deque<Node>> entry = it.next();
+            if (!newPositions.containsKey(entry.getKey())) {
+                deltas.add(new WormDelta(entry.getKey(), Collections.<Node> emptyList(), new ArrayList<Node>(
+                        entry.getValue())));
+                it.remove();
+            }
+        }
+        for (final Map.Entry<Player, Deque<Node>> entry : newPositions.entrySet()) {
+            final Player p = entry.getKey();
+            Deque<Node> oldPosition = this.positions.get(p);
+            if (oldPosition == null) {
+                oldPosition = new ArrayDeque<Node>();
+                this.positions.put(p, oldPosition);
+            }
+            final List<Node> entered = new ArrayList<Node>(1);
+            final List<Node> left = new ArrayList<Node>(1);
+            this.move(oldPosition, entry.getValue(), entered, left);
+            WormPositions.cancelOut(entered, left);
+            final WormDelta delta = new WormDelta(p, entered, left);
+            if (!delta.isEmpty()) {
+                deltas.add(delta);
+            }
+        }
+        return deltas;
+    }
+
+}
@@ -6,6 +6,7 @@ import org.drooms.api.Action;
 import org.drooms.api.GameProgressListener;
 import org.drooms.api.Node;
 import org.drooms.api.Player;
+import org.drooms.impl.WormBody;
 import org.drooms.impl.logic.DecisionMaker;
 import org.drooms.impl.logic.PlayerRelated;
 import org.drooms.impl.logic.events.PlayerActionEvent;
@@ -17,11 +18,22 @@ public class PlayerActionCommand implements Command, PlayerRelated {
     private final Deque<Node> nodes;
     private final PlayerActionEvent event;
 
-    public PlayerActionCommand(final Player p, final Action a, final Deque<Node> nodes) {
+    /**
+     * Create the command. The worm's body is copied, so that the command and its event keep describing this action
+     * after the worm moves again.
+     * 
+     * @param p
+     *            The player that acted.
+     * @param a
+     *            The action performed.
+     * @param body
+     *            The player's worm, after the action.
+     */
+    public PlayerActionCommand(final Player p, final Action a, final WormBody body) {
         this.actor = p;
         this.action = a;
-        this.nodes = nodes;
-        this.event = new PlayerActionEvent(p, a, nodes);
+        this.nodes = body.snapshot();
+        this.event = new PlayerActionEvent(p, a, this.nodes);
     }
 
     public Deque<Node> getNodes() {
@@ -40,8 +52,7 @@ public class PlayerActionCommand implements Command, PlayerRelated {
 
     @Override
     public void report(final GameProgressListener report) {
-        report.playerPerformedAction(this.actor, this.action,
-                this.nodes.toArray(new Node[]{}));
+        report.playerPerformedAction(this.actor, this.action, this.nodes.toArray(new Node[this.nodes.size()]));
     }
 
     @Override
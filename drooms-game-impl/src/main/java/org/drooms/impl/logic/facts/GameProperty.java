@@ -28,7 +28,11 @@ public class GameProperty {
          * How much time the strategy has to decide on a move. After that, the
          * strategy will be terminated.
          */
-        TIMEOUT_IN_SECONDS
+        TIMEOUT_IN_SECONDS,
+        /**
+         * The same as {@link #TIMEOUT_IN_SECONDS}, only more precise.
+         */
+        TIMEOUT_IN_MILLISECONDS
 
     }
 
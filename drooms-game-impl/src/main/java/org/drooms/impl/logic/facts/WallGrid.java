@@ -0,0 +1,69 @@
+package org.drooms.impl.logic.facts;
+
+import java.util.BitSet;
+
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Playground;
+
+/**
+ * Represents type of fact to be inserted into the working memory, telling the strategy where all the walls are at
+ * once. It takes one bit per node of the playground, instead of one {@link Wall} fact per wall, and answers
+ * {@link #isWall(int, int)} in constant time. Never changes.
+ */
+public class WallGrid {
+
+    private final int width;
+    private final int height;
+    private final BitSet walls;
+
+    public WallGrid(final Playground playground) {
+        this.width = playground.getWidth();
+        this.height = playground.getHeight();
+        this.walls = new BitSet(this.width * this.height);
+        for (int x = 0; x < this.width; x++) {
+            for (int y = 0; y < this.height; y++) {
+                final Node n = playground.getNodeAt(x, y);
+                if (n == null || n.getType() == Type.WALL) {
+                    this.walls.set(y * this.width + x);
+                }
+            }
+        }
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Whether there is a wall on the given position.
+     *
+     * @param x
+     *            The horizontal co-ordinate.
+     * @param y
+     *            The vertical co-ordinate.
+     * @return True if there is a wall; everything outside of the playground is a wall.
+     */
+    public boolean isWall(final int x, final int y) {
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height) {
+            return true;
+        }
+        return this.walls.get(y * this.width + x);
+    }
+
+    /**
+     * Whether there is a wall on the given position.
+     *
+     * @param n
+     *            The position.
+     * @return True if there is a wall; everything outside of the playground is a wall.
+     */
+    public boolean isWall(final Node n) {
+        return this.isWall(n.getX(), n.getY());
+    }
+
+}
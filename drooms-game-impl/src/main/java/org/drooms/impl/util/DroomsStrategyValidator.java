@@ -5,12 +5,9 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.drooms.impl.logic.PathTracker;
+import org.drooms.util.KieBaseCache;
 import org.kie.api.KieBase;
-import org.kie.api.KieBaseConfiguration;
-import org.kie.api.KieServices;
 import org.kie.api.builder.ReleaseId;
-import org.kie.api.conf.EventProcessingOption;
-import org.kie.api.runtime.KieContainer;
 import org.slf4j.Logger;
 
 /**
@@ -66,14 +63,8 @@ public class DroomsStrategyValidator {
     }
 
     private void validate(ReleaseId releaseId) {
-        final KieServices ks = KieServices.Factory.get();
-
         try {
-            final KieContainer container = ks.newKieContainer(releaseId);
-    
-            final KieBaseConfiguration config = ks.newKieBaseConfiguration();
-            config.setOption(EventProcessingOption.STREAM);
-            final KieBase kbase = container.newKieBase(config);
+            final KieBase kbase = KieBaseCache.get(releaseId);
     
             final KnowledgeSessionValidationHelper helper = new KnowledgeSessionValidationHelper(kbase);
     
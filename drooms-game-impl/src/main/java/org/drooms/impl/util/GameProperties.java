@@ -41,8 +41,77 @@ import org.drooms.util.CommonProperties;
  * <dd>The maximum amount of time that the {@link Player}'s Strategy has to make a decision on the next movement
  * of the worm. If it doesn't make it in time, STAY is enforced, potentially leading to the worm being terminated for
  * inactivity.</dd>
+ * <dt>worm.timeout.milliseconds (defaults to 1000 times worm.timeout.seconds)</dt>
+ * <dd>The same as 'worm.timeout.seconds', only more precise. Takes precedence when both are given.</dd>
+ * <dt>worm.timeout.clock (defaults to WALL)</dt>
+ * <dd>How the time of the {@link Player}'s Strategy is measured, see {@link TimeoutClock}.</dd>
+ * <dt>worm.timeout.bank (defaults to false)</dt>
+ * <dd>Whether the time that the {@link Player}'s Strategy didn't use for its decision should be added to its time for
+ * the next decision, and so on until the end of the game.</dd>
  * <dt>worm.survival.bonus (defaults to 5)</dt>
  * <dd>The amount of points that the worm will be awarded upon surviving another worm.</dd>
+ * <dt>worm.decision.threads (defaults to 1)</dt>
+ * <dd>How many {@link Player}s' Strategies may be making their decisions at the same time. With the default value,
+ * the strategies decide one after another, each within its own timeout. With a higher value, the strategies decide in
+ * parallel. Each still has its own timeout from the moment its decision starts, and the whole turn is capped by a
+ * single deadline, as long as it would take for all of them to use their full timeouts.</dd>
+ * <dt>worm.events.retention (defaults to 10)</dt>
+ * <dd>For how many turns, including the current one, the events should be kept in the entry points of the
+ * {@link Player}s' Strategies before they are deleted; 0 to keep them for the whole game. Keeps the working memory
+ * from growing with the length of the game, without strategies having to declare expiration of the events.</dd>
+ * <dt>worm.events.retention.$ENTRY_POINT (defaults to worm.events.retention)</dt>
+ * <dd>The same as 'worm.events.retention', only for a single entry point, such as 'playerEvents'. For 'gameEvents',
+ * the default is at least twice the longest expiration of any {@link CollectibleType}, so that strategies don't forget
+ * about collectibles that are still on the playground.</dd>
+ * <dt>worm.session.pooling (defaults to false)</dt>
+ * <dd>Whether the Drools sessions of the {@link Player}s' Strategies should be kept when the game is over, to be reused
+ * by later games of the same Strategy on a playground with the same walls and with the same properties. Only the facts
+ * that stay the same for the whole game are kept in the session; this saves building and warming up the session for
+ * every game of a tournament.</dd>
+ * <dt>worm.walls.compact (defaults to false)</dt>
+ * <dd>Whether the walls of the playground should be given to the {@link Player}s' Strategies as a single
+ * {@link org.drooms.impl.logic.facts.WallGrid} fact, and as a 'walls' global if the strategy declares one, instead of
+ * one {@link org.drooms.impl.logic.facts.Wall} fact per wall. Large playgrounds then don't flood the working memory
+ * with facts that never change.</dd>
+ * <dt>worm.walls.radius (defaults to 0)</dt>
+ * <dd>With 'worm.walls.compact', {@link org.drooms.impl.logic.facts.Wall} facts are still kept for the walls this many
+ * nodes or less away from the head of the player's own worm, in any direction, for strategies whose rules match on
+ * them; 0 for none.</dd>
+ * <dt>worm.gc.policy (defaults to PERIODIC)</dt>
+ * <dd>When the garbage collection should be forced before the strategies start deciding, so that it doesn't happen
+ * while they do. See {@link GcPolicy}.</dd>
+ * <dt>worm.gc.period (defaults to 1)</dt>
+ * <dd>With the PERIODIC policy, garbage collection is forced before every this many turns.</dd>
+ * <dt>worm.gc.threshold (defaults to 0.75)</dt>
+ * <dd>With the HEAP_THRESHOLD policy, garbage collection is forced before a turn when at least this fraction of the
+ * heap is in use.</dd>
+ * <dt>worm.timeout.gc.excluded (defaults to false)</dt>
+ * <dd>Whether the time spent in garbage collection while the {@link Player}'s Strategy is making a decision should be
+ * added to its timeout, so that the strategy isn't penalized for pauses it didn't necessarily cause.</dd>
+ * <dt>game.seed (defaults to a different value for every game)</dt>
+ * <dd>Seed of the random number generator that decides where and when collectibles appear. Games with the same seed,
+ * playground, players and properties distribute the same collectibles, as long as the strategies decide the same. When
+ * not given, a seed is generated and put among the properties, so that it ends up in the reports.</dd>
+ * <dt>playground.type (defaults to GRAPH)</dt>
+ * <dd>How the {@link org.drooms.api.Playground} is represented in memory, see {@link PlaygroundType}.</dd>
+ * <dt>report.streaming (defaults to false)</dt>
+ * <dd>Whether the XML report should be written into the report folder as the game goes on, instead of being kept in
+ * memory until the game is over. Memory use then doesn't grow with the length of the game.</dd>
+ * <dt>report.indent (defaults to true)</dt>
+ * <dd>Whether the XML report should be indented, so that it's easier for humans to read.</dd>
+ * <dt>report.decisions (defaults to false)</dt>
+ * <dd>Whether every decision of every player should be written into <code>decisions.csv</code> in the report folder,
+ * as the game goes on. Otherwise, only the few most recent decisions are kept.</dd>
+ * <dt>report.replay (defaults to false)</dt>
+ * <dd>Whether a compact binary replay of the game should be written into the report folder, next to the XML report.
+ * See {@link org.drooms.impl.BinaryReplay}.</dd>
+ * <dt>report.profile (defaults to false)</dt>
+ * <dd>Whether the rules of the {@link Player}s' Strategies should be profiled, each player's profile written into
+ * <code>$PLAYER-profile.xml</code> in the report folder, next to the audit log of the player's session. See
+ * {@link org.drooms.impl.logic.DecisionMaker}.</dd>
+ * <dt>report.jmx (defaults to false)</dt>
+ * <dd>Whether metrics of the {@link Player}s' Strategies, such as how long they take to decide and how often they time
+ * out, should be published over JMX. See {@link org.drooms.impl.logic.StrategyMetrics}.</dd>
  * </dl>
  */
 public class GameProperties extends CommonProperties {
@@ -80,6 +149,65 @@ public class GameProperties extends CommonProperties {
 
     }
 
+    /**
+     * When to force garbage collection before the strategies start deciding.
+     */
+    public static enum GcPolicy {
+
+        /**
+         * Never; the JVM collects whenever it needs to.
+         */
+        NONE,
+        /**
+         * Every few turns, see 'worm.gc.period'.
+         */
+        PERIODIC,
+        /**
+         * Whenever the heap is fuller than a threshold, see 'worm.gc.threshold'.
+         */
+        HEAP_THRESHOLD;
+
+    }
+
+    /**
+     * How the time spent by a strategy on its decision is measured.
+     */
+    public static enum TimeoutClock {
+
+        /**
+         * Wall-clock time, whatever else the JVM and the machine are doing in the meantime.
+         */
+        WALL,
+        /**
+         * CPU time of the thread making the decision. Time when the thread isn't running, such as when other strategies
+         * or the garbage collector are, doesn't count. A strategy that doesn't use the CPU, such as one that's blocked,
+         * is still stopped after {@link GameProperties#CPU_TIMEOUT_WALL_FACTOR} times its timeout of wall-clock time.
+         */
+        CPU;
+
+    }
+
+    /**
+     * The various in-memory representations of the playground.
+     */
+    public static enum PlaygroundType {
+
+        /**
+         * Nodes linked in a graph.
+         */
+        GRAPH,
+        /**
+         * Flat arrays indexed by cell, with the graph only built on demand.
+         */
+        GRID;
+
+    }
+
+    /**
+     * With the CPU {@link TimeoutClock}, how many times longer than its timeout a strategy may take in wall-clock time.
+     */
+    public static final int CPU_TIMEOUT_WALL_FACTOR = 10;
+
     public static GameProperties read(final InputStream is) throws IOException {
         return new GameProperties(CommonProperties.loadPropertiesFromInputStream(is));
     }
@@ -89,7 +217,26 @@ public class GameProperties extends CommonProperties {
     private final int maximumInactiveTurns;
     private final int maximumTurns;
     private final int startingWormLength;
-    private final int strategyTimeoutInSeconds;
+    private final int strategyTimeoutInMilliseconds;
+    private final TimeoutClock timeoutClock;
+    private final boolean timeoutBanked;
+    private final int decisionThreads;
+    private final boolean sessionPooled;
+    private final int eventRetention;
+    private final boolean wallGridUsed;
+    private final int wallRadius;
+    private final GcPolicy gcPolicy;
+    private final int gcPeriod;
+    private final double gcThreshold;
+    private final boolean gcExcludedFromTimeout;
+    private final long seed;
+    private final PlaygroundType playgroundType;
+    private final boolean reportStreaming;
+    private final boolean reportIndented;
+    private final boolean replayRecorded;
+    private final boolean decisionLogRecorded;
+    private final boolean metricsPublished;
+    private final boolean profileRecorded;
 
     private GameProperties(final Properties p) {
         super(p);
@@ -97,7 +244,54 @@ public class GameProperties extends CommonProperties {
         this.maximumInactiveTurns = Integer.valueOf(this.getOptionalProperty("worm.max.inactive.turns", "3"));
         this.maximumTurns = Integer.valueOf(this.getOptionalProperty("worm.max.turns", "1000"));
         this.deadWormBonus = Integer.valueOf(this.getOptionalProperty("worm.survival.bonus", "5"));
-        this.strategyTimeoutInSeconds = Integer.valueOf(this.getOptionalProperty("worm.timeout.seconds", "1"));
+        final int strategyTimeoutInSeconds = Integer.valueOf(this.getOptionalProperty("worm.timeout.seconds", "1"));
+        this.strategyTimeoutInMilliseconds = Integer.valueOf(this.getOptionalProperty("worm.timeout.milliseconds",
+                String.valueOf(strategyTimeoutInSeconds * 1000)));
+        if (this.strategyTimeoutInMilliseconds < 1) {
+            throw new IllegalStateException("Strategy timeout must be positive: "
+                    + this.strategyTimeoutInMilliseconds);
+        }
+        this.timeoutClock = TimeoutClock.valueOf(this.getOptionalProperty("worm.timeout.clock",
+                TimeoutClock.WALL.name()));
+        this.timeoutBanked = Boolean.valueOf(this.getOptionalProperty("worm.timeout.bank", "false"));
+        this.decisionThreads = Integer.valueOf(this.getOptionalProperty("worm.decision.threads", "1"));
+        if (this.decisionThreads < 1) {
+            throw new IllegalStateException("Number of decision threads must be positive: " + this.decisionThreads);
+        }
+        this.sessionPooled = Boolean.valueOf(this.getOptionalProperty("worm.session.pooling", "false"));
+        this.eventRetention = Integer.valueOf(this.getOptionalProperty("worm.events.retention", "10"));
+        this.wallGridUsed = Boolean.valueOf(this.getOptionalProperty("worm.walls.compact", "false"));
+        this.wallRadius = Integer.valueOf(this.getOptionalProperty("worm.walls.radius", "0"));
+        if (this.wallRadius < 0) {
+            throw new IllegalStateException("Wall radius must not be negative: " + this.wallRadius);
+        }
+        this.gcPolicy = GcPolicy.valueOf(this.getOptionalProperty("worm.gc.policy", GcPolicy.PERIODIC.name()));
+        this.gcPeriod = Integer.valueOf(this.getOptionalProperty("worm.gc.period", "1"));
+        if (this.gcPeriod < 1) {
+            throw new IllegalStateException("Garbage collection period must be positive: " + this.gcPeriod);
+        }
+        this.gcThreshold = Double.valueOf(this.getOptionalProperty("worm.gc.threshold", "0.75"));
+        if (this.gcThreshold <= 0 || this.gcThreshold > 1) {
+            throw new IllegalStateException("Garbage collection threshold must be within (0, 1]: "
+                    + this.gcThreshold);
+        }
+        this.gcExcludedFromTimeout = Boolean.valueOf(this.getOptionalProperty("worm.timeout.gc.excluded", "false"));
+        final String seed = this.getOptionalProperty("game.seed", null);
+        if (seed == null) {
+            // record the seed, so that the game can be replayed from the config in its report
+            this.seed = SplitMixRandom.newSeed();
+            p.setProperty("game.seed", String.valueOf(this.seed));
+        } else {
+            this.seed = Long.valueOf(seed);
+        }
+        this.playgroundType = PlaygroundType.valueOf(this.getOptionalProperty("playground.type",
+                PlaygroundType.GRAPH.name()));
+        this.reportStreaming = Boolean.valueOf(this.getOptionalProperty("report.streaming", "false"));
+        this.reportIndented = Boolean.valueOf(this.getOptionalProperty("report.indent", "true"));
+        this.replayRecorded = Boolean.valueOf(this.getOptionalProperty("report.replay", "false"));
+        this.decisionLogRecorded = Boolean.valueOf(this.getOptionalProperty("report.decisions", "false"));
+        this.metricsPublished = Boolean.valueOf(this.getOptionalProperty("report.jmx", "false"));
+        this.profileRecorded = Boolean.valueOf(this.getOptionalProperty("report.profile", "false"));
         final Collection<CollectibleType> collectibleTypes = new ArrayList<CollectibleType>();
         for (final String collectibleName : this.getMandatoryProperty("collectibles").split("\\Q,\\E")) {
             final int expiration = Integer.valueOf(this.getMandatoryProperty("collectible.expiration."
@@ -114,10 +308,44 @@ public class GameProperties extends CommonProperties {
         return this.collectibleTypes;
     }
 
+    public int getDecisionThreads() {
+        return this.decisionThreads;
+    }
+
     public int getDeadWormBonus() {
         return this.deadWormBonus;
     }
 
+    /**
+     * For how many turns the events should be kept in an entry point.
+     * 
+     * @param entryPoint
+     *            Name of the entry point.
+     * @return Number of turns, including the current one; 0 or less to keep the events for the whole game.
+     */
+    public int getEventRetention(final String entryPoint) {
+        int defaultRetention = this.eventRetention;
+        if (defaultRetention > 0 && entryPoint.equals("gameEvents")) {
+            for (final CollectibleType ct : this.collectibleTypes) {
+                defaultRetention = Math.max(defaultRetention, ct.getExpiration() * 2);
+            }
+        }
+        return Integer.valueOf(this.getOptionalProperty("worm.events.retention." + entryPoint,
+                String.valueOf(defaultRetention)));
+    }
+
+    public int getGcPeriod() {
+        return this.gcPeriod;
+    }
+
+    public GcPolicy getGcPolicy() {
+        return this.gcPolicy;
+    }
+
+    public double getGcThreshold() {
+        return this.gcThreshold;
+    }
+
     public int getMaximumInactiveTurns() {
         return this.maximumInactiveTurns;
     }
@@ -126,12 +354,77 @@ public class GameProperties extends CommonProperties {
         return this.maximumTurns;
     }
 
+    public PlaygroundType getPlaygroundType() {
+        return this.playgroundType;
+    }
+
+    public long getSeed() {
+        return this.seed;
+    }
+
     public int getStartingWormLength() {
         return this.startingWormLength;
     }
 
+    public int getStrategyTimeoutInMilliseconds() {
+        return this.strategyTimeoutInMilliseconds;
+    }
+
+    /**
+     * The strategy timeout, in whole seconds.
+     * 
+     * @return The timeout, rounded up.
+     */
     public int getStrategyTimeoutInSeconds() {
-        return this.strategyTimeoutInSeconds;
+        return (this.strategyTimeoutInMilliseconds + 999) / 1000;
+    }
+
+    public TimeoutClock getTimeoutClock() {
+        return this.timeoutClock;
+    }
+
+    public int getWallRadius() {
+        return this.wallRadius;
+    }
+
+    public boolean isDecisionLogRecorded() {
+        return this.decisionLogRecorded;
+    }
+
+    public boolean isGcExcludedFromTimeout() {
+        return this.gcExcludedFromTimeout;
+    }
+
+    public boolean isMetricsPublished() {
+        return this.metricsPublished;
+    }
+
+    public boolean isProfileRecorded() {
+        return this.profileRecorded;
+    }
+
+    public boolean isReplayRecorded() {
+        return this.replayRecorded;
+    }
+
+    public boolean isReportIndented() {
+        return this.reportIndented;
+    }
+
+    public boolean isReportStreaming() {
+        return this.reportStreaming;
+    }
+
+    public boolean isSessionPooled() {
+        return this.sessionPooled;
+    }
+
+    public boolean isTimeoutBanked() {
+        return this.timeoutBanked;
+    }
+
+    public boolean isWallGridUsed() {
+        return this.wallGridUsed;
     }
 
 }
@@ -0,0 +1,86 @@
+package org.drooms.impl.util;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fast, seedable source of randomness, using the SplitMix64 algorithm. Unlike {@link java.security.SecureRandom}, it
+ * is cheap to draw from and the same seed always gives the same sequence, which makes games reproducible.
+ *
+ * <p>
+ * Instances are not thread-safe; every game is expected to have one of its own, so that concurrent games don't
+ * contend on a single generator.
+ * </p>
+ */
+public class SplitMixRandom extends Random {
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    private static final AtomicLong SEEDER = new AtomicLong(SplitMixRandom.mix64(System.currentTimeMillis())
+            ^ SplitMixRandom.mix64(System.nanoTime()));
+
+    private static final long serialVersionUID = 1L;
+
+    private static long mix64(final long seed) {
+        long z = seed;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Produce a seed for a game that doesn't have one configured. Every call returns a different value, even when
+     * called from different threads at the same time.
+     *
+     * @return The seed.
+     */
+    public static long newSeed() {
+        return SplitMixRandom.mix64(SplitMixRandom.SEEDER.addAndGet(SplitMixRandom.GOLDEN_GAMMA));
+    }
+
+    private long state;
+
+    /**
+     * Create the generator.
+     *
+     * @param seed
+     *            Initial state of the generator. Generators with the same seed produce the same values.
+     */
+    public SplitMixRandom(final long seed) {
+        super(seed); // the state of the super class is never used
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(final int bits) {
+        return (int) (this.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * SplitMixRandom.DOUBLE_UNIT;
+    }
+
+    @Override
+    public int nextInt(final int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive: " + bound);
+        }
+        // Lemire's multiply-shift, avoiding the division; the bias is negligible for the sizes of playgrounds
+        return (int) (((this.nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    @Override
+    public long nextLong() {
+        this.state += SplitMixRandom.GOLDEN_GAMMA;
+        return SplitMixRandom.mix64(this.state);
+    }
+
+    @Override
+    public void setSeed(final long seed) {
+        this.state = seed;
+    }
+
+}
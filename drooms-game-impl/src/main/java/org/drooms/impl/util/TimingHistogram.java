@@ -0,0 +1,153 @@
+package org.drooms.impl.util;
+
+import java.util.Arrays;
+
+/**
+ * Distribution of measured times, in the manner of HdrHistogram. Values are counted in buckets whose width grows with
+ * the value, so that any value is known to within about 3 % and the memory used is fixed, no matter how many values
+ * are recorded or how large they are. Recording is a couple of shifts and an array increment.
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public class TimingHistogram {
+
+    /**
+     * Binary logarithm of how many buckets every power of two is split into.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << TimingHistogram.SUB_BUCKET_BITS;
+
+    /**
+     * Enough buckets for any positive long.
+     */
+    private static final int BUCKETS = (64 - TimingHistogram.SUB_BUCKET_BITS) * TimingHistogram.SUB_BUCKETS;
+
+    /**
+     * The largest value that falls into the bucket.
+     */
+    private static long getHighestValue(final int index) {
+        if (index < TimingHistogram.SUB_BUCKETS) {
+            return index;
+        }
+        final int shift = index / TimingHistogram.SUB_BUCKETS - 1;
+        final long subBucket = index % TimingHistogram.SUB_BUCKETS + TimingHistogram.SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    private static int getIndex(final long value) {
+        if (value < TimingHistogram.SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int shift = exponent - TimingHistogram.SUB_BUCKET_BITS;
+        // values in [2^exponent, 2^(exponent + 1)) share the exponent; the next few bits pick the bucket
+        return (shift + 1) * TimingHistogram.SUB_BUCKETS + (int) (value >>> shift) - TimingHistogram.SUB_BUCKETS;
+    }
+
+    private final long[] counts = new long[TimingHistogram.BUCKETS];
+    private long count = 0;
+    private long total = 0;
+    private long max = 0;
+
+    /**
+     * Add all the values recorded by another histogram to this one.
+     *
+     * @param other
+     *            The other histogram; left unchanged.
+     */
+    public void add(final TimingHistogram other) {
+        for (int i = 0; i < TimingHistogram.BUCKETS; i++) {
+            this.counts[i] += other.counts[i];
+        }
+        this.count += other.count;
+        this.total += other.total;
+        this.max = Math.max(this.max, other.max);
+    }
+
+    /**
+     * How many values were recorded.
+     *
+     * @return Number of values.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * The largest value recorded, exactly.
+     *
+     * @return 0 when nothing was recorded.
+     */
+    public long getMax() {
+        return this.max;
+    }
+
+    /**
+     * The average of the values recorded, exactly.
+     *
+     * @return 0 when nothing was recorded.
+     */
+    public long getMean() {
+        return this.count == 0 ? 0 : this.total / this.count;
+    }
+
+    /**
+     * The sum of the values recorded, exactly.
+     *
+     * @return 0 when nothing was recorded.
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * The value below which the given percentage of the recorded values lies.
+     *
+     * @param percentile
+     *            Between 0 and 100.
+     * @return Value within the precision of the histogram, never more than {@link #getMax()}; 0 when nothing was
+     *         recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be within [0, 100]: " + percentile);
+        }
+        final long target = Math.max(1, (long) Math.ceil(this.count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < TimingHistogram.BUCKETS; i++) {
+            seen += this.counts[i];
+            if (seen >= target) {
+                return Math.min(this.max, TimingHistogram.getHighestValue(i));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param value
+     *            The value, such as a time in nanoseconds. Negative values are recorded as 0.
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        this.counts[TimingHistogram.getIndex(v)]++;
+        this.count++;
+        this.total += v;
+        this.max = Math.max(this.max, v);
+    }
+
+    /**
+     * Forget all the recorded values.
+     */
+    public void reset() {
+        Arrays.fill(this.counts, 0);
+        this.count = 0;
+        this.total = 0;
+        this.max = 0;
+    }
+
+}
@@ -0,0 +1,246 @@
+package org.drooms.impl.util.shortestpath;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+
+import edu.uci.ics.jung.graph.Graph;
+
+/**
+ * Immutable view of a {@link Playground}'s graph in which every {@link Node} is identified by an integer cell index,
+ * <code>y * width + x</code>. Neighbors of each cell are stored in flat arrays, together with the {@link Edge}s that
+ * lead to them, so that path-finding can run without touching any collections.
+ */
+public class CellGraph {
+
+    /**
+     * Index that represents a cell that doesn't exist.
+     */
+    public static final int NO_CELL = -1;
+
+    private final Playground playground;
+    private final int width;
+    private final int height;
+    private final Node[] nodes;
+    private final int[] neighborOffsets;
+    private final int[] neighbors;
+    private final Edge[] edges;
+
+    /**
+     * Prepare the view of a graph that doesn't come from a {@link Playground}. Dimensions are derived from the
+     * co-ordinates of the vertices.
+     * 
+     * @param graph
+     *            Graph to index.
+     */
+    public <V extends Node, E extends Edge> CellGraph(final Graph<V, E> graph) {
+        this(null, graph, CellGraph.getWidth(graph), CellGraph.getHeight(graph));
+    }
+
+    /**
+     * Prepare the view.
+     * 
+     * @param playground
+     *            Playground whose graph to index.
+     */
+    public CellGraph(final Playground playground) {
+        this(playground, playground.getGraph(), playground.getWidth(), playground.getHeight());
+    }
+
+    private <V extends Node, E extends Edge> CellGraph(final Playground playground, final Graph<V, E> graph,
+            final int width, final int height) {
+        this.playground = playground;
+        this.width = width;
+        this.height = height;
+        final int cellCount = this.width * this.height;
+        this.nodes = new Node[cellCount];
+        this.neighborOffsets = new int[cellCount + 1];
+        for (final V n : graph.getVertices()) {
+            final int index = this.getIndex(n);
+            this.nodes[index] = n;
+            this.neighborOffsets[index + 1] = graph.degree(n);
+        }
+        for (int i = 0; i < cellCount; i++) {
+            this.neighborOffsets[i + 1] += this.neighborOffsets[i];
+        }
+        this.neighbors = new int[this.neighborOffsets[cellCount]];
+        this.edges = new Edge[this.neighbors.length];
+        for (final V n : graph.getVertices()) {
+            final int index = this.getIndex(n);
+            int slot = this.neighborOffsets[index];
+            for (final E e : graph.getIncidentEdges(n)) {
+                this.neighbors[slot] = this.getIndex(graph.getOpposite(n, e));
+                this.edges[slot] = e;
+                slot++;
+            }
+            // keep the order of neighbors stable, regardless of the graph implementation
+            CellGraph.sortSlots(this.neighbors, this.edges, this.neighborOffsets[index], slot);
+        }
+    }
+
+    private static <V extends Node> int getHeight(final Graph<V, ?> graph) {
+        int height = 0;
+        for (final V n : graph.getVertices()) {
+            height = Math.max(height, n.getY() + 1);
+        }
+        return height;
+    }
+
+    private static <V extends Node> int getWidth(final Graph<V, ?> graph) {
+        int width = 0;
+        for (final V n : graph.getVertices()) {
+            width = Math.max(width, n.getX() + 1);
+        }
+        return width;
+    }
+
+    private static void sortSlots(final int[] neighbors, final Edge[] edges, final int from, final int to) {
+        // insertion sort; there are never more than a handful of neighbors
+        for (int i = from + 1; i < to; i++) {
+            final int neighbor = neighbors[i];
+            final Edge edge = edges[i];
+            int j = i - 1;
+            while (j >= from && neighbors[j] > neighbor) {
+                neighbors[j + 1] = neighbors[j];
+                edges[j + 1] = edges[j];
+                j--;
+            }
+            neighbors[j + 1] = neighbor;
+            edges[j + 1] = edge;
+        }
+    }
+
+    /**
+     * Total number of cells, including those that are not part of the graph.
+     * 
+     * @return Width multiplied by height of the playground.
+     */
+    public int getCellCount() {
+        return this.nodes.length;
+    }
+
+    /**
+     * The edge that leads from a cell to one of its neighbors.
+     * 
+     * @param slot
+     *            Between {@link #getFirstNeighborSlot(int)} (inclusive) and {@link #getLastNeighborSlot(int)}
+     *            (exclusive) of the cell.
+     * @return The edge.
+     */
+    public Edge getEdge(final int slot) {
+        return this.edges[slot];
+    }
+
+    /**
+     * Where the neighbors of a cell start.
+     * 
+     * @param index
+     *            Index of the cell.
+     * @return First slot to pass to {@link #getNeighbor(int)}.
+     */
+    public int getFirstNeighborSlot(final int index) {
+        return this.neighborOffsets[index];
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    /**
+     * Retrieve index of the cell at the given co-ordinates.
+     * 
+     * @param x
+     *            Horizontal co-ordinate.
+     * @param y
+     *            Vertical co-ordinate.
+     * @return {@link #NO_CELL} when out of bounds.
+     */
+    public int getIndex(final int x, final int y) {
+        if (x < 0 || x >= this.width || y < 0 || y >= this.height) {
+            return CellGraph.NO_CELL;
+        }
+        return y * this.width + x;
+    }
+
+    /**
+     * Retrieve index of the cell where the node is.
+     * 
+     * @param n
+     *            Node in question.
+     * @return {@link #NO_CELL} when out of bounds.
+     */
+    public int getIndex(final Node n) {
+        return this.getIndex(n.getX(), n.getY());
+    }
+
+    /**
+     * Where the neighbors of a cell end.
+     * 
+     * @param index
+     *            Index of the cell.
+     * @return Slot just after the last neighbor.
+     */
+    public int getLastNeighborSlot(final int index) {
+        return this.neighborOffsets[index + 1];
+    }
+
+    int[] getNeighborOffsets() {
+        // not copied; the caller must not modify it
+        return this.neighborOffsets;
+    }
+
+    /**
+     * Index of the neighbor stored in the given slot.
+     * 
+     * @param slot
+     *            Between {@link #getFirstNeighborSlot(int)} (inclusive) and {@link #getLastNeighborSlot(int)}
+     *            (exclusive) of the cell.
+     * @return Index of the neighboring cell.
+     */
+    public int getNeighbor(final int slot) {
+        return this.neighbors[slot];
+    }
+
+    int[] getNeighbors() {
+        // not copied; the caller must not modify it
+        return this.neighbors;
+    }
+
+    /**
+     * Retrieve the node in the given cell.
+     * 
+     * @param index
+     *            Index of the cell.
+     * @return Null when the cell is not part of the graph.
+     */
+    public Node getNode(final int index) {
+        if (index < 0 || index >= this.nodes.length) {
+            return null;
+        }
+        return this.nodes[index];
+    }
+
+    /**
+     * The playground that this view was created for.
+     * 
+     * @return Null when the view was created directly from a graph.
+     */
+    public Playground getPlayground() {
+        return this.playground;
+    }
+
+    public int getWidth() {
+        return this.width;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("CellGraph [playground=")
+                .append(this.playground == null ? null : this.playground.getName()).append(", width=")
+                .append(this.width).append(", height=").append(this.height).append(", edges=")
+                .append(this.neighbors.length / 2).append("]");
+        return builder.toString();
+    }
+
+}
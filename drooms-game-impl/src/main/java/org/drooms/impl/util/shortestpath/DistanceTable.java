@@ -0,0 +1,246 @@
+package org.drooms.impl.util.shortestpath;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Exact distances between the cells of a {@link CellGraph}, ignoring the worms. Distances to each cell are computed
+ * with a breadth-first search the first time that cell is asked about, and kept as a <code>short[]</code>. Once the
+ * distances kept by all the tables together take more than {@link #MAX_BYTES}, those computed first are forgotten,
+ * and computed again should they be needed. Memory therefore stays bounded even on the largest playgrounds.
+ *
+ * <p>
+ * Tables are shared by all graphs with the same structure, see {@link #get(CellGraph)}. Every game on the same
+ * playground, and every player in it, therefore only pays for each search once. Only the few most recently used
+ * tables are kept, and only softly, so that a tournament over many playgrounds doesn't run out of memory. A table
+ * keeps the structure of the graph, but not the graph itself or its playground. Instances are thread-safe.
+ * </p>
+ */
+public class DistanceTable {
+
+    /**
+     * Distances to one cell, as kept by a table.
+     */
+    private static final class Row {
+
+        private final DistanceTable table;
+        private final int target;
+        private final short[] distances;
+
+        public Row(final DistanceTable table, final int target, final short[] distances) {
+            this.table = table;
+            this.target = target;
+            this.distances = distances;
+        }
+
+    }
+
+    private static final class Key {
+
+        private final int width;
+        private final int[] neighborOffsets;
+        private final int[] neighbors;
+        private final BitSet cells;
+        private final int hashCode;
+
+        public Key(final CellGraph grid) {
+            this.width = grid.getWidth();
+            this.neighborOffsets = grid.getNeighborOffsets();
+            this.neighbors = grid.getNeighbors();
+            this.cells = new BitSet(grid.getCellCount());
+            for (int i = 0; i < grid.getCellCount(); i++) {
+                if (grid.getNode(i) != null) {
+                    this.cells.set(i);
+                }
+            }
+            this.hashCode = 31 * (31 * (31 * this.width + Arrays.hashCode(this.neighborOffsets))
+                    + Arrays.hashCode(this.neighbors)) + this.cells.hashCode();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return this.width == other.width && this.hashCode == other.hashCode
+                    && Arrays.equals(this.neighborOffsets, other.neighborOffsets)
+                    && Arrays.equals(this.neighbors, other.neighbors) && this.cells.equals(other.cells);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hashCode;
+        }
+
+    }
+
+    /**
+     * Distance to a cell that can't be reached.
+     */
+    public static final int UNREACHABLE = -1;
+
+    /**
+     * Largest number of cells that the table supports. Distances are stored as unsigned shorts, with the largest
+     * value reserved for {@link #UNREACHABLE}.
+     */
+    public static final int MAX_CELLS = 0xFFFF;
+
+    /**
+     * How many bytes the distances kept by all the tables may take together. Every cell the distances are known to
+     * takes two bytes per cell of the graph, so this holds all the distances of a playground of about 5800 cells, or
+     * the distances to 512 cells of the largest supported playground.
+     */
+    static final long MAX_BYTES = 64L << 20;
+
+    /**
+     * How many of the most recently used tables to keep.
+     */
+    static final int MAX_TABLES = 4;
+
+    private static final short NOT_REACHED = (short) 0xFFFF;
+
+    // guarded by itself; in the order of access, so that the least recently used tables are forgotten first
+    private static final Map<Key, SoftReference<DistanceTable>> TABLES = new LinkedHashMap<Key,
+            SoftReference<DistanceTable>>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, SoftReference<DistanceTable>> eldest) {
+            return this.size() > DistanceTable.MAX_TABLES;
+        }
+
+    };
+
+    // guarded by itself; the oldest first
+    private static final Deque<Row> ROWS = new ArrayDeque<>();
+    private static long rowBytes = 0; // guarded by ROWS
+
+    /**
+     * Retrieve the table for the given graph, creating it if no graph of the same structure has been seen before.
+     *
+     * @param grid
+     *            The graph.
+     * @return Null when the graph has more than {@link #MAX_CELLS} cells.
+     */
+    public static DistanceTable get(final CellGraph grid) {
+        if (grid.getCellCount() > DistanceTable.MAX_CELLS) {
+            return null;
+        }
+        final Key key = new Key(grid);
+        synchronized (DistanceTable.TABLES) {
+            final SoftReference<DistanceTable> reference = DistanceTable.TABLES.get(key);
+            DistanceTable table = (reference == null) ? null : reference.get();
+            if (table == null) {
+                // computing the distances is left for later, so this is cheap enough to do while locked
+                table = new DistanceTable(key, grid.getCellCount());
+                DistanceTable.TABLES.put(key, new SoftReference<DistanceTable>(table));
+            }
+            return table;
+        }
+    }
+
+    /**
+     * How many bytes the distances kept by all the tables take together.
+     *
+     * @return Never more than {@link #MAX_BYTES}.
+     */
+    static long getKeptBytes() {
+        synchronized (DistanceTable.ROWS) {
+            return DistanceTable.rowBytes;
+        }
+    }
+
+    /**
+     * Keep the newly computed distances, forgetting the oldest ones if there are too many.
+     *
+     * @param row
+     *            The distances, already in their table.
+     */
+    private static void keep(final Row row) {
+        synchronized (DistanceTable.ROWS) {
+            DistanceTable.ROWS.addLast(row);
+            DistanceTable.rowBytes += row.distances.length * 2L;
+            while (DistanceTable.rowBytes > DistanceTable.MAX_BYTES) {
+                final Row oldest = DistanceTable.ROWS.removeFirst();
+                oldest.table.distances.compareAndSet(oldest.target, oldest.distances, null);
+                DistanceTable.rowBytes -= oldest.distances.length * 2L;
+            }
+        }
+    }
+
+    private final Key structure;
+    private final AtomicReferenceArray<short[]> distances;
+
+    private DistanceTable(final Key structure, final int cellCount) {
+        this.structure = structure;
+        this.distances = new AtomicReferenceArray<>(cellCount);
+    }
+
+    private short[] computeDistancesTo(final int target) {
+        final int[] neighborOffsets = this.structure.neighborOffsets;
+        final int[] neighbors = this.structure.neighbors;
+        final int cellCount = this.distances.length();
+        final short[] result = new short[cellCount];
+        Arrays.fill(result, DistanceTable.NOT_REACHED);
+        final int[] queue = new int[cellCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = target;
+        result[target] = 0;
+        while (head < tail) {
+            final int current = queue[head++];
+            final short distance = (short) (result[current] + 1);
+            final int lastSlot = neighborOffsets[current + 1];
+            for (int slot = neighborOffsets[current]; slot < lastSlot; slot++) {
+                final int neighbor = neighbors[slot];
+                if (result[neighbor] == DistanceTable.NOT_REACHED) {
+                    result[neighbor] = distance;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Length of the shortest path between two cells. Since the graph is undirected, the order of the cells doesn't
+     * matter; it is however cheaper to keep asking about the same target.
+     *
+     * @param from
+     *            Index of the cell where the path starts.
+     * @param to
+     *            Index of the cell where the path ends.
+     * @return Number of edges on the path, or {@link #UNREACHABLE}.
+     */
+    public int getDistance(final int from, final int to) {
+        if (!this.isCell(from) || !this.isCell(to)) {
+            return DistanceTable.UNREACHABLE;
+        }
+        short[] result = this.distances.get(to);
+        if (result == null) {
+            // concurrent computations are harmless, they all produce the same table
+            result = this.computeDistancesTo(to);
+            if (this.distances.compareAndSet(to, null, result)) {
+                DistanceTable.keep(new Row(this, to, result));
+            }
+        }
+        final short distance = result[from];
+        return distance == DistanceTable.NOT_REACHED ? DistanceTable.UNREACHABLE : distance & 0xFFFF;
+    }
+
+    private boolean isCell(final int index) {
+        return index >= 0 && index < this.distances.length() && this.structure.cells.get(index);
+    }
+
+}
@@ -0,0 +1,312 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.CellGraph;
+import org.drooms.impl.util.shortestpath.DistanceTable;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath.VertexDistanceHeuristics;
+
+/**
+ * Implements the A* algorithm over the cell indices of a {@link CellGraph}. All edges are considered to have the same
+ * weight, that is 1.
+ *
+ * <p>
+ * All the state of the search lives in arrays that are allocated once, sized by the number of cells, and reused by
+ * every query. Instead of clearing them, each query increments a generation counter; values stamped with an older
+ * generation are considered missing. The open set is a binary heap of cell indices that supports decrease-key.
+ * Nothing is allocated per visited cell.
+ * </p>
+ *
+ * <p>
+ * When given a {@link DistanceTable}, the exact distances on the graph are used as the heuristic, and cells that can't
+ * reach the target at all are never opened.
+ * </p>
+ *
+ * <p>
+ * Instances are not thread-safe.
+ * </p>
+ */
+public class IndexedAStar {
+
+    private static final int CLOSED = -1;
+
+    static DistanceHeuristic<Node> getHeuristic(final VertexDistanceHeuristics heuristicType) {
+        switch (heuristicType) {
+            case MANHATTAN:
+                return new ManhattanDistanceHeuristic<Node>();
+            case EUCLIDEAN:
+                return new EuclideanDistanceHeuristic<Node>();
+            case CHEBYSHEV:
+                return new ChebyshevDistanceHeuristic<Node>();
+            default:
+                throw new IllegalArgumentException("Unknown distance heuristic: " + heuristicType);
+        }
+    }
+
+    private final CellGraph grid;
+    private final DistanceHeuristic<Node> heuristics;
+    private final DistanceTable table;
+
+    private final int[] generations;
+    private final int[] gScores;
+    private final double[] fScores;
+    private final int[] cameFrom;
+    private final int[] cameThrough;
+    private final int[] heapPositions;
+    private final int[] heap;
+    private final int[] path;
+    private int generation = 0;
+    private int heapSize = 0;
+    private int pathLength = -1;
+    private int target = CellGraph.NO_CELL;
+    private Node targetNode;
+
+    /**
+     * Prepare the algorithm.
+     *
+     * @param grid
+     *            The graph to run queries on.
+     * @param heuristicType
+     *            Type of the distance estimation heuristic to use.
+     */
+    public IndexedAStar(final CellGraph grid, final VertexDistanceHeuristics heuristicType) {
+        this(grid, IndexedAStar.getHeuristic(heuristicType), null);
+    }
+
+    /**
+     * Prepare the algorithm, estimating distances with the exact distances from the table.
+     *
+     * @param grid
+     *            The graph to run queries on.
+     * @param table
+     *            Table of distances on the same graph.
+     */
+    public IndexedAStar(final CellGraph grid, final DistanceTable table) {
+        this(grid, null, table);
+    }
+
+    private IndexedAStar(final CellGraph grid, final DistanceHeuristic<Node> heuristics, final DistanceTable table) {
+        this.grid = grid;
+        this.heuristics = heuristics;
+        this.table = table;
+        final int cellCount = grid.getCellCount();
+        this.generations = new int[cellCount];
+        this.gScores = new int[cellCount];
+        this.fScores = new double[cellCount];
+        this.cameFrom = new int[cellCount];
+        this.cameThrough = new int[cellCount];
+        this.heapPositions = new int[cellCount];
+        this.heap = new int[cellCount];
+        this.path = new int[cellCount];
+    }
+
+    private double estimateDistance(final int cell) {
+        if (this.table == null) {
+            return this.heuristics.estimateDistance(this.grid.getNode(cell), this.targetNode);
+        } else {
+            return this.table.getDistance(cell, this.target);
+        }
+    }
+
+    /**
+     * Find the shortest path between two cells. When successful, the path is available through
+     * {@link #getPathLength()} and {@link #getPathSlot(int)} until the next query.
+     *
+     * @param source
+     *            Index of the source cell.
+     * @param target
+     *            Index of the target cell.
+     * @param blocked
+     *            Cells that the path must not go through, or null if there are none. The source cell is never checked.
+     * @return Number of edges on the path; 0 when source and target are the same, -1 when there is no path.
+     */
+    public int find(final int source, final int target, final BitSet blocked) {
+        return this.find(source, target, blocked, CellGraph.NO_CELL);
+    }
+
+    /**
+     * Find the shortest path between two cells, going through one of the blocked cells if need be. When successful,
+     * the path is available through {@link #getPathLength()} and {@link #getPathSlot(int)} until the next query.
+     *
+     * @param source
+     *            Index of the source cell.
+     * @param target
+     *            Index of the target cell.
+     * @param blocked
+     *            Cells that the path must not go through, or null if there are none. The source cell is never checked.
+     *            Not modified.
+     * @param exempt
+     *            Index of the cell that the path may go through even if it is blocked, or {@link CellGraph#NO_CELL}.
+     * @return Number of edges on the path; 0 when source and target are the same, -1 when there is no path.
+     */
+    public int find(final int source, final int target, final BitSet blocked, final int exempt) {
+        this.pathLength = -1;
+        this.target = target;
+        this.targetNode = this.grid.getNode(target);
+        if (this.grid.getNode(source) == null || this.targetNode == null) {
+            return this.pathLength;
+        }
+        this.nextGeneration();
+        if (!this.open(source, 0, CellGraph.NO_CELL, CellGraph.NO_CELL)) {
+            return this.pathLength;
+        }
+        while (this.heapSize > 0) {
+            final int current = this.poll();
+            if (current == target) {
+                return this.reconstructPath(source, target);
+            }
+            final int tentativeGScore = this.gScores[current] + 1;
+            final int lastSlot = this.grid.getLastNeighborSlot(current);
+            for (int slot = this.grid.getFirstNeighborSlot(current); slot < lastSlot; slot++) {
+                final int neighbor = this.grid.getNeighbor(slot);
+                if (blocked != null && neighbor != exempt && blocked.get(neighbor)) {
+                    continue;
+                } else if (this.generations[neighbor] != this.generation) {
+                    this.open(neighbor, tentativeGScore, current, slot);
+                } else if (tentativeGScore < this.gScores[neighbor]) {
+                    /*
+                     * portals make the heuristics inconsistent, so even a
+                     * closed cell may be reached by a shorter path later.
+                     */
+                    this.open(neighbor, tentativeGScore, current, slot);
+                }
+            }
+        }
+        return this.pathLength;
+    }
+
+    public CellGraph getGrid() {
+        return this.grid;
+    }
+
+    /**
+     * Length of the path found by the last query.
+     *
+     * @return Number of edges on the path, -1 when none was found.
+     */
+    public int getPathLength() {
+        return this.pathLength;
+    }
+
+    /**
+     * Retrieve an edge on the path found by the last query.
+     *
+     * @param i
+     *            Position of the edge on the path, starting from 0 at the source.
+     * @return Slot of the edge, to be passed to {@link CellGraph#getEdge(int)} or {@link CellGraph#getNeighbor(int)}.
+     */
+    public int getPathSlot(final int i) {
+        if (i < 0 || i >= this.pathLength) {
+            throw new IndexOutOfBoundsException("No edge " + i + " on a path of length " + this.pathLength);
+        }
+        return this.path[i];
+    }
+
+    private boolean isBetter(final int cell, final int other) {
+        final double f = this.fScores[cell];
+        final double otherF = this.fScores[other];
+        if (f != otherF) {
+            return f < otherF;
+        }
+        // on ties, prefer the cells that are further away from the source
+        return this.gScores[cell] > this.gScores[other];
+    }
+
+    private void nextGeneration() {
+        this.heapSize = 0;
+        this.generation++;
+        if (this.generation == Integer.MAX_VALUE) {
+            Arrays.fill(this.generations, 0);
+            this.generation = 1;
+        }
+    }
+
+    private boolean open(final int cell, final int gScore, final int from, final int through) {
+        final double estimate = this.estimateDistance(cell);
+        if (estimate < 0) {
+            // target can't be reached from here
+            return false;
+        }
+        this.gScores[cell] = gScore;
+        this.fScores[cell] = gScore + estimate;
+        this.cameFrom[cell] = from;
+        this.cameThrough[cell] = through;
+        if (this.generations[cell] != this.generation || this.heapPositions[cell] == IndexedAStar.CLOSED) {
+            this.generations[cell] = this.generation;
+            this.heap[this.heapSize] = cell;
+            this.heapPositions[cell] = this.heapSize;
+            this.heapSize++;
+        }
+        this.siftUp(this.heapPositions[cell]);
+        return true;
+    }
+
+    private int poll() {
+        final int result = this.heap[0];
+        this.heapPositions[result] = IndexedAStar.CLOSED;
+        this.heapSize--;
+        if (this.heapSize > 0) {
+            final int last = this.heap[this.heapSize];
+            this.heap[0] = last;
+            this.heapPositions[last] = 0;
+            this.siftDown(0);
+        }
+        return result;
+    }
+
+    private int reconstructPath(final int source, final int target) {
+        int length = 0;
+        for (int current = target; current != source; current = this.cameFrom[current]) {
+            this.path[length++] = this.cameThrough[current];
+        }
+        // the path was collected from the target, turn it around
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            final int tmp = this.path[i];
+            this.path[i] = this.path[j];
+            this.path[j] = tmp;
+        }
+        this.pathLength = length;
+        return length;
+    }
+
+    private void siftDown(final int position) {
+        final int cell = this.heap[position];
+        int current = position;
+        while (true) {
+            int child = 2 * current + 1;
+            if (child >= this.heapSize) {
+                break;
+            }
+            if (child + 1 < this.heapSize && this.isBetter(this.heap[child + 1], this.heap[child])) {
+                child++;
+            }
+            if (!this.isBetter(this.heap[child], cell)) {
+                break;
+            }
+            this.heap[current] = this.heap[child];
+            this.heapPositions[this.heap[current]] = current;
+            current = child;
+        }
+        this.heap[current] = cell;
+        this.heapPositions[cell] = current;
+    }
+
+    private void siftUp(final int position) {
+        final int cell = this.heap[position];
+        int current = position;
+        while (current > 0) {
+            final int parent = (current - 1) / 2;
+            if (!this.isBetter(cell, this.heap[parent])) {
+                break;
+            }
+            this.heap[current] = this.heap[parent];
+            this.heapPositions[this.heap[current]] = current;
+            current = parent;
+        }
+        this.heap[current] = cell;
+        this.heapPositions[cell] = current;
+    }
+
+}
@@ -3,15 +3,13 @@ package org.drooms.impl.util.shortestpath.astar;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import org.drooms.api.Edge;
 import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.CellGraph;
+import org.drooms.impl.util.shortestpath.DistanceTable;
 
 import edu.uci.ics.jung.algorithms.shortestpath.ShortestPath;
 import edu.uci.ics.jung.graph.Graph;
@@ -20,6 +18,12 @@ import edu.uci.ics.jung.graph.Graph;
  * Implements the A* algorithm with various choices of distance-estimating
  * heuristics. All edges are considered to have the same weight, that is 1.
  * 
+ * <p>
+ * The search itself is performed by {@link IndexedAStar} on the cell indices
+ * of the vertices; this class only translates between the vertices and the
+ * indices.
+ * </p>
+ * 
  * @param <V>
  *            Vertex.
  * @param <E>
@@ -33,18 +37,13 @@ public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
         MANHATTAN, EUCLIDEAN, CHEBYSHEV;
     }
 
-    /**
-     * Unweighted.
-     */
-    private static final int DISTANCE_BETWEEN_NEIGHBORS = 1;
-
     private final Graph<V, E> graph;
 
-    private final Map<V, AStarNode<V>> nodeCache = new HashMap<>();
+    private final CellGraph grid;
 
-    private final DistanceHeuristic<V> heuristics;
+    private final IndexedAStar search;
 
-    private final Map<V, Map<V, List<V>>> shortestPaths = new HashMap<>();
+    private final DistanceTable table;
 
     /**
      * Prepare the algorithm.
@@ -57,20 +56,9 @@ public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
     public UnweightedAStarShortestPath(final Graph<V, E> graph,
             final VertexDistanceHeuristics heuristicType) {
         this.graph = graph;
-        switch (heuristicType) {
-            case MANHATTAN:
-                this.heuristics = new ManhattanDistanceHeuristic<V>();
-                break;
-            case EUCLIDEAN:
-                this.heuristics = new EuclideanDistanceHeuristic<V>();
-                break;
-            case CHEBYSHEV:
-                this.heuristics = new ChebyshevDistanceHeuristic<V>();
-                break;
-            default:
-                throw new IllegalArgumentException(
-                        "Unknown distance heuristic: " + heuristicType);
-        }
+        this.grid = new CellGraph(graph);
+        this.search = new IndexedAStar(this.grid, heuristicType);
+        this.table = DistanceTable.get(this.grid);
     }
 
     /**
@@ -80,103 +68,69 @@ public class UnweightedAStarShortestPath<V extends Node, E extends Edge>
      *            Source vertex.
      * @param target
      *            Target vertex.
-     * @return Unmodifiable. Empty when no path.
+     * @return Unmodifiable. Vertices on the path, including source and target.
+     *         Empty when no path.
      */
+    @SuppressWarnings("unchecked")
     public List<V> find(final V source, final V target) {
-        // prepare the data structures
-        final Set<V> closedSet = new HashSet<>();
-        final SortedSet<AStarNode<V>> openSet = new TreeSet<>();
-        openSet.add(this.getAStarNode(
-                source,
-                new AStarNode<V>(source, 0, this.getHeuristicCostEstimate(
-                        source, target))));
-        final Map<AStarNode<V>, AStarNode<V>> cameFrom = new HashMap<>();
-        // start the lookup
-        while (!openSet.isEmpty()) {
-            final AStarNode<V> current = openSet.first();
-            if (current.getNode() == target) {
-                return Collections.unmodifiableList(this.reconstructPath(
-                        cameFrom, current));
-            }
-            openSet.remove(current);
-            closedSet.add(current.getNode());
-            for (final V neighborNode : this.graph.getNeighbors(current
-                    .getNode())) {
-                if (closedSet.contains(neighborNode)) {
-                    continue;
-                }
-                final double tentativeGScore = current.getG()
-                        + UnweightedAStarShortestPath.DISTANCE_BETWEEN_NEIGHBORS;
-                final AStarNode<V> neighbor = this.getAStarNode(neighborNode);
-                final boolean isNeighborOpen = openSet.contains(neighbor);
-                if (!isNeighborOpen || tentativeGScore <= neighbor.getG()) {
-                    cameFrom.put(neighbor, current);
-                    neighbor.setG(tentativeGScore);
-                    neighbor.setF(tentativeGScore
-                            + this.getHeuristicCostEstimate(neighbor.getNode(),
-                                    target));
-                    if (!isNeighborOpen) {
-                        openSet.add(neighbor);
-                    }
-                }
-            }
+        final int length = this.findPath(source, target);
+        if (length < 0) {
+            return Collections.emptyList();
         }
-        return Collections.unmodifiableList(new ArrayList<V>());
-    }
-
-    private AStarNode<V> getAStarNode(final V node) {
-        return this.getAStarNode(node, new AStarNode<V>(node, 0, 0));
+        final List<V> result = new ArrayList<>(length + 1);
+        result.add(source);
+        for (int i = 0; i < length; i++) {
+            final int slot = this.search.getPathSlot(i);
+            result.add((V) this.grid.getNode(this.grid.getNeighbor(slot)));
+        }
+        return Collections.unmodifiableList(result);
     }
 
-    private AStarNode<V> getAStarNode(final V node,
-            final AStarNode<V> returnIfNonexistent) {
-        if (!this.nodeCache.containsKey(node)) {
-            this.nodeCache.put(node, returnIfNonexistent);
+    private int findPath(final V source, final V target) {
+        if (!this.graph.containsVertex(source)
+                || !this.graph.containsVertex(target)) {
+            return -1;
         }
-        return this.nodeCache.get(node);
+        return this.search.find(this.grid.getIndex(source),
+                this.grid.getIndex(target), null);
     }
 
-    private double getHeuristicCostEstimate(final V source, final V target) {
-        return this.heuristics.estimateDistance(source, target);
+    private int getDistance(final int from, final int to) {
+        if (this.table != null) {
+            return this.table.getDistance(from, to);
+        }
+        return this.search.find(from, to, null);
     }
 
+    /**
+     * For every vertex reachable from the source, retrieve the last edge on
+     * the shortest path from the source to that vertex. The edges are derived
+     * from the {@link DistanceTable}, without any searching.
+     */
+    @SuppressWarnings("unchecked")
     @Override
     public Map<V, E> getIncomingEdgeMap(final V source) {
-        if (!this.shortestPaths.containsKey(source)) {
-            this.shortestPaths.put(source, new HashMap<V, List<V>>());
+        if (!this.graph.containsVertex(source)) {
+            return Collections.emptyMap();
         }
-        final Map<V, List<V>> relevantPaths = this.shortestPaths.get(source);
+        final int sourceIndex = this.grid.getIndex(source);
         final Map<V, E> result = new HashMap<>();
         for (final V target : this.graph.getVertices()) {
-            if (target == source) {
+            final int targetIndex = this.grid.getIndex(target);
+            final int distance = this.getDistance(targetIndex, sourceIndex);
+            if (distance < 1) {
                 continue;
             }
-            if (!relevantPaths.containsKey(target)) {
-                relevantPaths.put(target, this.find(source, target));
-            }
-            final List<V> path = relevantPaths.get(target);
-            if (path.size() == 0) {
-                continue;
+            // any neighbor that is one step closer to the source will do
+            final int lastSlot = this.grid.getLastNeighborSlot(targetIndex);
+            for (int slot = this.grid.getFirstNeighborSlot(targetIndex); slot < lastSlot; slot++) {
+                if (this.getDistance(this.grid.getNeighbor(slot), sourceIndex) == distance - 1) {
+                    result.put(target, (E) this.grid.getEdge(slot));
+                    break;
+                }
             }
-            final V next = path.get(1);
-            result.put(next, this.graph.findEdge(source, next));
         }
         return Collections.unmodifiableMap(result);
     }
 
-    private List<V> reconstructPath(
-            final Map<AStarNode<V>, AStarNode<V>> cameFrom,
-            final AStarNode<V> currentNode) {
-        if (cameFrom.containsKey(currentNode)) {
-            final List<V> path = this.reconstructPath(cameFrom,
-                    cameFrom.get(currentNode));
-            path.add(currentNode.getNode());
-            return path;
-        } else {
-            final List<V> result = new ArrayList<>();
-            result.add(currentNode.getNode());
-            return result;
-        }
-    }
-
 }
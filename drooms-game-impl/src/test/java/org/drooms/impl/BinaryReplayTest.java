@@ -0,0 +1,175 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.util.GameProperties;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class BinaryReplayTest {
+
+    /**
+     * Remembers everything that happened, in a form that can be compared.
+     */
+    private static class RecordingListener implements GameProgressListener {
+
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void collectibleAdded(final Collectible c) {
+            this.events.add("added " + c.getAt() + " " + c.getPoints() + " " + c.expiresInTurn());
+        }
+
+        @Override
+        public void collectibleCollected(final Collectible c, final Player p, final int points) {
+            this.events.add("collected " + c.getAt() + " " + p.getName() + " " + points);
+        }
+
+        @Override
+        public void collectibleRemoved(final Collectible c) {
+            this.events.add("removed " + c.getAt() + " " + c.getPoints() + " " + c.expiresInTurn());
+        }
+
+        public List<String> getEvents() {
+            return this.events;
+        }
+
+        @Override
+        public void nextTurn() {
+            this.events.add("turn");
+        }
+
+        @Override
+        public void playerCrashed(final Player p) {
+            this.events.add("crashed " + p.getName());
+        }
+
+        @Override
+        public void playerDeactivated(final Player p) {
+            this.events.add("deactivated " + p.getName());
+        }
+
+        @Override
+        public void playerPerformedAction(final Player p, final Action m, final Node... nodes) {
+            this.events.add("moved " + p.getName() + " " + m + " " + Arrays.toString(nodes));
+        }
+
+        @Override
+        public void playerSurvived(final Player p, final int points) {
+            this.events.add("survived " + p.getName() + " " + points);
+        }
+
+        @Override
+        public void write(final Writer w) throws IOException {
+            // nothing to write
+        }
+
+    }
+
+    private static final int TURNS = 10;
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    /**
+     * Worm A moves to the right and reverses at turn 6, worm B crashes at turn 3.
+     */
+    private static void play(final Playground p, final Player a, final Player b, final GameProgressListener listener) {
+        for (int turn = 0; turn < BinaryReplayTest.TURNS; turn++) {
+            listener.nextTurn();
+            if (turn < 6) {
+                final int head = turn + 2;
+                listener.playerPerformedAction(a, Action.MOVE_RIGHT, p.getNodeAt(head, 0), p.getNodeAt(head - 1, 0),
+                        p.getNodeAt(head - 2, 0));
+            } else {
+                final int head = 13 - turn;
+                listener.playerPerformedAction(a, turn == 6 ? Action.REVERSE : Action.MOVE_LEFT, p.getNodeAt(head, 0),
+                        p.getNodeAt(head + 1, 0), p.getNodeAt(head + 2, 0));
+            }
+            if (turn < 3) {
+                listener.playerPerformedAction(b, Action.NOTHING, p.getNodeAt(0, 2));
+            } else if (turn == 3) {
+                listener.playerCrashed(b);
+                listener.playerSurvived(a, 5);
+            }
+            if (turn == 4) {
+                final Collectible c = new Collectible(p.getNodeAt(7, 1), 10, 8);
+                listener.collectibleAdded(c);
+                listener.collectibleCollected(c, a, 10);
+                listener.collectibleRemoved(new Collectible(p.getNodeAt(1, 1), 5));
+            }
+        }
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        final Playground p = new DefaultPlayground("test", Arrays.asList("         @", "          ", "@         "));
+        final GameProperties config = GameProperties.read(new ByteArrayInputStream(
+                "collectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1"
+                        .getBytes(StandardCharsets.UTF_8)));
+        final Player a = BinaryReplayTest.createPlayer("a");
+        final Player b = BinaryReplayTest.createPlayer("b");
+        final File f = File.createTempFile("drooms-", ".replay");
+        f.deleteOnExit();
+        final RecordingListener expected = new RecordingListener();
+        try (BinaryProgressListener writer = new BinaryProgressListener(p, Arrays.asList(a, b), config, f, 4)) {
+            BinaryReplayTest.play(p, a, b, expected);
+            BinaryReplayTest.play(p, a, b, writer);
+        }
+        try (BinaryReplay replay = new BinaryReplay(f)) {
+            Assert.assertEquals(BinaryReplayTest.TURNS, replay.getTurnCount());
+            Assert.assertEquals(Arrays.asList(a, b), replay.getPlayers());
+            Assert.assertEquals("1", replay.getConfig().get("collectible.price.a"));
+            Assert.assertEquals(p.getWidth(), replay.getWidth());
+            Assert.assertEquals(p.getHeight(), replay.getHeight());
+            Assert.assertEquals(p.getNodeAt(9, 0), replay.getNodeAt(9, 0));
+            Assert.assertTrue(replay.isAvailable(5, 1));
+            // whole game
+            final RecordingListener actual = new RecordingListener();
+            replay.replay(actual);
+            Assert.assertEquals(expected.getEvents(), actual.getEvents());
+            // single turns, in any order
+            final int[] turns = new int[] { 9, 0, 6, 3, 7, 4 };
+            for (final int turn : turns) {
+                final RecordingListener single = new RecordingListener();
+                final Map<Player, Deque<Node>> positions = replay.replay(turn, single);
+                final int start = BinaryReplayTest.turnStart(expected.getEvents(), turn);
+                final int end = BinaryReplayTest.turnStart(expected.getEvents(), turn + 1);
+                Assert.assertEquals(expected.getEvents().subList(start, end), single.getEvents());
+                Assert.assertEquals(turn < 3 ? 2 : 1, positions.size());
+                Assert.assertEquals(3, positions.get(a).size());
+            }
+        }
+    }
+
+    private static int turnStart(final List<String> events, final int turn) {
+        int found = -1;
+        for (int i = 0; i < events.size(); i++) {
+            if (events.get(i).equals("turn")) {
+                found++;
+                if (found == turn) {
+                    return i;
+                }
+            }
+        }
+        return events.size();
+    }
+
+}
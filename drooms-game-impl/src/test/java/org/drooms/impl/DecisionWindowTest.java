@@ -0,0 +1,45 @@
+package org.drooms.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.drooms.api.Action;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DecisionWindowTest {
+
+    @Test
+    public void testInactiveTurns() {
+        final DecisionWindow window = new DecisionWindow(2);
+        window.addDecision(Action.NOTHING);
+        window.addDecision(Action.NOTHING);
+        Assert.assertEquals(2, window.getInactiveTurns());
+        window.addDecision(Action.MOVE_UP);
+        Assert.assertEquals(0, window.getInactiveTurns());
+        // the count goes on beyond what the window remembers
+        for (int i = 0; i < 5; i++) {
+            window.addDecision(Action.NOTHING);
+        }
+        Assert.assertEquals(5, window.getInactiveTurns());
+    }
+
+    @Test
+    public void testWindow() {
+        final DecisionWindow window = new DecisionWindow(3);
+        Assert.assertEquals(Collections.emptyList(), window);
+        window.addDecision(Action.MOVE_UP);
+        window.addDecision(Action.MOVE_DOWN);
+        Assert.assertEquals(Arrays.asList(Action.MOVE_UP, Action.MOVE_DOWN), window);
+        window.addDecision(Action.MOVE_LEFT);
+        window.addDecision(Action.MOVE_RIGHT);
+        window.addDecision(Action.REVERSE);
+        Assert.assertEquals(Arrays.asList(Action.MOVE_LEFT, Action.MOVE_RIGHT, Action.REVERSE), window);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new DecisionWindow(0);
+    }
+
+}
@@ -0,0 +1,170 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.drooms.api.Action;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class DefaultGameTest {
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    private final Player a = DefaultGameTest.createPlayer("a");
+    private final Player b = DefaultGameTest.createPlayer("b");
+    private final List<Player> players = Arrays.asList(this.a, this.b);
+    private DefaultGame game;
+    private Playground playground;
+
+    private void move(final Player p, final Action action) {
+        this.game.performPlayerAction(p, this.playground, action);
+    }
+
+    private void place(final Player p, final int length, final int... coordinates) {
+        final Deque<Node> position = new LinkedList<Node>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            position.add(this.playground.getNodeAt(coordinates[i], coordinates[i + 1]));
+        }
+        this.game.setPlayerPosition(p, position);
+        this.game.setPlayerLength(p, length);
+    }
+
+    @Before
+    public void setUp() {
+        // bottom row first; there is a single wall in the middle
+        this.playground = new DefaultPlayground("test", Arrays.asList("     ", "  #  ", "     "));
+        this.game = new DefaultGame();
+        this.game.preparePlayground(this.playground);
+    }
+
+    @Test
+    public void testDisqualifiedPlayers() {
+        // neither strategy exists, so both players are disqualified before the first turn
+        final Playground playground = new DefaultPlayground("test", Arrays.asList("@   @"));
+        final DefaultGame game = new DefaultGame();
+        game.setContext(new ByteArrayInputStream(("collectibles=a\ncollectible.expiration.a=1\n"
+                + "collectible.price.a=1\ncollectible.probability.a=0").getBytes(StandardCharsets.UTF_8)));
+        game.play(playground, this.players, null);
+        Assert.assertEquals(0, game.getOccupancy(playground.getNodeAt(0, 0)));
+        Assert.assertEquals(0, game.getOccupancy(playground.getNodeAt(4, 0)));
+    }
+
+    @Test
+    public void testFailedGame() throws IOException {
+        final Playground playground = new DefaultPlayground("test", Arrays.asList("@   @"));
+        final DefaultGame game = new DefaultGame() {
+
+            @Override
+            protected Set<Player> performCollisionDetection(final Playground playground,
+                    final Collection<Player> currentPlayers) {
+                throw new IllegalStateException("Failed.");
+            }
+
+        };
+        game.setContext(new ByteArrayInputStream(("collectibles=a\ncollectible.expiration.a=1\n"
+                + "collectible.price.a=1\ncollectible.probability.a=0\nreport.decisions=true\nreport.streaming=true")
+                .getBytes(StandardCharsets.UTF_8)));
+        final File reportFolder = Files.createTempDirectory("drooms").toFile();
+        try {
+            try {
+                game.play(playground, this.players, reportFolder);
+                Assert.fail("The game should have failed.");
+            } catch (final IllegalStateException ex) {
+                Assert.assertEquals("Failed.", ex.getMessage());
+            }
+            // the buffered header only makes it into the file when the log is closed
+            Assert.assertEquals("turn,action,player\n", FileUtils.readFileToString(new File(reportFolder,
+                    "decisions.csv"), StandardCharsets.UTF_8));
+        } finally {
+            FileUtils.deleteDirectory(reportFolder);
+        }
+    }
+
+    @Test
+    public void testHeadOnBodyCollision() {
+        this.place(this.a, 3, 3, 2, 2, 2, 1, 2);
+        this.place(this.b, 3, 3, 1, 4, 1);
+        this.move(this.a, Action.MOVE_RIGHT);
+        this.move(this.b, Action.MOVE_UP);
+        Assert.assertEquals(Collections.singleton(this.b),
+                this.game.performCollisionDetection(this.playground, this.players));
+    }
+
+    @Test
+    public void testHeadOnHeadCollision() {
+        this.place(this.a, 2, 1, 0, 0, 0);
+        this.place(this.b, 2, 3, 0, 4, 0);
+        this.move(this.a, Action.MOVE_RIGHT);
+        this.move(this.b, Action.MOVE_LEFT);
+        Assert.assertEquals(new HashSet<Player>(this.players),
+                this.game.performCollisionDetection(this.playground, this.players));
+    }
+
+    @Test
+    public void testNoCollision() {
+        this.place(this.a, 3, 1, 0, 0, 0);
+        this.place(this.b, 3, 3, 2, 4, 2);
+        for (int i = 0; i < 3; i++) {
+            this.move(this.a, Action.MOVE_RIGHT);
+            this.move(this.b, Action.MOVE_LEFT);
+            this.move(this.a, Action.REVERSE);
+            this.move(this.a, Action.REVERSE);
+            Assert.assertTrue(this.game.performCollisionDetection(this.playground, this.players).isEmpty());
+        }
+        // the worms vacated the nodes at their tails
+        Assert.assertEquals(0, this.game.getOccupancy(this.playground.getNodeAt(0, 0)));
+        Assert.assertEquals(1, this.game.getOccupancy(this.playground.getNodeAt(2, 0)));
+        Assert.assertEquals(1, this.game.getOccupancy(this.playground.getNodeAt(2, 2)));
+    }
+
+    @Test
+    public void testSelfCollision() {
+        this.place(this.a, 5, 1, 1, 1, 2, 0, 2, 0, 1, 0, 0);
+        this.place(this.b, 1, 4, 0);
+        this.move(this.a, Action.MOVE_LEFT);
+        Assert.assertEquals(Collections.singleton(this.a),
+                this.game.performCollisionDetection(this.playground, this.players));
+    }
+
+    @Test
+    public void testWallCollision() {
+        this.place(this.a, 1, 1, 1);
+        this.place(this.b, 1, 4, 0);
+        this.move(this.a, Action.MOVE_RIGHT);
+        Assert.assertEquals(Collections.singleton(this.a),
+                this.game.performCollisionDetection(this.playground, this.players));
+    }
+
+    @Test
+    public void testWallCollisionTakesNobodyDown() {
+        // a crashes into the wall while b moves into a's body
+        this.place(this.a, 3, 1, 1, 1, 0, 0, 0);
+        this.place(this.b, 1, 2, 0);
+        this.move(this.a, Action.MOVE_RIGHT);
+        this.move(this.b, Action.MOVE_LEFT);
+        Assert.assertEquals(2, this.game.getOccupancy(this.playground.getNodeAt(1, 0)));
+        Assert.assertEquals(Collections.singleton(this.a),
+                this.game.performCollisionDetection(this.playground, this.players));
+    }
+
+}
@@ -0,0 +1,53 @@
+package org.drooms.impl;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class GameSummaryTest {
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    @Test
+    public void testSummary() throws IOException {
+        final Player a = GameSummaryTest.createPlayer("a");
+        final Player b = GameSummaryTest.createPlayer("b");
+        final GameSummary summary = new GameSummary();
+        for (int turn = 0; turn < 5; turn++) {
+            summary.nextTurn();
+            summary.playerPerformedAction(a, Action.MOVE_UP, new Node(0, turn));
+            if (turn < 2) {
+                summary.playerPerformedAction(b, Action.NOTHING, new Node(5, 5));
+            }
+            if (turn == 1) {
+                summary.playerDeactivated(b);
+                summary.playerSurvived(a, 5);
+            }
+            if (turn == 3) {
+                summary.collectibleCollected(new Collectible(new Node(0, 3), 10), a, 10);
+            }
+        }
+        Assert.assertEquals(5, summary.getTurns());
+        Assert.assertEquals(15, summary.getPoints(a));
+        Assert.assertEquals(1, summary.getCollectibles(a));
+        Assert.assertEquals(5, summary.getTurnsSurvived(a));
+        Assert.assertEquals(GameSummary.Fate.SURVIVED, summary.getFate(a));
+        Assert.assertEquals(0, summary.getPoints(b));
+        Assert.assertEquals(2, summary.getTurnsSurvived(b));
+        Assert.assertEquals(GameSummary.Fate.DEACTIVATED, summary.getFate(b));
+        final StringWriter w = new StringWriter();
+        summary.write(w);
+        Assert.assertEquals("points,collectibles,turns,fate,player\n15,1,5,SURVIVED,a\n0,0,2,DEACTIVATED,b\n",
+                w.toString());
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.drooms.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Playground;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.graph.Graph;
+
+public class GridPlaygroundTest {
+
+    private List<String> readLines(final String resource) throws IOException {
+        try (InputStream is = this.getClass().getResourceAsStream(resource)) {
+            final List<String> lines = IOUtils.readLines(is);
+            Collections.reverse(lines);
+            return lines;
+        }
+    }
+
+    @Test
+    public void testGoodPlayground() throws IOException {
+        final Playground p = new GridPlayground("test", this.readLines("good_playground.txt"));
+        Assert.assertEquals(4, p.getWidth());
+        Assert.assertEquals(5, p.getHeight());
+        final List<Node> startingPositions = p.getStartingPositions();
+        Assert.assertEquals(2, startingPositions.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBadPortal1() throws IOException {
+        new GridPlayground("test", this.readLines("playground_multiportal.txt"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBadPortal2() throws IOException {
+        new GridPlayground("test", this.readLines("playground_unfinished_portal.txt"));
+    }
+
+    @Test
+    public void testBounds() throws IOException {
+        final GridPlayground p = new GridPlayground("test", this.readLines("good_playground.txt"));
+        Assert.assertFalse(p.isAvailable(-1, 0));
+        Assert.assertFalse(p.isAvailable(0, -1));
+        Assert.assertFalse(p.isAvailable(p.getWidth(), 0));
+        Assert.assertFalse(p.isAvailable(0, p.getHeight()));
+        Assert.assertNull(p.getNodeAt(-1, -1));
+        Assert.assertEquals(GridPlayground.NO_CELL, p.getIndex(p.getWidth(), 0));
+    }
+
+    @Test
+    public void testPortals() throws IOException {
+        final GridPlayground p = new GridPlayground("test", this.readLines("good_playground.txt"));
+        final Node portal1 = p.getNodeAt(1, 3);
+        final Node portal2 = p.getNodeAt(2, 1);
+        Assert.assertEquals(Type.PORTAL, portal1.getType());
+        Assert.assertEquals(Type.PORTAL, portal2.getType());
+        Assert.assertSame(portal2, p.getOtherEndOfPortal(portal1));
+        Assert.assertSame(portal1, p.getOtherEndOfPortal(portal2));
+        Assert.assertEquals(p.getIndex(portal2), p.getNeighbor(p.getIndex(portal1), 4));
+    }
+
+    @Test
+    public void testSameAsDefaultPlayground() throws IOException {
+        final List<String> lines = this.readLines("good_playground.txt");
+        final Playground expected = new DefaultPlayground("test", lines);
+        final Playground actual = new GridPlayground("test", lines);
+        Assert.assertEquals(expected.getStartingPositions(), actual.getStartingPositions());
+        Assert.assertEquals(new HashSet<Node>(expected.getNodes()), new HashSet<Node>(actual.getNodes()));
+        for (int x = -1; x <= expected.getWidth(); x++) {
+            for (int y = -1; y <= expected.getHeight(); y++) {
+                Assert.assertEquals(expected.isAvailable(x, y), actual.isAvailable(x, y));
+                Assert.assertEquals(expected.getNodeAt(x, y), actual.getNodeAt(x, y));
+            }
+        }
+        final Graph<Node, Edge> expectedGraph = expected.getGraph();
+        final Graph<Node, Edge> actualGraph = actual.getGraph();
+        Assert.assertEquals(new HashSet<Node>(expectedGraph.getVertices()),
+                new HashSet<Node>(actualGraph.getVertices()));
+        Assert.assertEquals(new HashSet<Edge>(expectedGraph.getEdges()), new HashSet<Edge>(actualGraph.getEdges()));
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.drooms.impl;
+
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.Set;
+
+import org.drooms.api.Node;
+import org.drooms.api.Playground;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OccupancyGridTest {
+
+    private WormBody body;
+    private OccupancyGrid grid;
+    private Playground playground;
+
+    private Set<Node> pickAll() {
+        final Random random = new Random(0);
+        final Set<Node> picked = new HashSet<Node>();
+        for (int i = 0; i < 1000; i++) {
+            picked.add(this.grid.pickFreeNode(random));
+        }
+        return picked;
+    }
+
+    private Deque<Node> position(final int... coordinates) {
+        final Deque<Node> position = new LinkedList<Node>();
+        for (int i = 0; i < coordinates.length; i += 2) {
+            position.add(this.playground.getNodeAt(coordinates[i], coordinates[i + 1]));
+        }
+        return position;
+    }
+
+    @Before
+    public void setUp() {
+        this.playground = new DefaultPlayground("test", Arrays.asList("@  ", "  #"));
+        this.grid = new OccupancyGrid(this.playground);
+        this.body = new WormBody(this.grid);
+    }
+
+    @Test
+    public void testCollectibles() {
+        final Node n = this.playground.getNodeAt(1, 0);
+        this.grid.setCollectible(n, true);
+        Assert.assertEquals(4, this.grid.getFreeNodeCount());
+        Assert.assertFalse(this.pickAll().contains(n));
+        // a worm moves over the collectible and collects it
+        this.body.setNodes(this.position(1, 0));
+        this.grid.setCollectible(n, false);
+        Assert.assertEquals(4, this.grid.getFreeNodeCount());
+        this.body.setNodes(this.position(2, 0));
+        Assert.assertEquals(4, this.grid.getFreeNodeCount());
+        Assert.assertTrue(this.pickAll().contains(n));
+    }
+
+    @Test
+    public void testFreeNodes() {
+        Assert.assertEquals(5, this.grid.getFreeNodeCount());
+        this.body.setNodes(this.position(0, 0, 0, 1));
+        Assert.assertEquals(3, this.grid.getFreeNodeCount());
+        Assert.assertEquals(new HashSet<Node>(this.position(1, 0, 2, 0, 1, 1)), this.pickAll());
+        // head moves right, tail follows
+        this.body.setNodes(this.position(1, 0, 0, 0));
+        Assert.assertEquals(new HashSet<Node>(this.position(2, 0, 0, 1, 1, 1)), this.pickAll());
+        this.body.removeFromPlayground();
+        Assert.assertEquals(5, this.grid.getFreeNodeCount());
+    }
+
+    @Test
+    public void testNoFreeNodes() {
+        this.body.setNodes(this.position(0, 1, 1, 1, 1, 0, 0, 0, 2, 0));
+        Assert.assertEquals(0, this.grid.getFreeNodeCount());
+        Assert.assertNull(this.grid.pickFreeNode(new Random(0)));
+    }
+
+}
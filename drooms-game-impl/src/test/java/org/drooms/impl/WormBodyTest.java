@@ -0,0 +1,149 @@
+package org.drooms.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.drooms.api.Action;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.logic.DecisionMaker;
+import org.drooms.impl.logic.commands.PlayerActionCommand;
+import org.drooms.impl.logic.events.PlayerActionEvent;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class WormBodyTest {
+
+    private WormBody body;
+    private OccupancyGrid grid;
+    private Playground playground;
+
+    private List<Node> row(final int from, final int to) {
+        final List<Node> nodes = new ArrayList<Node>();
+        final int step = from < to ? 1 : -1;
+        for (int x = from; x != to + step; x += step) {
+            nodes.add(this.playground.getNodeAt(x, 0));
+        }
+        return nodes;
+    }
+
+    @Before
+    public void setUp() {
+        this.playground = new DefaultPlayground("test", Arrays.asList("                                        "));
+        this.grid = new OccupancyGrid(this.playground);
+        this.body = new WormBody(this.grid);
+    }
+
+    @Test
+    public void testActionEvent() {
+        final Player player = new Player("test", KieServices.Factory.get().newReleaseId("org.drooms", "test", "1.0"));
+        this.body.setNodes(this.row(3, 0));
+        final PlayerActionCommand command = new PlayerActionCommand(player, Action.MOVE_RIGHT, this.body);
+        final DecisionMaker logic = Mockito.mock(DecisionMaker.class);
+        command.perform(logic);
+        final ArgumentCaptor<PlayerActionEvent> event = ArgumentCaptor.forClass(PlayerActionEvent.class);
+        Mockito.verify(logic).notifyOfPlayerMove(event.capture());
+        // the worm moves on, while the event stays in the strategy's session
+        this.body.push(this.playground.getNodeAt(4, 0));
+        this.body.removeTail();
+        Assert.assertEquals(this.row(3, 0), new ArrayList<Node>(event.getValue().getNodes()));
+        Assert.assertEquals(this.row(3, 0), new ArrayList<Node>(command.getNodes()));
+    }
+
+    @Test
+    public void testGrowth() {
+        // longer than the initial capacity, with the buffer wrapped around and reversed
+        this.body.setNodes(this.row(0, 2));
+        this.body.reverse();
+        for (int x = 3; x < 30; x++) {
+            this.body.push(this.playground.getNodeAt(x, 0));
+            if (x % 3 == 0) {
+                this.body.removeTail();
+            }
+        }
+        final List<Node> expected = this.row(29, 9);
+        Assert.assertEquals(expected, new ArrayList<Node>(this.body.asDeque()));
+        Assert.assertEquals(expected, Arrays.asList(this.body.toArray()));
+        Assert.assertEquals(expected.size(), 40 - this.grid.getFreeNodeCount());
+    }
+
+    @Test
+    public void testMove() {
+        this.body.setNodes(this.row(3, 0));
+        this.body.push(this.playground.getNodeAt(4, 0));
+        this.body.removeTail();
+        Assert.assertEquals(this.row(4, 1), new ArrayList<Node>(this.body.asDeque()));
+        Assert.assertEquals(this.playground.getNodeAt(4, 0), this.body.getHead());
+        Assert.assertEquals(this.playground.getNodeAt(1, 0), this.body.getTail());
+        Assert.assertEquals(0, this.grid.getOccupancy(this.playground.getNodeAt(0, 0)));
+        Assert.assertEquals(1, this.grid.getOccupancy(this.playground.getNodeAt(4, 0)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnlyView() {
+        this.body.setNodes(this.row(3, 0));
+        this.body.asDeque().removeLast();
+    }
+
+    @Test
+    public void testRemoveFromPlayground() {
+        this.body.setNodes(this.row(3, 0));
+        this.body.removeFromPlayground();
+        Assert.assertEquals(40, this.grid.getFreeNodeCount());
+        // the worm keeps its nodes, but no longer occupies them
+        this.body.removeTail();
+        Assert.assertEquals(40, this.grid.getFreeNodeCount());
+        Assert.assertEquals(3, this.body.size());
+    }
+
+    @Test
+    public void testReverse() {
+        this.body.setNodes(this.row(3, 0));
+        this.body.reverse();
+        Assert.assertEquals(this.row(0, 3), new ArrayList<Node>(this.body.asDeque()));
+        // the reversed worm moves on from its former tail
+        this.body.push(this.playground.getNodeAt(4, 0));
+        this.body.removeTail();
+        this.body.reverse();
+        this.body.push(this.playground.getNodeAt(5, 0));
+        this.body.removeTail();
+        final List<Node> expected = Arrays.asList(this.playground.getNodeAt(5, 0), this.playground.getNodeAt(2, 0),
+                this.playground.getNodeAt(1, 0), this.playground.getNodeAt(0, 0));
+        Assert.assertEquals(expected, new ArrayList<Node>(this.body.asDeque()));
+        final List<Node> descending = new LinkedList<Node>();
+        final Iterator<Node> it = this.body.asDeque().descendingIterator();
+        while (it.hasNext()) {
+            descending.add(it.next());
+        }
+        Collections.reverse(descending);
+        Assert.assertEquals(expected, descending);
+    }
+
+    @Test
+    public void testSnapshot() {
+        this.body.setNodes(this.row(3, 0));
+        final Deque<Node> snapshot = this.body.snapshot();
+        this.body.reverse();
+        this.body.push(this.playground.getNodeAt(4, 0));
+        Assert.assertEquals(this.row(3, 0), new ArrayList<Node>(snapshot));
+        Assert.assertEquals(this.playground.getNodeAt(3, 0), snapshot.peekFirst());
+        Assert.assertEquals(this.playground.getNodeAt(0, 0), snapshot.getLast());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testSnapshotReadOnly() {
+        this.body.setNodes(this.row(3, 0));
+        this.body.snapshot().push(this.playground.getNodeAt(4, 0));
+    }
+
+}
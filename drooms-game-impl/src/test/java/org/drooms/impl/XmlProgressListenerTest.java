@@ -0,0 +1,145 @@
+package org.drooms.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.commons.io.FileUtils;
+import org.drooms.api.Action;
+import org.drooms.api.Collectible;
+import org.drooms.api.GameProgressListener;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.util.GameProperties;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+public class XmlProgressListenerTest {
+
+    private static final Playground PLAYGROUND = new DefaultPlayground("test", Arrays.asList("@   ", "  # ", "   @"));
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    private static int countElements(final Document doc) {
+        return doc.getElementsByTagName("*").getLength();
+    }
+
+    private static Document parse(final String report) throws IOException {
+        try {
+            return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new InputSource(new StringReader(
+                    report)));
+        } catch (final ParserConfigurationException | SAXException ex) {
+            throw new IOException("Malformed report: " + report, ex);
+        }
+    }
+
+    private static GameProperties read(final String properties) throws IOException {
+        return GameProperties.read(new ByteArrayInputStream((properties
+                + "\ncollectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private final Player a = XmlProgressListenerTest.createPlayer("a");
+    private final Player b = XmlProgressListenerTest.createPlayer("b");
+
+    /**
+     * Worm A collects a collectible, worm B crashes in the second turn.
+     */
+    private void play(final GameProgressListener listener) {
+        final Playground p = XmlProgressListenerTest.PLAYGROUND;
+        final Collectible c = new Collectible(p.getNodeAt(1, 0), 10, 5);
+        listener.nextTurn();
+        listener.playerPerformedAction(this.a, Action.NOTHING, p.getNodeAt(0, 0));
+        listener.playerPerformedAction(this.b, Action.NOTHING, p.getNodeAt(3, 2));
+        listener.collectibleAdded(c);
+        listener.nextTurn();
+        listener.playerPerformedAction(this.a, Action.MOVE_RIGHT, p.getNodeAt(1, 0), p.getNodeAt(0, 0));
+        listener.playerPerformedAction(this.b, Action.MOVE_DOWN, p.getNodeAt(3, 1));
+        listener.playerCrashed(this.b);
+        listener.playerSurvived(this.a, 3);
+        listener.collectibleCollected(c, this.a, 10);
+        listener.collectibleRemoved(new Collectible(p.getNodeAt(2, 2), 5));
+    }
+
+    private String playInMemory(final GameProperties config) throws IOException {
+        final XmlProgressListener listener = new XmlProgressListener(XmlProgressListenerTest.PLAYGROUND,
+                Arrays.asList(this.a, this.b), config);
+        Assert.assertFalse(listener.isStreaming());
+        this.play(listener);
+        final StringWriter first = new StringWriter();
+        listener.write(first);
+        // once complete, the report doesn't change anymore
+        listener.nextTurn();
+        listener.close();
+        final StringWriter second = new StringWriter();
+        listener.write(second);
+        Assert.assertEquals(first.toString(), second.toString());
+        return first.toString();
+    }
+
+    private String playStreaming(final GameProperties config) throws IOException {
+        final File report = File.createTempFile("drooms-", ".xml");
+        try {
+            final XmlProgressListener listener = new XmlProgressListener(XmlProgressListenerTest.PLAYGROUND,
+                    Arrays.asList(this.a, this.b), config, report);
+            Assert.assertTrue(listener.isStreaming());
+            this.play(listener);
+            listener.close();
+            final String result = FileUtils.readFileToString(report, StandardCharsets.UTF_8);
+            // closing again, or writing, neither touches the file nor writes anything elsewhere
+            listener.nextTurn();
+            listener.close();
+            final StringWriter w = new StringWriter();
+            listener.write(w);
+            Assert.assertEquals("", w.toString());
+            Assert.assertEquals(result, FileUtils.readFileToString(report, StandardCharsets.UTF_8));
+            return result;
+        } finally {
+            report.delete();
+        }
+    }
+
+    @Test
+    public void testIndented() throws IOException {
+        final GameProperties config = XmlProgressListenerTest.read("");
+        final String report = this.playInMemory(config);
+        Assert.assertEquals(report, this.playStreaming(config));
+        final Element game = XmlProgressListenerTest.parse(report).getDocumentElement();
+        Assert.assertEquals("game", game.getNodeName());
+        Assert.assertEquals(2, game.getElementsByTagName("turn").getLength());
+        Assert.assertEquals(1, game.getElementsByTagName("crashedPlayer").getLength());
+        Assert.assertEquals(1, game.getElementsByTagName("collectedCollectible").getLength());
+        // only players who scored any points have a score
+        Assert.assertEquals(1, game.getElementsByTagName("score").getLength());
+        Assert.assertEquals("13", ((Element) game.getElementsByTagName("score").item(0)).getAttribute("points"));
+        Assert.assertTrue(report, report.contains("\n  <players>\n    <player name=\"a\"/>"));
+    }
+
+    @Test
+    public void testUnindented() throws IOException {
+        final GameProperties config = XmlProgressListenerTest.read("report.indent=false");
+        final String report = this.playInMemory(config);
+        Assert.assertEquals(report, this.playStreaming(config));
+        final Document indented = XmlProgressListenerTest.parse(this.playInMemory(XmlProgressListenerTest.read("")));
+        final Document unindented = XmlProgressListenerTest.parse(report);
+        // the same elements, just without the whitespace between them; the config also has report.indent
+        Assert.assertEquals(XmlProgressListenerTest.countElements(indented) + 1,
+                XmlProgressListenerTest.countElements(unindented));
+        Assert.assertFalse(report, report.trim().contains("\n"));
+    }
+
+}
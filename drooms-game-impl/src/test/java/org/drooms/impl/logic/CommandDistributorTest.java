@@ -0,0 +1,217 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.api.Action;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.impl.logic.commands.Command;
+import org.drooms.impl.util.GameProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CommandDistributorTest {
+
+    private static final int TIMEOUT = 500;
+
+    private static final CommandDistributor.TurnChanges NO_CHANGES = new CommandDistributor.TurnChanges(
+            Collections.<WormDelta> emptyList(), Collections.<Command> emptyList());
+
+    private static GameProperties read(final String properties) throws IOException {
+        return GameProperties.read(new ByteArrayInputStream((properties
+                + "\ncollectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Create a strategy that takes the given time to decide.
+     */
+    private static DecisionMaker strategy(final String name, final long millis, final Action decision) {
+        return CommandDistributorTest.strategy(name, new Answer<Action>() {
+
+            @Override
+            public Action answer(final InvocationOnMock invocation) throws InterruptedException {
+                Thread.sleep(millis);
+                return decision;
+            }
+
+        });
+    }
+
+    private static DecisionMaker strategy(final String name, final Answer<Action> decision) {
+        final Player player = new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+        final DecisionMaker strategy = Mockito.mock(DecisionMaker.class);
+        Mockito.when(strategy.getPlayer()).thenReturn(player);
+        Mockito.when(strategy.getMetrics()).thenReturn(StrategyMetrics.forPlayer(player, false));
+        Mockito.when(strategy.decideNextMove()).thenAnswer(decision);
+        return strategy;
+    }
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CommandDistributor distributor;
+
+    /**
+     * Create a strategy that doesn't decide until released, no matter the interruptions.
+     */
+    private DecisionMaker stubborn(final String name) {
+        final CountDownLatch release = this.release;
+        return CommandDistributorTest.strategy(name, new Answer<Action>() {
+
+            @Override
+            public Action answer(final InvocationOnMock invocation) {
+                while (true) {
+                    try {
+                        release.await();
+                        return Action.MOVE_UP;
+                    } catch (final InterruptedException e) {
+                        // ignore
+                    }
+                }
+            }
+
+        });
+    }
+
+    @Test
+    public void testConcurrentTimeouts() throws IOException {
+        final DecisionMaker slow = CommandDistributorTest.strategy("slow", 10 * CommandDistributorTest.TIMEOUT,
+                Action.MOVE_UP);
+        final DecisionMaker quick = CommandDistributorTest.strategy("quick", CommandDistributorTest.TIMEOUT * 2 / 5,
+                Action.MOVE_DOWN);
+        final DecisionMaker late = CommandDistributorTest.strategy("late", CommandDistributorTest.TIMEOUT * 4 / 5,
+                Action.MOVE_LEFT);
+        final Map<Player, DecisionMaker> players = new LinkedHashMap<Player, DecisionMaker>();
+        for (final DecisionMaker strategy : new DecisionMaker[] { slow, quick, late }) {
+            players.put(strategy.getPlayer(), strategy);
+        }
+        // fewer threads than players, so that the last strategy waits for the quick one
+        this.distributor = new CommandDistributor(players, CommandDistributorTest.read("worm.decision.threads=2"),
+                CommandDistributorTest.TIMEOUT);
+        final long start = System.nanoTime();
+        final Map<Player, Action> moves = this.distributor.decideConcurrently(CommandDistributorTest.NO_CHANGES);
+        final long millis = (System.nanoTime() - start) / 1000000;
+        // the slow strategy is cut at its own timeout, not at the end of the second round
+        Assert.assertEquals(Action.NOTHING, moves.get(slow.getPlayer()));
+        Assert.assertTrue("Took " + millis + " ms.", millis < CommandDistributorTest.TIMEOUT * 9 / 5);
+        Assert.assertEquals(1, slow.getMetrics().getTimeouts());
+        // the late strategy finishes after the first timeout, but within its own
+        Assert.assertEquals(Action.MOVE_DOWN, moves.get(quick.getPlayer()));
+        Assert.assertEquals(Action.MOVE_LEFT, moves.get(late.getPlayer()));
+        Assert.assertEquals(0, late.getMetrics().getTimeouts());
+    }
+
+    @Test
+    public void testNeverStarted() throws IOException {
+        // keeps the only thread busy past the end of the turn, no matter the interruptions
+        final DecisionMaker stubborn = CommandDistributorTest.strategy("stubborn", new Answer<Action>() {
+
+            @Override
+            public Action answer(final InvocationOnMock invocation) {
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(3 * CommandDistributorTest.TIMEOUT);
+                while (System.nanoTime() < end) {
+                    try {
+                        Thread.sleep(10);
+                    } catch (final InterruptedException e) {
+                        // ignore
+                    }
+                }
+                return Action.MOVE_UP;
+            }
+
+        });
+        final DecisionMaker waiting = CommandDistributorTest.strategy("waiting", 0, Action.MOVE_DOWN);
+        final Map<Player, DecisionMaker> players = new LinkedHashMap<Player, DecisionMaker>();
+        for (final DecisionMaker strategy : new DecisionMaker[] { stubborn, waiting }) {
+            players.put(strategy.getPlayer(), strategy);
+        }
+        this.distributor = new CommandDistributor(players, CommandDistributorTest.read("worm.decision.threads=1"),
+                CommandDistributorTest.TIMEOUT);
+        final Map<Player, Action> moves = this.distributor.decideConcurrently(CommandDistributorTest.NO_CHANGES);
+        Assert.assertEquals(Action.NOTHING, moves.get(stubborn.getPlayer()));
+        Assert.assertEquals(1, stubborn.getMetrics().getTimeouts());
+        Assert.assertEquals(1, stubborn.getMetrics().getDecisions());
+        // the waiting strategy never got to decide, so there is no latency to record
+        Assert.assertEquals(Action.NOTHING, moves.get(waiting.getPlayer()));
+        Assert.assertEquals(1, waiting.getMetrics().getTimeouts());
+        Assert.assertEquals(0, waiting.getMetrics().getDecisions());
+        Assert.assertEquals(0, waiting.getMetrics().getMaxLatencyMicros());
+    }
+
+    @Test
+    public void testStillDeciding() throws IOException {
+        final DecisionMaker stubborn = this.stubborn("stubborn");
+        final DecisionMaker quick = CommandDistributorTest.strategy("quick", 0, Action.MOVE_DOWN);
+        final Map<Player, DecisionMaker> players = new LinkedHashMap<Player, DecisionMaker>();
+        for (final DecisionMaker strategy : new DecisionMaker[] { stubborn, quick }) {
+            players.put(strategy.getPlayer(), strategy);
+        }
+        this.distributor = new CommandDistributor(players, CommandDistributorTest.read("worm.decision.threads=2"),
+                CommandDistributorTest.TIMEOUT);
+        Assert.assertEquals(Action.NOTHING, this.distributor.decideConcurrently(CommandDistributorTest.NO_CHANGES)
+                .get(stubborn.getPlayer()));
+        // the stubborn strategy ignored being halted; a free thread must not run its session at the same time
+        final Map<Player, Action> moves = this.distributor.decideConcurrently(CommandDistributorTest.NO_CHANGES);
+        Assert.assertEquals(Action.NOTHING, moves.get(stubborn.getPlayer()));
+        Assert.assertEquals(Action.MOVE_DOWN, moves.get(quick.getPlayer()));
+        Mockito.verify(stubborn, Mockito.times(1)).decideNextMove();
+        Assert.assertEquals(2, stubborn.getMetrics().getTimeouts());
+        // once it is done, it decides again
+        this.release.countDown();
+        final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(CommandDistributorTest.TIMEOUT);
+        Action move;
+        do {
+            move = this.distributor.decideConcurrently(CommandDistributorTest.NO_CHANGES).get(stubborn.getPlayer());
+        } while (move == Action.NOTHING && System.nanoTime() < end);
+        Assert.assertEquals(Action.MOVE_UP, move);
+    }
+
+    @Test
+    public void testUndelivered() throws IOException {
+        final DecisionMaker stubborn = this.stubborn("stubborn");
+        final DecisionMaker waiting = CommandDistributorTest.strategy("waiting", 0, Action.MOVE_DOWN);
+        final Map<Player, DecisionMaker> players = new LinkedHashMap<Player, DecisionMaker>();
+        for (final DecisionMaker strategy : new DecisionMaker[] { stubborn, waiting }) {
+            players.put(strategy.getPlayer(), strategy);
+        }
+        this.distributor = new CommandDistributor(players, CommandDistributorTest.read("worm.decision.threads=1"),
+                CommandDistributorTest.TIMEOUT);
+        final List<WormDelta> first = Collections.singletonList(new WormDelta(waiting.getPlayer(),
+                Collections.singletonList(new Node(0, 0)), Collections.<Node> emptyList()));
+        final List<WormDelta> second = Collections.singletonList(new WormDelta(waiting.getPlayer(),
+                Collections.singletonList(new Node(1, 0)), Collections.singletonList(new Node(0, 0))));
+        // the only thread is busy, so the waiting strategy is cancelled before it starts
+        Assert.assertEquals(Action.NOTHING, this.distributor.decideConcurrently(new CommandDistributor.TurnChanges(
+                first, Collections.<Command> emptyList())).get(waiting.getPlayer()));
+        Mockito.verify(waiting, Mockito.never()).notifyOfWormMoves(Mockito.anyCollectionOf(WormDelta.class));
+        this.release.countDown();
+        // the changes of the first turn are delivered before those of the second
+        Assert.assertEquals(Action.MOVE_DOWN, this.distributor.decideConcurrently(new CommandDistributor.TurnChanges(
+                second, Collections.<Command> emptyList())).get(waiting.getPlayer()));
+        final InOrder order = Mockito.inOrder(waiting);
+        order.verify(waiting).notifyOfWormMoves(first);
+        order.verify(waiting).notifyOfWormMoves(second);
+    }
+
+    @After
+    public void tearDown() {
+        this.release.countDown();
+        if (this.distributor != null) {
+            this.distributor.terminate();
+        }
+    }
+
+}
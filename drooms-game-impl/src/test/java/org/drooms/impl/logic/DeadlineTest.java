@@ -0,0 +1,83 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.drooms.impl.util.GameProperties;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DeadlineTest {
+
+    private GameProperties properties;
+
+    @Before
+    public void setUp() throws IOException {
+        this.properties = GameProperties.read(new ByteArrayInputStream(
+                "collectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1"
+                        .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testCpuBudget() {
+        Assume.assumeTrue(DecisionTimer.isCpuTimeSupported());
+        final DecisionTimer timer = new DecisionTimer();
+        final Deadline deadline = new Deadline(TimeUnit.SECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(20), -1,
+                timer, this.properties);
+        // the budget is only spent once the decision starts
+        Assert.assertFalse(deadline.isPassed());
+        timer.start();
+        long spins = 0;
+        while (!deadline.isPassed()) {
+            spins++;
+        }
+        timer.stop();
+        Assert.assertTrue(spins > 0);
+        Assert.assertTrue(timer.getCpuTime() >= TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertTrue(timer.getWallTime() < TimeUnit.SECONDS.toNanos(10));
+    }
+
+    @Test
+    public void testMilliseconds() throws IOException {
+        final GameProperties p = GameProperties.read(new ByteArrayInputStream(("worm.timeout.milliseconds=1500\n"
+                + "collectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8)));
+        Assert.assertEquals(1500, p.getStrategyTimeoutInMilliseconds());
+        Assert.assertEquals(2, p.getStrategyTimeoutInSeconds());
+        Assert.assertEquals(1000, this.properties.getStrategyTimeoutInMilliseconds());
+    }
+
+    @Test
+    public void testWallBudget() throws InterruptedException {
+        final DecisionTimer timer = new DecisionTimer();
+        final Deadline deadline = new Deadline(TimeUnit.SECONDS.toNanos(10), -1, TimeUnit.MILLISECONDS.toNanos(20),
+                timer, this.properties);
+        // waiting for a free thread doesn't count against the decision
+        Thread.sleep(30);
+        Assert.assertFalse(deadline.isPassed());
+        Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(20), deadline.getRemaining());
+        timer.start();
+        Assert.assertFalse(deadline.isPassed());
+        TimeUnit.NANOSECONDS.sleep(deadline.getRemaining());
+        Thread.sleep(1);
+        Assert.assertTrue(deadline.isPassed());
+        Assert.assertEquals(0, deadline.getRemaining());
+    }
+
+    @Test
+    public void testWallClock() throws InterruptedException {
+        final Deadline deadline = new Deadline(TimeUnit.MILLISECONDS.toNanos(20), -1, -1, new DecisionTimer(),
+                this.properties);
+        Assert.assertFalse(deadline.isPassed());
+        Assert.assertTrue(deadline.getRemaining() <= TimeUnit.MILLISECONDS.toNanos(20));
+        TimeUnit.NANOSECONDS.sleep(deadline.getRemaining());
+        Thread.sleep(1);
+        Assert.assertTrue(deadline.isPassed());
+        Assert.assertEquals(0, deadline.getRemaining());
+    }
+
+}
@@ -0,0 +1,122 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.drooms.impl.util.GameProperties;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class EventRetentionTest {
+
+    private static GameProperties read(final String properties) throws IOException {
+        return GameProperties.read(new ByteArrayInputStream((properties
+                + "\ncollectibles=a\ncollectible.expiration.a=30\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Facts in the entry point, by their handles.
+     */
+    private final Map<FactHandle, Object> facts = new HashMap<FactHandle, Object>();
+
+    private EntryPoint entryPoint;
+
+    @Before
+    public void setUp() {
+        final Map<FactHandle, Object> facts = this.facts;
+        this.entryPoint = Mockito.mock(EntryPoint.class);
+        Mockito.when(this.entryPoint.insert(Mockito.any())).thenAnswer(new Answer<FactHandle>() {
+
+            @Override
+            public FactHandle answer(final InvocationOnMock invocation) {
+                final FactHandle handle = Mockito.mock(FactHandle.class);
+                facts.put(handle, invocation.getArguments()[0]);
+                return handle;
+            }
+
+        });
+        Mockito.when(this.entryPoint.getObject(Mockito.any(FactHandle.class))).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return facts.get(invocation.getArguments()[0]);
+            }
+
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                if (facts.remove(invocation.getArguments()[0]) == null) {
+                    throw new IllegalStateException("Deleted twice.");
+                }
+                return null;
+            }
+
+        }).when(this.entryPoint).delete(Mockito.any(FactHandle.class));
+    }
+
+    private Collection<Object> getEvents() {
+        return this.facts.values();
+    }
+
+    @Test
+    public void testDefaults() throws IOException {
+        final GameProperties properties = EventRetentionTest.read("");
+        Assert.assertEquals(10, properties.getEventRetention("playerEvents"));
+        // collectibles may stay longer than the window
+        Assert.assertEquals(60, properties.getEventRetention("gameEvents"));
+        final GameProperties overridden = EventRetentionTest.read("worm.events.retention=5\n"
+                + "worm.events.retention.gameEvents=3");
+        Assert.assertEquals(5, overridden.getEventRetention("rewardEvents"));
+        Assert.assertEquals(3, overridden.getEventRetention("gameEvents"));
+        Assert.assertEquals(0, EventRetentionTest.read("worm.events.retention=0").getEventRetention("gameEvents"));
+    }
+
+    @Test
+    public void testDeletedByStrategy() {
+        final EventRetention retention = new EventRetention(this.entryPoint, 1);
+        retention.insert("a");
+        retention.insert("b");
+        this.facts.values().remove("a");
+        Assert.assertEquals(1, retention.nextTurn());
+        Assert.assertTrue(this.getEvents().isEmpty());
+    }
+
+    @Test
+    public void testUnbounded() {
+        final EventRetention retention = new EventRetention(this.entryPoint, 0);
+        for (int turn = 0; turn < 100; turn++) {
+            retention.insert(turn);
+            Assert.assertEquals(0, retention.nextTurn());
+        }
+        Assert.assertEquals(100, this.getEvents().size());
+    }
+
+    @Test
+    public void testWindow() {
+        final EventRetention retention = new EventRetention(this.entryPoint, 3);
+        for (int turn = 0; turn < 10; turn++) {
+            retention.insert(turn);
+            retention.insert(turn);
+            // the strategy sees the events of this turn and the two before it
+            Assert.assertEquals(Math.min(turn + 1, 3) * 2, this.getEvents().size());
+            Assert.assertTrue(this.getEvents().contains(turn));
+            retention.nextTurn();
+        }
+        Assert.assertFalse(this.getEvents().contains(7));
+        Assert.assertTrue(this.getEvents().contains(8));
+    }
+
+}
@@ -0,0 +1,56 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.drooms.impl.util.GameProperties;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GcSchedulerTest {
+
+    private static GcScheduler createScheduler(final String properties) throws IOException {
+        return new GcScheduler(GameProperties.read(new ByteArrayInputStream((properties
+                + "\ncollectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    public void testCollectionTime() {
+        Assert.assertTrue(GcScheduler.getCollectionTime() >= 0);
+    }
+
+    @Test
+    public void testDefault() throws IOException {
+        // garbage is collected before every turn, as it always has been
+        final GcScheduler scheduler = GcSchedulerTest.createScheduler("");
+        Assert.assertTrue(scheduler.beforeTurn());
+        Assert.assertTrue(scheduler.beforeTurn());
+    }
+
+    @Test
+    public void testHeapThreshold() throws IOException {
+        // the heap can never be more than full
+        final GcScheduler scheduler = GcSchedulerTest.createScheduler("worm.gc.policy=HEAP_THRESHOLD\n"
+                + "worm.gc.threshold=1.0");
+        Assert.assertFalse(scheduler.beforeTurn());
+    }
+
+    @Test
+    public void testNone() throws IOException {
+        final GcScheduler scheduler = GcSchedulerTest.createScheduler("worm.gc.policy=NONE");
+        for (int i = 0; i < 10; i++) {
+            Assert.assertFalse(scheduler.beforeTurn());
+        }
+    }
+
+    @Test
+    public void testPeriodic() throws IOException {
+        final GcScheduler scheduler = GcSchedulerTest.createScheduler("worm.gc.policy=PERIODIC\nworm.gc.period=3");
+        for (int i = 1; i <= 9; i++) {
+            Assert.assertEquals(i % 3 == 0, scheduler.beforeTurn());
+        }
+    }
+
+}
@@ -0,0 +1,152 @@
+package org.drooms.impl.logic;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.drooms.api.Node;
+import org.drooms.api.Node.Type;
+import org.drooms.api.Playground;
+import org.drooms.impl.logic.facts.Wall;
+import org.drooms.impl.logic.facts.WallGrid;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.FactHandle;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class NearbyWallsTest {
+
+    private static final String[] LINES = { "     ", " #   ", "     ", "   # " };
+
+    /**
+     * Facts in the session, by their handles.
+     */
+    private final Map<FactHandle, Object> facts = new HashMap<FactHandle, Object>();
+
+    private Playground playground;
+    private KieSession session;
+
+    private Set<Node> getWalls() {
+        final Set<Node> walls = new HashSet<Node>();
+        for (final Object fact : this.facts.values()) {
+            walls.add(((Wall) fact).getNode());
+        }
+        return walls;
+    }
+
+    @Before
+    public void setUp() {
+        this.playground = Mockito.mock(Playground.class);
+        Mockito.when(this.playground.getWidth()).thenReturn(NearbyWallsTest.LINES[0].length());
+        Mockito.when(this.playground.getHeight()).thenReturn(NearbyWallsTest.LINES.length);
+        Mockito.when(this.playground.getNodeAt(Mockito.anyInt(), Mockito.anyInt())).thenAnswer(new Answer<Node>() {
+
+            @Override
+            public Node answer(final InvocationOnMock invocation) {
+                final int x = (Integer) invocation.getArguments()[0];
+                final int y = (Integer) invocation.getArguments()[1];
+                if (x < 0 || y < 0 || y >= NearbyWallsTest.LINES.length || x >= NearbyWallsTest.LINES[y].length()) {
+                    return null;
+                }
+                return new Node(NearbyWallsTest.LINES[y].charAt(x) == '#' ? Type.WALL : Type.REGULAR, x, y);
+            }
+
+        });
+        final Map<FactHandle, Object> facts = this.facts;
+        this.session = Mockito.mock(KieSession.class);
+        Mockito.when(this.session.insert(Mockito.any())).thenAnswer(new Answer<FactHandle>() {
+
+            @Override
+            public FactHandle answer(final InvocationOnMock invocation) {
+                final FactHandle handle = Mockito.mock(FactHandle.class);
+                facts.put(handle, invocation.getArguments()[0]);
+                return handle;
+            }
+
+        });
+        Mockito.when(this.session.getObject(Mockito.any(FactHandle.class))).thenAnswer(new Answer<Object>() {
+
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                return facts.get(invocation.getArguments()[0]);
+            }
+
+        });
+        Mockito.doAnswer(new Answer<Void>() {
+
+            @Override
+            public Void answer(final InvocationOnMock invocation) {
+                if (facts.remove(invocation.getArguments()[0]) == null) {
+                    throw new IllegalStateException("Deleted twice.");
+                }
+                return null;
+            }
+
+        }).when(this.session).delete(Mockito.any(FactHandle.class));
+    }
+
+    @Test
+    public void testDeletedByStrategy() {
+        final NearbyWalls walls = new NearbyWalls(this.session, this.playground, new WallGrid(this.playground), 1);
+        walls.moveTo(new Node(0, 0));
+        for (final Map.Entry<FactHandle, Object> entry : new HashMap<FactHandle, Object>(this.facts).entrySet()) {
+            final Node wall = ((Wall) entry.getValue()).getNode();
+            if (wall.equals(new Node(Type.WALL, -1, 0)) || wall.equals(new Node(Type.WALL, 1, 1))) {
+                this.session.delete(entry.getKey());
+            }
+        }
+        // one of them falls out of the radius, the other one is only cleared
+        walls.moveTo(new Node(1, 0));
+        Assert.assertEquals(3, this.facts.size());
+        walls.clear();
+        Assert.assertTrue(this.facts.isEmpty());
+    }
+
+    @Test
+    public void testGrid() {
+        final WallGrid grid = new WallGrid(this.playground);
+        Assert.assertEquals(5, grid.getWidth());
+        Assert.assertEquals(4, grid.getHeight());
+        Assert.assertTrue(grid.isWall(1, 1));
+        Assert.assertTrue(grid.isWall(new Node(3, 3)));
+        Assert.assertFalse(grid.isWall(0, 0));
+        Assert.assertFalse(grid.isWall(4, 3));
+        // everything around the playground is a wall
+        Assert.assertTrue(grid.isWall(-1, 0));
+        Assert.assertTrue(grid.isWall(5, 0));
+        Assert.assertTrue(grid.isWall(0, 4));
+    }
+
+    @Test
+    public void testMove() {
+        final NearbyWalls walls = new NearbyWalls(this.session, this.playground, new WallGrid(this.playground), 1);
+        Assert.assertEquals(0, walls.moveTo(null));
+        // top left corner sees the border and the wall in the playground
+        Assert.assertEquals(6, walls.moveTo(new Node(0, 0)));
+        Assert.assertTrue(this.getWalls().contains(new Node(Type.WALL, 1, 1)));
+        Assert.assertTrue(this.getWalls().contains(new Node(Type.WALL, -1, -1)));
+        final Map<FactHandle, Object> before = new HashMap<FactHandle, Object>(this.facts);
+        // the inner wall stays, the border on the left is gone
+        Assert.assertEquals(4, walls.moveTo(new Node(1, 0)));
+        Assert.assertFalse(this.getWalls().contains(new Node(Type.WALL, -1, 0)));
+        Assert.assertTrue(this.getWalls().contains(new Node(Type.WALL, 1, 1)));
+        for (final Map.Entry<FactHandle, Object> entry : before.entrySet()) {
+            if (((Wall) entry.getValue()).getNode().equals(new Node(Type.WALL, 1, 1))) {
+                Assert.assertTrue("The wall was inserted again.", this.facts.containsKey(entry.getKey()));
+            }
+        }
+        // the middle of the playground has no walls nearby
+        Assert.assertEquals(0, walls.moveTo(new Node(3, 1)));
+        Assert.assertTrue(this.facts.isEmpty());
+        walls.moveTo(new Node(4, 3));
+        Assert.assertEquals(6, this.facts.size());
+        walls.clear();
+        Assert.assertTrue(this.facts.isEmpty());
+    }
+
+}
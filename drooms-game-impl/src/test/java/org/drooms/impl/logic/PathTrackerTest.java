@@ -0,0 +1,119 @@
+package org.drooms.impl.logic;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.api.Playground;
+import org.drooms.impl.DefaultGame;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class PathTrackerTest {
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    private static Playground createPlayground(final String... lines) {
+        final StringBuilder sb = new StringBuilder();
+        for (final String line : lines) {
+            sb.append(line).append('\n');
+        }
+        return new DefaultGame().buildPlayground("test", new ByteArrayInputStream(sb.toString().getBytes(
+                StandardCharsets.UTF_8)));
+    }
+
+    private static WormDelta enter(final Player p, final Node... nodes) {
+        return new WormDelta(p, Arrays.asList(nodes), Collections.<Node> emptyList());
+    }
+
+    private static WormDelta leave(final Player p, final Node... nodes) {
+        return new WormDelta(p, Collections.<Node> emptyList(), Arrays.asList(nodes));
+    }
+
+    private final Player me = PathTrackerTest.createPlayer("me");
+    private final Player other = PathTrackerTest.createPlayer("other");
+
+    private void assertAvoids(final List<Edge> path, final Node... nodes) {
+        for (final Edge edge : path) {
+            for (final Node n : nodes) {
+                for (final Node visited : Arrays.asList(edge.getNodes().getLeft(), edge.getNodes().getRight())) {
+                    Assert.assertFalse("Path goes through " + n, visited.getX() == n.getX()
+                            && visited.getY() == n.getY());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAroundWorms() {
+        // bottom row first
+        final Playground playground = PathTrackerTest.createPlayground("     ", "     ", "     ");
+        final PathTracker tracker = new PathTracker(playground, this.me);
+        final Node start = playground.getNodeAt(0, 0);
+        final Node end = playground.getNodeAt(4, 0);
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.enter(this.me, start)), start);
+        Assert.assertEquals(4, tracker.getPath(start, end).size());
+        final Node[] wall = { playground.getNodeAt(2, 0), playground.getNodeAt(2, 1) };
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.enter(this.other, wall)), start);
+        final List<Edge> path = tracker.getPath(start, end);
+        Assert.assertEquals(8, path.size());
+        this.assertAvoids(path, wall);
+        // the last way around is closed too
+        final Node top = playground.getNodeAt(2, 2);
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.enter(this.other, top)), start);
+        Assert.assertTrue(tracker.getPath(start, end).isEmpty());
+        // the worm moves away
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.leave(this.other, wall)), start);
+        Assert.assertEquals(4, tracker.getPath(start, end).size());
+    }
+
+    @Test
+    public void testHead() {
+        final Playground playground = PathTrackerTest.createPlayground("     ", "     ", "     ");
+        final PathTracker tracker = new PathTracker(playground, this.me);
+        final Node head = playground.getNodeAt(2, 2);
+        tracker.moveWorms(Arrays.asList(PathTrackerTest.enter(this.me, head),
+                PathTrackerTest.enter(this.other, playground.getNodeAt(2, 0), playground.getNodeAt(2, 1))), head);
+        Assert.assertEquals(head, tracker.getCurrentPosition());
+        // paths start at the head, and may pass through it, even though the worm is there
+        Assert.assertEquals(4, tracker.getPath(head, playground.getNodeAt(4, 0)).size());
+        Assert.assertEquals(8, tracker.getPath(playground.getNodeAt(0, 0), playground.getNodeAt(4, 0)).size());
+        // once the head moves on, the node is blocked by the rest of the worm
+        final Node newHead = playground.getNodeAt(3, 2);
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.enter(this.me, newHead)), newHead);
+        Assert.assertTrue(tracker.getPath(playground.getNodeAt(0, 0), playground.getNodeAt(4, 0)).isEmpty());
+        Assert.assertEquals(3, tracker.getPath(newHead, playground.getNodeAt(4, 0)).size());
+    }
+
+    @Test
+    public void testOverlap() {
+        final Playground playground = PathTrackerTest.createPlayground("     ");
+        final PathTracker tracker = new PathTracker(playground, this.me);
+        final Node start = playground.getNodeAt(0, 0);
+        final Node end = playground.getNodeAt(4, 0);
+        final Node middle = playground.getNodeAt(2, 0);
+        tracker.moveWorms(Arrays.asList(PathTrackerTest.enter(this.me, start),
+                PathTrackerTest.enter(this.other, middle)), start);
+        Assert.assertTrue(tracker.getPath(start, end).isEmpty());
+        // a crashed worm may share the node with another one for a while
+        final Player third = PathTrackerTest.createPlayer("third");
+        tracker.moveWorms(Arrays.asList(PathTrackerTest.enter(third, middle),
+                PathTrackerTest.leave(this.other, middle)), start);
+        Assert.assertTrue(tracker.getPath(start, end).isEmpty());
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.leave(third, middle)), start);
+        Assert.assertEquals(4, tracker.getPath(start, end).size());
+        // nodes outside of the playground are ignored
+        tracker.moveWorms(Collections.singletonList(PathTrackerTest.leave(third, new Node(10, 10))), start);
+        Assert.assertEquals(4, tracker.getPath(start, end).size());
+        Assert.assertEquals(2, tracker.getPath(start, middle).size());
+    }
+
+}
@@ -0,0 +1,91 @@
+package org.drooms.impl.logic;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.drooms.api.Node;
+import org.drooms.impl.logic.facts.Wall;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.definition.rule.Rule;
+import org.kie.api.event.rule.AfterMatchFiredEvent;
+import org.kie.api.event.rule.AgendaEventListener;
+import org.kie.api.event.rule.BeforeMatchFiredEvent;
+import org.kie.api.event.rule.MatchCancelledEvent;
+import org.kie.api.event.rule.MatchCreatedEvent;
+import org.kie.api.event.rule.MatchEvent;
+import org.kie.api.event.rule.ObjectDeletedEvent;
+import org.kie.api.event.rule.ObjectInsertedEvent;
+import org.kie.api.event.rule.RuleRuntimeEventListener;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.Match;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+public class RuleProfilerTest {
+
+    private final RuleProfiler profiler = new RuleProfiler();
+    private AgendaEventListener agenda;
+    private RuleRuntimeEventListener workingMemory;
+
+    private <T> T event(final Class<T> type, final Match match) {
+        final T event = Mockito.mock(type);
+        if (event instanceof MatchEvent) {
+            Mockito.when(((MatchEvent) event).getMatch()).thenReturn(match);
+        }
+        return event;
+    }
+
+    @Before
+    public void setUp() {
+        final KieSession session = Mockito.mock(KieSession.class);
+        this.profiler.attach(session);
+        final ArgumentCaptor<AgendaEventListener> agenda = ArgumentCaptor.forClass(AgendaEventListener.class);
+        Mockito.verify(session).addEventListener(agenda.capture());
+        this.agenda = agenda.getValue();
+        final ArgumentCaptor<RuleRuntimeEventListener> workingMemory = ArgumentCaptor
+                .forClass(RuleRuntimeEventListener.class);
+        Mockito.verify(session).addEventListener(workingMemory.capture());
+        this.workingMemory = workingMemory.getValue();
+    }
+
+    @Test
+    public void testDetach() {
+        final KieSession session = Mockito.mock(KieSession.class);
+        this.profiler.detach(session);
+        Mockito.verify(session).removeEventListener(this.agenda);
+        Mockito.verify(session).removeEventListener(this.workingMemory);
+    }
+
+    @Test
+    public void testProfile() throws IOException {
+        final Rule rule = Mockito.mock(Rule.class);
+        Mockito.when(rule.getPackageName()).thenReturn("org.drooms");
+        Mockito.when(rule.getName()).thenReturn("moveRight");
+        final Match match = Mockito.mock(Match.class);
+        Mockito.when(match.getRule()).thenReturn(rule);
+        this.agenda.matchCreated(this.event(MatchCreatedEvent.class, match));
+        this.agenda.matchCreated(this.event(MatchCreatedEvent.class, match));
+        this.agenda.matchCancelled(this.event(MatchCancelledEvent.class, match));
+        this.agenda.beforeMatchFired(this.event(BeforeMatchFiredEvent.class, match));
+        this.agenda.afterMatchFired(this.event(AfterMatchFiredEvent.class, match));
+        final Wall wall = new Wall(new Node(Node.Type.WALL, 0, 0));
+        final ObjectInsertedEvent inserted = Mockito.mock(ObjectInsertedEvent.class);
+        Mockito.when(inserted.getObject()).thenReturn(wall);
+        this.workingMemory.objectInserted(inserted);
+        this.workingMemory.objectInserted(inserted);
+        final ObjectDeletedEvent deleted = Mockito.mock(ObjectDeletedEvent.class);
+        Mockito.when(deleted.getOldObject()).thenReturn(wall);
+        this.workingMemory.objectDeleted(deleted);
+        this.profiler.recordDecision(1000);
+        final StringWriter w = new StringWriter();
+        this.profiler.write(w);
+        final String profile = w.toString();
+        Assert.assertTrue(profile, profile.contains("decisions=\"1\" time=\"1000\""));
+        Assert.assertTrue(profile, profile.contains("name=\"moveRight\" matches=\"2\" cancelled=\"1\" fired=\"1\""));
+        Assert.assertTrue(profile, profile.contains("type=\"" + Wall.class.getName()
+                + "\" inserted=\"2\" updated=\"0\" deleted=\"1\""));
+    }
+
+}
@@ -0,0 +1,135 @@
+package org.drooms.impl.logic;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.drooms.impl.logic.facts.CurrentTurn;
+import org.drooms.impl.logic.facts.GameProperty;
+import org.drooms.impl.logic.facts.Wall;
+import org.drooms.impl.logic.facts.WallGrid;
+import org.drooms.impl.logic.facts.Worm;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieBase;
+import org.kie.api.KieServices;
+import org.kie.api.builder.ReleaseId;
+import org.kie.api.runtime.KieSession;
+import org.kie.api.runtime.rule.Agenda;
+import org.kie.api.runtime.rule.EntryPoint;
+import org.kie.api.runtime.rule.FactHandle;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class SessionPoolTest {
+
+    private static final ReleaseId STRATEGY = KieServices.Factory.get().newReleaseId("org.drooms", "test", "1.0");
+
+    private static List<Object> key(final KieBase kbase, final int game) {
+        return Arrays.<Object> asList(SessionPoolTest.STRATEGY, kbase, game);
+    }
+
+    private final SessionPool pool = new SessionPool(2, 3);
+
+    @Test
+    public void testLimits() {
+        final KieBase kbase = Mockito.mock(KieBase.class);
+        final KieSession first = Mockito.mock(KieSession.class);
+        final KieSession second = Mockito.mock(KieSession.class);
+        final KieSession third = Mockito.mock(KieSession.class);
+        this.pool.pool(SessionPoolTest.key(kbase, 1), first);
+        this.pool.pool(SessionPoolTest.key(kbase, 1), second);
+        this.pool.pool(SessionPoolTest.key(kbase, 1), third);
+        // too many for the same game
+        Assert.assertEquals(2, this.pool.getIdleCount());
+        Mockito.verify(first).dispose();
+        // too many in total; the least recently used game goes first
+        final KieSession other = Mockito.mock(KieSession.class);
+        final KieSession another = Mockito.mock(KieSession.class);
+        this.pool.pool(SessionPoolTest.key(kbase, 2), other);
+        this.pool.pool(SessionPoolTest.key(kbase, 3), another);
+        Assert.assertEquals(3, this.pool.getIdleCount());
+        Mockito.verify(second).dispose();
+        Mockito.verify(third, Mockito.never()).dispose();
+        Mockito.verify(other, Mockito.never()).dispose();
+        Mockito.verify(another, Mockito.never()).dispose();
+    }
+
+    @Test
+    public void testRelease() {
+        final SessionPool pool = this.pool;
+        final KieSession session = Mockito.mock(KieSession.class);
+        Mockito.when(session.getAgenda()).thenReturn(Mockito.mock(Agenda.class));
+        Mockito.when(session.getEntryPoints()).thenAnswer(new Answer<Collection<EntryPoint>>() {
+
+            @Override
+            public Collection<EntryPoint> answer(final InvocationOnMock invocation) {
+                // other games must not wait for the reset
+                Assert.assertFalse(Thread.holdsLock(pool));
+                return Collections.emptyList();
+            }
+
+        });
+        this.pool.lease(SessionPoolTest.key(Mockito.mock(KieBase.class), 1), session);
+        this.pool.release(session);
+        Mockito.verify(session).getEntryPoints();
+        Assert.assertEquals(1, this.pool.getIdleCount());
+        try {
+            this.pool.release(session);
+            Assert.fail("Released twice.");
+        } catch (final IllegalArgumentException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testReset() {
+        final FactHandle wall = Mockito.mock(FactHandle.class);
+        final FactHandle grid = Mockito.mock(FactHandle.class);
+        final FactHandle property = Mockito.mock(FactHandle.class);
+        final FactHandle worm = Mockito.mock(FactHandle.class);
+        final FactHandle turn = Mockito.mock(FactHandle.class);
+        final EntryPoint facts = Mockito.mock(EntryPoint.class);
+        Mockito.doReturn(Arrays.asList(wall, grid, property, worm, turn)).when(facts).getFactHandles();
+        Mockito.when(facts.getObject(wall)).thenReturn(new Wall(new Node(Node.Type.WALL, -1, -1)));
+        Mockito.when(facts.getObject(grid)).thenReturn(Mockito.mock(WallGrid.class));
+        Mockito.when(facts.getObject(property)).thenReturn(new GameProperty(GameProperty.Name.MAX_TURNS, 1));
+        Mockito.when(facts.getObject(worm)).thenReturn(new Worm(new Player("test", SessionPoolTest.STRATEGY),
+                new Node(0, 0)));
+        Mockito.when(facts.getObject(turn)).thenReturn(new CurrentTurn(1));
+        final KieSession session = Mockito.mock(KieSession.class);
+        Mockito.doReturn(Collections.singletonList(facts)).when(session).getEntryPoints();
+        final Agenda agenda = Mockito.mock(Agenda.class);
+        Mockito.when(session.getAgenda()).thenReturn(agenda);
+        SessionPool.reset(session);
+        // only the facts that stay the same for the whole game remain
+        Mockito.verify(facts).delete(worm);
+        Mockito.verify(facts).delete(turn);
+        Mockito.verify(facts, Mockito.times(2)).delete(Mockito.any(FactHandle.class));
+        Mockito.verify(agenda).clear();
+        Mockito.verify(session).unregisterChannel("decision");
+        for (final String global : Arrays.asList("logger", "tracker", "walls")) {
+            Mockito.verify(session).setGlobal(global, null);
+        }
+    }
+
+    @Test
+    public void testStale() {
+        final KieBase previous = Mockito.mock(KieBase.class);
+        final KieBase current = Mockito.mock(KieBase.class);
+        final KieSession stale = Mockito.mock(KieSession.class);
+        final KieSession fresh = Mockito.mock(KieSession.class);
+        this.pool.pool(SessionPoolTest.key(previous, 1), stale);
+        this.pool.pool(SessionPoolTest.key(current, 1), fresh);
+        // the strategy was compiled again
+        Assert.assertEquals(1, this.pool.evictStale(SessionPoolTest.STRATEGY, current));
+        Assert.assertEquals(1, this.pool.getIdleCount());
+        Mockito.verify(stale).dispose();
+        Mockito.verify(fresh, Mockito.never()).dispose();
+    }
+
+}
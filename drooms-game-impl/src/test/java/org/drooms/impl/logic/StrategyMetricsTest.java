@@ -0,0 +1,56 @@
+package org.drooms.impl.logic;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+
+import org.drooms.api.Player;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class StrategyMetricsTest {
+
+    private static Player createPlayer(final String name) {
+        return new Player(name, KieServices.Factory.get().newReleaseId("org.drooms", name, "1.0"));
+    }
+
+    @Test
+    public void testPublished() throws Exception {
+        final Player p = StrategyMetricsTest.createPlayer("published, \"quoted\"");
+        final StrategyMetrics metrics = StrategyMetrics.forPlayer(p, true);
+        Assert.assertSame(metrics, StrategyMetrics.forPlayer(p, true));
+        metrics.recordTimeout();
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Assert.assertEquals(1L, server.getAttribute(StrategyMetrics.getName(p), "Timeouts"));
+        server.invoke(StrategyMetrics.getName(p), "reset", null, null);
+        Assert.assertEquals(0, metrics.getTimeouts());
+    }
+
+    @Test
+    public void testRecording() {
+        final StrategyMetrics metrics = StrategyMetrics.forPlayer(StrategyMetricsTest.createPlayer("recorded"), false);
+        metrics.recordDecision(TimeUnit.MILLISECONDS.toNanos(2));
+        metrics.recordDecision(TimeUnit.MILLISECONDS.toNanos(4));
+        metrics.recordFiring(10, 100);
+        metrics.recordFiring(20, 150);
+        metrics.recordError();
+        Assert.assertEquals(2, metrics.getDecisions());
+        Assert.assertEquals(3000, metrics.getMeanLatencyMicros());
+        Assert.assertEquals(4000, metrics.getMaxLatencyMicros());
+        Assert.assertEquals(20, metrics.getRulesFiredLastTurn());
+        Assert.assertEquals(15.0, metrics.getRulesFiredMean(), 0.0);
+        Assert.assertEquals(150, metrics.getFactCount());
+        Assert.assertEquals(1, metrics.getErrors());
+        Assert.assertEquals(0, metrics.getTimeouts());
+    }
+
+    @Test
+    public void testUnpublished() {
+        final Player p = StrategyMetricsTest.createPlayer("unpublished");
+        Assert.assertNotSame(StrategyMetrics.forPlayer(p, false), StrategyMetrics.forPlayer(p, false));
+        Assert.assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(StrategyMetrics.getName(p)));
+    }
+
+}
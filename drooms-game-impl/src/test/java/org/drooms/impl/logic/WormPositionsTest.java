@@ -0,0 +1,98 @@
+package org.drooms.impl.logic;
+
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.drooms.api.Node;
+import org.drooms.api.Player;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kie.api.KieServices;
+
+public class WormPositionsTest {
+
+    private Player player;
+    private WormPositions positions;
+
+    private static Deque<Node> position(final int... xs) {
+        final Deque<Node> position = new LinkedList<Node>();
+        for (final int x : xs) {
+            position.add(new Node(x, 0));
+        }
+        return position;
+    }
+
+    private static List<Node> nodes(final int... xs) {
+        return new LinkedList<Node>(WormPositionsTest.position(xs));
+    }
+
+    @Before
+    public void setUp() {
+        this.player = new Player("test", KieServices.Factory.get().newReleaseId("org.drooms", "test", "1.0"));
+        this.positions = new WormPositions();
+    }
+
+    private List<WormDelta> update(final Deque<Node> position) {
+        final Map<Player, Deque<Node>> newPositions = new HashMap<Player, Deque<Node>>();
+        if (position != null) {
+            newPositions.put(this.player, position);
+        }
+        return this.positions.update(newPositions);
+    }
+
+    @Test
+    public void testGrowth() {
+        this.update(WormPositionsTest.position(2, 1, 0));
+        final WormDelta delta = this.update(WormPositionsTest.position(3, 2, 1, 0)).get(0);
+        Assert.assertEquals(WormPositionsTest.nodes(3), delta.getEnteredNodes());
+        Assert.assertEquals(Collections.emptyList(), delta.getLeftNodes());
+    }
+
+    @Test
+    public void testMove() {
+        final WormDelta first = this.update(WormPositionsTest.position(2, 1, 0)).get(0);
+        Assert.assertEquals(WormPositionsTest.nodes(0, 1, 2), first.getEnteredNodes());
+        Assert.assertEquals(Collections.emptyList(), first.getLeftNodes());
+        final WormDelta second = this.update(WormPositionsTest.position(3, 2, 1)).get(0);
+        Assert.assertSame(this.player, second.getPlayer());
+        Assert.assertEquals(WormPositionsTest.nodes(3), second.getEnteredNodes());
+        Assert.assertEquals(WormPositionsTest.nodes(0), second.getLeftNodes());
+    }
+
+    @Test
+    public void testRemoval() {
+        this.update(WormPositionsTest.position(2, 1, 0));
+        final WormDelta delta = this.update(null).get(0);
+        Assert.assertEquals(Collections.emptyList(), delta.getEnteredNodes());
+        Assert.assertEquals(WormPositionsTest.nodes(2, 1, 0), delta.getLeftNodes());
+        // once removed, the worm is forgotten
+        Assert.assertTrue(this.update(null).isEmpty());
+    }
+
+    @Test
+    public void testReplacement() {
+        // the worm jumped; nodes it still occupies are neither entered nor left
+        this.update(WormPositionsTest.position(2, 1, 0));
+        final WormDelta delta = this.update(WormPositionsTest.position(1, 5)).get(0);
+        Assert.assertEquals(WormPositionsTest.nodes(5), delta.getEnteredNodes());
+        Assert.assertEquals(WormPositionsTest.nodes(2, 0), delta.getLeftNodes());
+    }
+
+    @Test
+    public void testReverse() {
+        this.update(WormPositionsTest.position(2, 1, 0));
+        Assert.assertTrue(this.update(WormPositionsTest.position(0, 1, 2)).isEmpty());
+        // the reversed worm moves on from its former tail
+        final Deque<Node> moved = WormPositionsTest.position(0, 1);
+        moved.addFirst(new Node(0, 1));
+        final WormDelta delta = this.update(moved).get(0);
+        Assert.assertEquals(Collections.singletonList(new Node(0, 1)), delta.getEnteredNodes());
+        Assert.assertEquals(WormPositionsTest.nodes(2), delta.getLeftNodes());
+    }
+
+}
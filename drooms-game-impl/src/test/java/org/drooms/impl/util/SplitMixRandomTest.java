@@ -0,0 +1,70 @@
+package org.drooms.impl.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SplitMixRandomTest {
+
+    private static GameProperties read(final String properties) throws IOException {
+        return GameProperties.read(new ByteArrayInputStream((properties
+                + "\ncollectibles=a\ncollectible.expiration.a=1\ncollectible.price.a=1\ncollectible.probability.a=0.1")
+                .getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testBounds() {
+        final Random random = new SplitMixRandom(42);
+        for (int i = 0; i < 1000; i++) {
+            final int value = random.nextInt(7);
+            Assert.assertTrue(value >= 0 && value < 7);
+            final double d = random.nextDouble();
+            Assert.assertTrue(d >= 0 && d < 1);
+        }
+    }
+
+    @Test
+    public void testConfiguredSeed() throws IOException {
+        Assert.assertEquals(-5, SplitMixRandomTest.read("game.seed=-5").getSeed());
+    }
+
+    @Test
+    public void testGeneratedSeedIsRecorded() throws IOException {
+        final GameProperties properties = SplitMixRandomTest.read("");
+        for (final Map.Entry<Object, Object> entry : properties.getTextEntries()) {
+            if ("game.seed".equals(entry.getKey())) {
+                Assert.assertEquals(String.valueOf(properties.getSeed()), entry.getValue());
+                return;
+            }
+        }
+        Assert.fail("The generated seed is not among the properties.");
+    }
+
+    @Test
+    public void testReferenceValues() {
+        // first outputs of the reference SplitMix64 implementation for seed 0
+        final Random random = new SplitMixRandom(0);
+        Assert.assertEquals(0xe220a8397b1dcdafL, random.nextLong());
+        Assert.assertEquals(0x6e789e6aa1b965f4L, random.nextLong());
+    }
+
+    @Test
+    public void testSameSeedSameSequence() {
+        final Random a = new SplitMixRandom(123);
+        final Random b = new SplitMixRandom(123);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertEquals(a.nextInt(100), b.nextInt(100));
+        }
+    }
+
+    @Test
+    public void testSeedsDiffer() {
+        Assert.assertNotEquals(SplitMixRandom.newSeed(), SplitMixRandom.newSeed());
+    }
+
+}
@@ -0,0 +1,63 @@
+package org.drooms.impl.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TimingHistogramTest {
+
+    @Test
+    public void testAdd() {
+        final TimingHistogram a = new TimingHistogram();
+        a.record(10);
+        final TimingHistogram b = new TimingHistogram();
+        b.record(30);
+        b.record(50);
+        a.add(b);
+        Assert.assertEquals(3, a.getCount());
+        Assert.assertEquals(90, a.getTotal());
+        Assert.assertEquals(50, a.getMax());
+        Assert.assertEquals(30, a.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testEmpty() {
+        final TimingHistogram histogram = new TimingHistogram();
+        Assert.assertEquals(0, histogram.getCount());
+        Assert.assertEquals(0, histogram.getMean());
+        Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void testLargeValues() {
+        final TimingHistogram histogram = new TimingHistogram();
+        histogram.record(Long.MAX_VALUE);
+        Assert.assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testPrecision() {
+        final TimingHistogram histogram = new TimingHistogram();
+        for (long i = 1; i <= 1000000; i++) {
+            histogram.record(i * 1000);
+        }
+        Assert.assertEquals(1000000, histogram.getCount());
+        for (final double percentile : new double[] { 10, 50, 90, 99, 99.9 }) {
+            final double expected = percentile * 10000000;
+            final double actual = histogram.getValueAtPercentile(percentile);
+            Assert.assertEquals(expected, actual, expected * 0.04);
+        }
+        Assert.assertEquals(1000000000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        final TimingHistogram histogram = new TimingHistogram();
+        for (int i = 0; i < 64; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(0, histogram.getValueAtPercentile(0));
+        Assert.assertEquals(31, histogram.getValueAtPercentile(50));
+        Assert.assertEquals(63, histogram.getValueAtPercentile(100));
+    }
+
+}
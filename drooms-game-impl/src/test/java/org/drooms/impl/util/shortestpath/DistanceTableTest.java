@@ -0,0 +1,102 @@
+package org.drooms.impl.util.shortestpath;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+public class DistanceTableTest {
+
+    private static class TestEdge implements Edge {
+
+        private final ImmutablePair<Node, Node> nodes;
+
+        public TestEdge(final Node firstNode, final Node secondNode) {
+            this.nodes = ImmutablePair.of(firstNode, secondNode);
+        }
+
+        @Override
+        public ImmutablePair<Node, Node> getNodes() {
+            return this.nodes;
+        }
+
+    }
+
+    /**
+     * A row of nodes, with the last one disconnected from the rest.
+     */
+    private static Graph<Node, Edge> createGraph(final int length) {
+        final Graph<Node, Edge> graph = new UndirectedSparseGraph<>();
+        Node previous = null;
+        for (int x = 0; x < length; x++) {
+            final Node current = new Node(x, 0);
+            graph.addVertex(current);
+            if (previous != null && x < length - 1) {
+                graph.addEdge(new TestEdge(previous, current), previous, current);
+            }
+            previous = current;
+        }
+        return graph;
+    }
+
+    @Test
+    public void testDistances() {
+        final CellGraph grid = new CellGraph(DistanceTableTest.createGraph(6));
+        final DistanceTable table = DistanceTable.get(grid);
+        Assert.assertEquals(0, table.getDistance(2, 2));
+        Assert.assertEquals(4, table.getDistance(0, 4));
+        Assert.assertEquals(4, table.getDistance(4, 0));
+        Assert.assertEquals(DistanceTable.UNREACHABLE, table.getDistance(0, 5));
+        Assert.assertEquals(DistanceTable.UNREACHABLE, table.getDistance(0, 6));
+    }
+
+    @Test
+    public void testBounded() {
+        final int length = DistanceTable.MAX_CELLS;
+        final DistanceTable table = DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(length)));
+        final int rows = (int) (DistanceTable.MAX_BYTES / (2 * length)) + 10;
+        for (int target = 0; target < rows; target++) {
+            Assert.assertEquals(target, table.getDistance(0, target));
+        }
+        Assert.assertTrue(DistanceTable.getKeptBytes() <= DistanceTable.MAX_BYTES);
+        // forgotten distances are computed again
+        Assert.assertEquals(length - 2, table.getDistance(length - 2, 0));
+    }
+
+    @Test
+    public void testEvicted() {
+        final DistanceTable table = DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(9)));
+        for (int i = 0; i < DistanceTable.MAX_TABLES; i++) {
+            Assert.assertNotNull(DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(10 + i))));
+        }
+        // only the most recently used tables are kept
+        Assert.assertNotSame(table, DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(9))));
+    }
+
+    @Test
+    public void testLarge() {
+        // larger than any playground that is shipped
+        final int length = 200 * 100;
+        final DistanceTable table = DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(length)));
+        Assert.assertEquals(length - 2, table.getDistance(0, length - 2));
+        Assert.assertEquals(DistanceTable.UNREACHABLE, table.getDistance(0, length - 1));
+    }
+
+    @Test
+    public void testLimit() {
+        Assert.assertNotNull(DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(DistanceTable.MAX_CELLS))));
+        Assert.assertNull(DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(DistanceTable.MAX_CELLS + 1))));
+    }
+
+    @Test
+    public void testShared() {
+        final DistanceTable table = DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(7)));
+        Assert.assertSame(table, DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(7))));
+        Assert.assertNotSame(table, DistanceTable.get(new CellGraph(DistanceTableTest.createGraph(8))));
+    }
+
+}
@@ -0,0 +1,132 @@
+package org.drooms.impl.util.shortestpath.astar;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.drooms.api.Edge;
+import org.drooms.api.Node;
+import org.drooms.impl.util.shortestpath.CellGraph;
+import org.drooms.impl.util.shortestpath.DistanceTable;
+import org.drooms.impl.util.shortestpath.astar.UnweightedAStarShortestPath.VertexDistanceHeuristics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import edu.uci.ics.jung.graph.Graph;
+import edu.uci.ics.jung.graph.UndirectedSparseGraph;
+
+public class UnweightedAStarShortestPathTest {
+
+    private static class TestEdge implements Edge {
+
+        private final ImmutablePair<Node, Node> nodes;
+
+        public TestEdge(final Node firstNode, final Node secondNode) {
+            this.nodes = ImmutablePair.of(firstNode, secondNode);
+        }
+
+        @Override
+        public ImmutablePair<Node, Node> getNodes() {
+            return this.nodes;
+        }
+
+    }
+
+    /**
+     * Full grid, with a wall on x = 2 that only has a gap at the top.
+     */
+    private static Graph<Node, Edge> createGraph(final int size) {
+        final Node[][] nodes = new Node[size][size];
+        final Graph<Node, Edge> graph = new UndirectedSparseGraph<>();
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                if (x == 2 && y < size - 1) {
+                    continue;
+                }
+                nodes[x][y] = new Node(x, y);
+                graph.addVertex(nodes[x][y]);
+            }
+        }
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                final Node n = nodes[x][y];
+                if (n == null) {
+                    continue;
+                }
+                if (x + 1 < size && nodes[x + 1][y] != null) {
+                    graph.addEdge(new TestEdge(n, nodes[x + 1][y]), n, nodes[x + 1][y]);
+                }
+                if (y + 1 < size && nodes[x][y + 1] != null) {
+                    graph.addEdge(new TestEdge(n, nodes[x][y + 1]), n, nodes[x][y + 1]);
+                }
+            }
+        }
+        return graph;
+    }
+
+    @Test
+    public void testBlocked() {
+        final CellGraph grid = new CellGraph(UnweightedAStarShortestPathTest.createGraph(5));
+        final IndexedAStar search = new IndexedAStar(grid, VertexDistanceHeuristics.MANHATTAN);
+        final BitSet blocked = new BitSet();
+        blocked.set(grid.getIndex(2, 4));
+        Assert.assertEquals(-1, search.find(grid.getIndex(0, 0), grid.getIndex(4, 0), blocked));
+        Assert.assertEquals(-1, search.getPathLength());
+        // the same instance must not remember anything from the previous query
+        Assert.assertEquals(12, search.find(grid.getIndex(0, 0), grid.getIndex(4, 0), null));
+    }
+
+    @Test
+    public void testDistanceTableHeuristic() {
+        final CellGraph grid = new CellGraph(UnweightedAStarShortestPathTest.createGraph(5));
+        final IndexedAStar search = new IndexedAStar(grid, DistanceTable.get(grid));
+        Assert.assertEquals(12, search.find(grid.getIndex(0, 0), grid.getIndex(4, 0), null));
+        final BitSet blocked = new BitSet();
+        blocked.set(grid.getIndex(1, 1));
+        Assert.assertEquals(11, search.find(grid.getIndex(1, 0), grid.getIndex(4, 0), null));
+        Assert.assertEquals(13, search.find(grid.getIndex(1, 0), grid.getIndex(4, 0), blocked));
+        blocked.set(grid.getIndex(1, 4));
+        Assert.assertEquals(-1, search.find(grid.getIndex(1, 0), grid.getIndex(4, 0), blocked));
+    }
+
+    @Test
+    public void testIncomingEdges() {
+        final Graph<Node, Edge> graph = UnweightedAStarShortestPathTest.createGraph(5);
+        final UnweightedAStarShortestPath<Node, Edge> sp = new UnweightedAStarShortestPath<>(graph,
+                VertexDistanceHeuristics.EUCLIDEAN);
+        final Node source = new Node(0, 0);
+        final Map<Node, Edge> edges = sp.getIncomingEdgeMap(source);
+        Assert.assertEquals(graph.getVertexCount() - 1, edges.size());
+        Assert.assertEquals(ImmutablePair.of(new Node(3, 4), new Node(4, 4)), edges.get(new Node(4, 4)).getNodes());
+    }
+
+    @Test
+    public void testPathAroundWall() {
+        final UnweightedAStarShortestPath<Node, Edge> sp = new UnweightedAStarShortestPath<>(
+                UnweightedAStarShortestPathTest.createGraph(5), VertexDistanceHeuristics.MANHATTAN);
+        for (int i = 0; i < 3; i++) { // repeated queries must give the same answer
+            final List<Node> path = sp.find(new Node(0, 0), new Node(4, 0));
+            Assert.assertEquals(13, path.size());
+            Assert.assertEquals(new Node(0, 0), path.get(0));
+            Assert.assertEquals(new Node(2, 4), path.get(6));
+            Assert.assertEquals(new Node(4, 0), path.get(12));
+            for (int j = 1; j < path.size(); j++) {
+                final Node previous = path.get(j - 1);
+                final Node current = path.get(j);
+                Assert.assertEquals(1,
+                        Math.abs(previous.getX() - current.getX()) + Math.abs(previous.getY() - current.getY()));
+            }
+        }
+    }
+
+    @Test
+    public void testUnknownNodes() {
+        final UnweightedAStarShortestPath<Node, Edge> sp = new UnweightedAStarShortestPath<>(
+                UnweightedAStarShortestPathTest.createGraph(5), VertexDistanceHeuristics.CHEBYSHEV);
+        Assert.assertTrue(sp.find(new Node(0, 0), new Node(2, 0)).isEmpty());
+        Assert.assertTrue(sp.find(new Node(0, 0), new Node(10, 10)).isEmpty());
+        Assert.assertEquals(1, sp.find(new Node(1, 1), new Node(1, 1)).size());
+    }
+
+}
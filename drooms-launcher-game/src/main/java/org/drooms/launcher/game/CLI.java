@@ -27,6 +27,19 @@ import org.drooms.impl.GameController;
  * {@link GameController#play(Playground, java.util.Collection, File)}.</dd>
  * </dl>
  * 
+ * <p>
+ * Optionally, these can be given:
+ * </p>
+ * 
+ * <dl>
+ * <dt>-r &lt;folder&gt;</dt>
+ * <dd>Where to store the reports.</dd>
+ * <dt>-n &lt;count&gt;</dt>
+ * <dd>How many games to play, one after another. Defaults to 1.</dd>
+ * <dt>-H</dt>
+ * <dd>Play headless games, without any reports. Only a summary of all the games is printed in the end.</dd>
+ * </dl>
+ * 
  * Not providing any of those or pointing to unreadable (non-existent) files
  * should result in a help message being printed out and the application being
  * terminated.
@@ -50,9 +63,13 @@ public class CLI {
     private final Option playground = new Option("s", "scenario", true, "A path to the playground config file.");
     private final Option players = new Option("p", "players", true, "A path to the player config file.");
     private final Option game = new Option("g", "game", true, "A path to the game config file.");
+    private final Option games = new Option("n", "games", true, "How many games to play.");
+    private final Option headless = new Option("H", "headless", false, "Play without reports, print a summary.");
 
     private String errorMessage = null;
     private boolean isError = false;
+    private boolean isHeadless = false;
+    private int numberOfGames = 1;
 
     /**
      * The constructor is hidden, as should be with the singleton pattern.
@@ -65,6 +82,26 @@ public class CLI {
         this.options.addOption(this.game);
         this.players.setRequired(true);
         this.options.addOption(this.players);
+        this.options.addOption(this.games);
+        this.options.addOption(this.headless);
+    }
+
+    /**
+     * How many games to play. Only valid after {@link #process(String[])} succeeded.
+     * 
+     * @return Number of games.
+     */
+    public int getNumberOfGames() {
+        return this.numberOfGames;
+    }
+
+    /**
+     * Whether the games should be played without reports. Only valid after {@link #process(String[])} succeeded.
+     * 
+     * @return True if headless.
+     */
+    public boolean isHeadless() {
+        return this.isHeadless;
     }
 
     /**
@@ -108,6 +145,17 @@ public class CLI {
                 this.setError("Provided player config file cannot be read!");
                 return null;
             }
+            try {
+                this.numberOfGames = Integer.valueOf(cli.getOptionValue(this.games.getOpt(), "1"));
+            } catch (final NumberFormatException e) {
+                this.setError("Provided number of games is not a number!");
+                return null;
+            }
+            if (this.numberOfGames < 1) {
+                this.setError("Provided number of games must be positive!");
+                return null;
+            }
+            this.isHeadless = cli.hasOption(this.headless.getOpt());
             final String reports = cli.getOptionValue(this.reports.getOpt());
             if (reports == null) {
                 return new File[]{scenario, gameConfig, playerConfig};
@@ -1,9 +1,15 @@
 package org.drooms.launcher.game;
 
 import java.io.File;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.drooms.api.Player;
 import org.drooms.impl.DefaultGame;
 import org.drooms.impl.DroomsGame;
+import org.drooms.impl.GameSummary;
 import org.drooms.impl.util.PlayerAssembly;
 
 /**
@@ -14,7 +20,7 @@ public class DroomsGameLauncher {
     /**
      * Run the {@link DefaultGame} from the command-line. For a description of
      * the command line interface, see {@link CLI}.
-     * 
+     *
      * @param args
      *            Command-line arguments.
      */
@@ -27,7 +33,48 @@ public class DroomsGameLauncher {
         }
         // play the game
         final File reportFolder = (configs.length == 4) ? configs[3] : new File("reports/");
-        final DroomsGame d = new DroomsGame(DefaultGame.class, configs[0], new PlayerAssembly(configs[2]).assemblePlayers(), configs[1], reportFolder);
-        d.play(configs[0].getName());
+        final List<Player> players = new PlayerAssembly(configs[2]).assemblePlayers();
+        final DroomsGame d = new DroomsGame(DefaultGame.class, configs[0], players, configs[1], reportFolder);
+        d.setHeadless(cli.isHeadless());
+        final int games = cli.getNumberOfGames();
+        if (!cli.isHeadless() && games == 1) {
+            d.play(configs[0].getName());
+            return;
+        }
+        // [games, wins, points, turns survived] for every player
+        final Map<Player, long[]> totals = new LinkedHashMap<>();
+        for (final Player p : players) {
+            totals.put(p, new long[4]);
+        }
+        for (int i = 1; i <= games; i++) {
+            final GameSummary summary = new GameSummary();
+            d.addListener(summary);
+            final Map<Player, Integer> result = d.play(configs[0].getName() + "_" + i);
+            d.removeListener(summary);
+            final int best = result.isEmpty() ? 0 : Collections.max(result.values());
+            for (final Map.Entry<Player, Integer> entry : result.entrySet()) {
+                final Player p = entry.getKey();
+                final long[] total = totals.get(p);
+                total[0]++;
+                if (entry.getValue() == best) {
+                    total[1]++;
+                }
+                total[2] += entry.getValue();
+                total[3] += summary.getTurnsSurvived(p);
+            }
+        }
+        DroomsGameLauncher.printSummary(totals);
+    }
+
+    private static void printSummary(final Map<Player, long[]> totals) {
+        System.out.println(String.format("%-20s %8s %8s %12s %12s", "Player", "Games", "Wins", "Avg. points",
+                "Avg. turns"));
+        for (final Map.Entry<Player, long[]> entry : totals.entrySet()) {
+            final Player p = entry.getKey();
+            final long[] total = entry.getValue();
+            final double games = Math.max(1, total[0]);
+            System.out.println(String.format("%-20s %8d %8d %12.2f %12.2f", p.getName(), total[0], total[1],
+                    total[2] / games, total[3] / games));
+        }
     }
 }
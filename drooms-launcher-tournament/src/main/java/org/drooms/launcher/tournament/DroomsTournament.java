@@ -11,16 +11,63 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.SortedMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.drooms.api.Game;
 import org.drooms.api.Player;
 import org.drooms.impl.DroomsGame;
+import org.drooms.impl.GameTimings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class DroomsTournament {
 
+    /**
+     * A single game of the tournament, to be played on one of the scheduler's threads. Before the game starts, it
+     * reserves one Drools session for each of its players and releases them when the game is over.
+     */
+    private static class GameRun implements Runnable {
+
+        private final DroomsGame game;
+        private final String playgroundName;
+        private final String gameName;
+        private final TournamentResults result;
+        private final Semaphore sessions;
+        private final int requiredSessions;
+
+        public GameRun(final DroomsGame game, final String playgroundName, final String gameName,
+                final TournamentResults result, final Semaphore sessions, final int requiredSessions) {
+            this.game = game;
+            this.playgroundName = playgroundName;
+            this.gameName = gameName;
+            this.result = result;
+            this.sessions = sessions;
+            this.requiredSessions = requiredSessions;
+        }
+
+        @Override
+        public void run() {
+            this.sessions.acquireUninterruptibly(this.requiredSessions);
+            try {
+                DroomsTournament.LOGGER.info("Starting game {}.", this.gameName);
+                this.result.addResults(this.playgroundName, this.game.play(this.gameName));
+                if (this.game.getTimings() != null) {
+                    this.result.addTimings(this.game.getTimings());
+                }
+                DroomsTournament.LOGGER.info("Finished game {}.", this.gameName);
+            } finally {
+                this.sessions.release(this.requiredSessions);
+            }
+        }
+
+    }
+
     private static final Logger LOGGER = LoggerFactory.getLogger(DroomsTournament.class);
 
     private static String getTimestamp() {
@@ -52,21 +99,35 @@ public class DroomsTournament {
         final Collection<Player> players = props.getPlayers();
         // prepare a result tracker
         final TournamentResults result = new DroomsTournamentResults(id, players);
+        // schedule the games; each game gets its own report folder, as the game names are unique
+        final ExecutorService scheduler = Executors.newFixedThreadPool(props.getParallelism());
+        final Semaphore sessions = new Semaphore(props.getMaximumSessions());
+        final int requiredSessions = Math.min(players.size(), props.getMaximumSessions());
+        final List<Future<?>> games = new ArrayList<>();
         // for each playground...
         for (final ImmutablePair<File, File> gameConfig : props.getPlaygrounds()) {
             final String playgroundName = gameConfig.getLeft().getName();
             // run N games on the playground
-            DroomsTournament.LOGGER.info("Starting games on playground {}.", playgroundName);
+            DroomsTournament.LOGGER.info("Scheduling games on playground {}.", playgroundName);
             for (int i = 1; i <= Integer.valueOf(props.getNumberOfRunsPerPlayground()); i++) {
-                DroomsTournament.LOGGER.info("Starting game #{} on playground {}.", i, playgroundName);
                 // randomize player order
                 final List<Player> randomPlayers = new ArrayList<>(players);
                 Collections.shuffle(randomPlayers);
                 // play the game
                 final DroomsGame dg = new DroomsGame(game, gameConfig.getLeft(), randomPlayers, gameConfig.getRight(),
                         reports);
-                result.addResults(playgroundName, dg.play(playgroundName + "_" + i));
+                games.add(scheduler.submit(new GameRun(dg, playgroundName, playgroundName + "_" + i, result,
+                        sessions, requiredSessions)));
+            }
+        }
+        scheduler.shutdown();
+        try {
+            for (final Future<?> g : games) {
+                g.get();
             }
+        } catch (final InterruptedException | ExecutionException ex) {
+            scheduler.shutdownNow();
+            throw new IllegalStateException("Failed playing the tournament.", ex);
         }
         DroomsTournament.LOGGER.info("Tournament results:");
         int i = 1;
@@ -74,6 +135,10 @@ public class DroomsTournament {
             DroomsTournament.LOGGER.info("#" + i + " with " + entry.getKey() + " points: " + entry.getValue());
             i++;
         }
+        final GameTimings timings = result.getTimings();
+        DroomsTournament.LOGGER.info("Engine took {} ms, strategies took {} ms.",
+                TimeUnit.NANOSECONDS.toMillis(timings.getEngineTime()),
+                TimeUnit.NANOSECONDS.toMillis(timings.getStrategyTime()));
         try (BufferedWriter w = new BufferedWriter(new FileWriter(new File(reports, "report.html")))) {
             result.write(w);
         } catch (final IOException e) {
@@ -36,6 +36,11 @@ import org.drooms.util.CommonProperties;
  * <dl>
  * <dt>runs</dt>
  * <dd>How many times should each playground be played. Number > 0, default value is 1.</dd>
+ * <dt>parallelism</dt>
+ * <dd>How many games may be played at the same time. Number > 0, default value is 1.</dd>
+ * <dt>parallelism.sessions</dt>
+ * <dd>How many Drools sessions may exist at the same time, across all the games being played. Each game needs one
+ * session per player. Number > 0, default value is the number of players multiplied by parallelism.</dd>
  * <dt>folder.resources</dt>
  * <dd>Where to load all input files from, relative to the current working directory. If it doesn't exist, it is
  * created. Default value is "src/main/resources".</dd>
@@ -67,6 +72,8 @@ public class TournamentProperties extends CommonProperties {
     private final Collection<ImmutablePair<File, File>> playgrounds;
 
     private final int numberOfRunsPerPlayground;
+    private final int parallelism;
+    private final int maximumSessions;
 
     private final Collection<Player> players;
 
@@ -74,6 +81,10 @@ public class TournamentProperties extends CommonProperties {
         super(p);
         this.gameClass = TournamentProperties.getGameImpl(this.getMandatoryProperty("game.class"));
         this.numberOfRunsPerPlayground = Integer.valueOf(this.getOptionalProperty("runs", "1"));
+        this.parallelism = Integer.valueOf(this.getOptionalProperty("parallelism", "1"));
+        if (this.parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be a positive number: " + this.parallelism);
+        }
         // prepare folders
         this.resourceFolder = new File(this.getOptionalProperty("folder.resources", "src/main/resources"));
         if (!this.resourceFolder.exists()) {
@@ -86,6 +97,12 @@ public class TournamentProperties extends CommonProperties {
         // prepare a list of players
         final File playerConfigFile = new File(this.resourceFolder, this.getMandatoryProperty("players"));
         this.players = Collections.unmodifiableList(new PlayerAssembly(playerConfigFile).assemblePlayers());
+        final int defaultSessions = Math.max(1, this.players.size()) * this.parallelism;
+        this.maximumSessions = Integer.valueOf(this.getOptionalProperty("parallelism.sessions",
+                String.valueOf(defaultSessions)));
+        if (this.maximumSessions < 1) {
+            throw new IllegalArgumentException("Maximum sessions must be a positive number: " + this.maximumSessions);
+        }
         // parse the playgrounds
         final Collection<ImmutablePair<File, File>> playgrounds = new ArrayList<>();
         for (final String playgroundName : this.getMandatoryProperty("playgrounds").split("\\Q,\\E")) {
@@ -100,10 +117,18 @@ public class TournamentProperties extends CommonProperties {
         return this.gameClass;
     }
 
+    public int getMaximumSessions() {
+        return this.maximumSessions;
+    }
+
     public int getNumberOfRunsPerPlayground() {
         return this.numberOfRunsPerPlayground;
     }
 
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
     public Collection<Player> getPlayers() {
         return this.players;
     }
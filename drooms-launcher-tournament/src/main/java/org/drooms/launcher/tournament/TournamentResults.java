@@ -14,6 +14,7 @@ import java.util.SortedMap;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.drooms.api.Player;
+import org.drooms.impl.GameTimings;
 
 import freemarker.ext.beans.BeansWrapper;
 import freemarker.template.Configuration;
@@ -90,19 +91,39 @@ public abstract class TournamentResults {
 
     private final Collection<Player> players;
     private final String name;
+    private final GameTimings timings = new GameTimings();
 
     public TournamentResults(final String name, final Collection<Player> players) {
         this.name = name;
         this.players = Collections.unmodifiableCollection(players);
     }
 
-    public void addResults(final String game, final Map<Player, Integer> result) {
+    /**
+     * Record results of a single game. Safe to be called from multiple threads at once.
+     * 
+     * @param game
+     *            Name of the game, usually the playground.
+     * @param result
+     *            Points gained by each player.
+     */
+    public synchronized void addResults(final String game, final Map<Player, Integer> result) {
         if (!this.results.containsKey(game)) {
             this.results.put(game, new GameResults());
         }
         this.results.get(game).addResults(result);
     }
 
+    /**
+     * Record timings of a single game, to be added to the performance summary of the tournament. Safe to be called
+     * from multiple threads at once.
+     * 
+     * @param timings
+     *            How long the phases of the game and the decisions of the players took.
+     */
+    public synchronized void addTimings(final GameTimings timings) {
+        this.timings.add(timings);
+    }
+
     @SuppressWarnings({ "rawtypes", "unchecked" })
     private Map assembleGameOverview() {
         final Map result = new HashMap();
@@ -123,6 +144,8 @@ public abstract class TournamentResults {
         result.put("gameScore", this.assembleGameOverview());
         result.put("gameResults", this.results);
         result.put("results", this.evaluate());
+        result.put("timings", this.timings);
+        result.put("phases", GameTimings.Phase.values());
         return Collections.unmodifiableMap(result);
     }
 
@@ -136,7 +159,7 @@ public abstract class TournamentResults {
         return Collections.unmodifiableMap(result);
     }
 
-    public Map<Long, Collection<Player>> evaluate() {
+    public synchronized Map<Long, Collection<Player>> evaluate() {
         final Collection<List<Collection<Player>>> gameResults = new LinkedList<>();
         for (final String game : this.getGameNames()) {
             gameResults.add(this.evaluateGame(this.players,
@@ -152,11 +175,20 @@ public abstract class TournamentResults {
             final Collection<Player> players,
             final Collection<List<Collection<Player>>> gameResults);
 
-    public Collection<String> getGameNames() {
+    public synchronized Collection<String> getGameNames() {
         return Collections.unmodifiableSet(this.results.keySet());
     }
 
-    public void write(final Writer w) throws IOException {
+    /**
+     * Retrieve the performance summary of the tournament.
+     * 
+     * @return Timings of all the games recorded so far, added together. Not to be modified.
+     */
+    public synchronized GameTimings getTimings() {
+        return this.timings;
+    }
+
+    public synchronized void write(final Writer w) throws IOException {
         final Configuration freemarker = new Configuration();
         freemarker.setClassForTemplateLoading(TournamentResults.class, "");
         freemarker.setObjectWrapper(new BeansWrapper());
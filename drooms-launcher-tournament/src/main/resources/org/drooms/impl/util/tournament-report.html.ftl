@@ -53,6 +53,35 @@
           </tbody>
         </table>
       </article>
+      <article>
+        <h3>Performance of the engine, in microseconds per turn</h3>
+        <table>
+          <thead>
+            <tr><th>Phase</th><th>Mean</th><th>Median</th><th>99th percentile</th><th>Max</th></tr>
+          </thead>
+          <tbody>
+<#list phases as phase> 
+    <#assign h = timings.getPhase(phase)> 
+        <tr><td>${phase.name()}</td><td>${(h.getMean() / 1000)?round}</td><td>${(h.getValueAtPercentile(50) / 1000)?round}</td><td>${(h.getValueAtPercentile(99) / 1000)?round}</td><td>${(h.getMax() / 1000)?round}</td></tr>
+</#list>
+          </tbody>
+        </table>
+      </article>
+      <article>
+        <h3>Performance of the strategies, in microseconds per decision</h3>
+        <table>
+          <thead>
+            <tr><th>Player</th><th>Decisions</th><th>Mean</th><th>Median</th><th>99th percentile</th><th>Max</th></tr>
+          </thead>
+          <tbody>
+<#list timings.getPlayers() as player> 
+    <#assign h = timings.getDecisions(player)> 
+        <tr><td>${player.getName()}</td><td>${h.getCount()}</td><td>${(h.getMean() / 1000)?round}</td><td>${(h.getValueAtPercentile(50) / 1000)?round}</td><td>${(h.getValueAtPercentile(99) / 1000)?round}</td><td>${(h.getMax() / 1000)?round}</td></tr>
+</#list>
+          </tbody>
+        </table>
+        <p>In total, the engine took ${(timings.getEngineTime() / 1000000)?round} ms and the strategies took ${(timings.getStrategyTime() / 1000000)?round} ms.</p>
+      </article>
 <#list gameScore.entrySet() as entry>
     <#assign gameName = entry.key> 
     <#assign gameResult = gameResults.get(gameName)> 
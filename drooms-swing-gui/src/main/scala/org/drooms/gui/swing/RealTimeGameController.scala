@@ -12,6 +12,7 @@ import org.drooms.gui.swing.util.IOUtils
 import org.drooms.impl.DefaultGame
 import org.drooms.impl.DroomsGame
 import org.drooms.impl.util.PlayerAssembly
+import org.drooms.util.KieBaseCache
 
 import com.typesafe.scalalogging.slf4j.Logging
 
@@ -132,6 +133,8 @@ class RealTimeGameController(
         case None => // nothing to do
       }
     }
+    // the rebuilt strategies must not be served from the cache
+    KieBaseCache.invalidateSnapshots()
   }
 
   def pauseGame(): Unit = ???